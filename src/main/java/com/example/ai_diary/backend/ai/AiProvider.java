@@ -0,0 +1,22 @@
+package com.example.ai_diary.backend.ai;
+
+/**
+ * OpenAI 以外の生成エンジン（SPI）
+ * - Bean として登録すると AiTransformService がスタイルごとの設定（ai.provider.mode.<style>）に従って使う
+ *   - primary: OpenAI より先に使う / fallback: OpenAI で生成できなかった時に使う / off: 使わない
+ * - 同期・短時間で完了すること（締め切りの対象外）
+ */
+public interface AiProvider {
+
+	/** ログ・設定用の名前 */
+	String name();
+
+	/** 生成できるスタイルか */
+	boolean supports(AiStyle style);
+
+	/**
+	 * 生成する（生成できなければ null）
+	 * - 後処理（AiStyle.postProcess）は呼び出し側で行う
+	 */
+	String generate(AiStyle style, String content);
+}
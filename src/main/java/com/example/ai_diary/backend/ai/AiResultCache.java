@@ -0,0 +1,206 @@
+package com.example.ai_diary.backend.ai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.domain.AiCacheEntry;
+import com.example.ai_diary.backend.repository.AiCacheRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * AI生成結果の2段キャッシュ
+ * - 1段目: プロセス内（件数上限 + TTL）
+ * - 2段目: PostgreSQL の ai_cache（再起動後も有効）
+ * キーは model + プロンプト + 正規化本文 のハッシュ。プロンプト/モデルが変われば自然にミスする
+ */
+@Component
+public class AiResultCache {
+
+	private static final Logger log = LoggerFactory.getLogger(AiResultCache.class);
+
+	/** 連続する空白 */
+	private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+	private final AiCacheRepository repository;
+	private final String model;
+	private final boolean enabled;
+	private final Duration dbTtl;
+	private final Cache<String, String> memory;
+
+	private final Counter dbHits;
+	private final Counter dbMisses;
+
+	public AiResultCache(AiCacheRepository repository, MeterRegistry registry,
+			@Value("${openai.model:gpt-4o-mini}") String model,
+			@Value("${ai.cache.enabled:true}") boolean enabled,
+			@Value("${ai.cache.memory.max-size:10000}") long maxSize,
+			@Value("${ai.cache.memory.ttl-ms:3600000}") long memoryTtlMs,
+			@Value("${ai.cache.db.ttl-ms:2592000000}") long dbTtlMs) {
+		this.repository = repository;
+		this.model = model;
+		this.enabled = enabled;
+		this.dbTtl = Duration.ofMillis(dbTtlMs);
+		this.memory = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofMillis(memoryTtlMs))
+				.recordStats()
+				.build();
+
+		// メモリ段のヒット/ミス/退避件数は Caffeine の統計を公開
+		CaffeineCacheMetrics.monitor(registry, memory, "ai.result", "tier", "memory");
+		this.dbHits = Counter.builder("ai.cache.db.requests").tag("result", "hit").register(registry);
+		this.dbMisses = Counter.builder("ai.cache.db.requests").tag("result", "miss").register(registry);
+	}
+
+	/**
+	 * キャッシュ取得（無ければ null）
+	 */
+	public String get(AiStyle style, String content) {
+		if (!enabled) {
+			return null;
+		}
+
+		String key = key(style, content);
+		String hit = memory.getIfPresent(key);
+		if (hit != null) {
+			return hit;
+		}
+
+		try {
+			String out = repository.findById(key)
+					.filter(e -> e.getCreatedAt().isAfter(Instant.now().minus(dbTtl)))
+					.map(AiCacheEntry::getOutput)
+					.orElse(null);
+			if (out == null) {
+				dbMisses.increment();
+				return null;
+			}
+			dbHits.increment();
+			memory.put(key, out);
+			return out;
+		} catch (Exception e) {
+			// DB障害時はキャッシュなしとして扱う
+			log.debug("AI cache lookup failed: {}", e.toString());
+			return null;
+		}
+	}
+
+	/**
+	 * キャッシュ登録（null は登録しない）
+	 */
+	public void put(AiStyle style, String content, String output) {
+		if (!enabled || output == null) {
+			return;
+		}
+
+		String key = key(style, content);
+		memory.put(key, output);
+
+		try {
+			repository.upsert(key, style.key(), fingerprint(style), output);
+		} catch (Exception e) {
+			log.debug("AI cache store failed: {}", e.toString());
+		}
+	}
+
+	/**
+	 * 指定スタイルのキャッシュを破棄（プロンプト変更時など）
+	 */
+	public void invalidate(AiStyle style) {
+		// メモリ段はキーからスタイルを逆引きできないため全破棄
+		memory.invalidateAll();
+		repository.deleteByStyle(style.key());
+	}
+
+	/**
+	 * 全キャッシュを破棄（モデル変更時など）
+	 */
+	public void invalidateAll() {
+		memory.invalidateAll();
+		for (AiStyle style : AiStyle.values()) {
+			repository.deleteByStyle(style.key());
+		}
+	}
+
+	/**
+	 * 起動時に、現在のプロンプト/モデルと一致しない永続キャッシュを削除する
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void purgeStale() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			for (AiStyle style : AiStyle.values()) {
+				int n = repository.deleteStale(style.key(), fingerprint(style));
+				if (n > 0) {
+					log.info("AI cache: purged {} stale entries for style={}", n, style.key());
+				}
+			}
+		} catch (Exception e) {
+			log.warn("AI cache purge failed: {}", e.toString());
+		}
+	}
+
+	/**
+	 * 期限切れの永続キャッシュを削除する
+	 */
+	@Scheduled(fixedDelayString = "${ai.cache.db.purge-interval-ms:3600000}")
+	public void purgeExpired() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			repository.deleteOlderThan(Instant.now().minus(dbTtl));
+		} catch (Exception e) {
+			log.debug("AI cache expiry purge failed: {}", e.toString());
+		}
+	}
+
+	/** キャッシュキー */
+	String key(AiStyle style, String content) {
+		return sha256(model + '\u0000' + style.prompt() + '\u0000' + normalize(content));
+	}
+
+	/** プロンプト/モデルの指紋 */
+	String fingerprint(AiStyle style) {
+		return sha256(model + '\u0000' + style.prompt());
+	}
+
+	/** NFKC正規化・前後空白除去・連続空白の1文字化 */
+	static String normalize(String content) {
+		if (content == null) {
+			return "";
+		}
+		String nfkc = Normalizer.normalize(content.strip(), Normalizer.Form.NFKC);
+		return WHITESPACES.matcher(nfkc).replaceAll(" ");
+	}
+
+	private static String sha256(String s) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(md.digest(s.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
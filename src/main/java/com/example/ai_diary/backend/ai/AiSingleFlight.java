@@ -0,0 +1,134 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 同一キーの実行中リクエストの相乗り（single-flight）
+ * - 同じキーの呼び出しが実行中なら、新たに送信せず同じ結果を待つ
+ * - 待機側には個別の Future を返し、全員がキャンセルした時点で送信元もキャンセルする
+ * - 完了した時点で表から外す（結果の保持はキャッシュの役割）
+ */
+@Component
+public class AiSingleFlight {
+
+	private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+	private final Counter saved;
+
+	public AiSingleFlight(MeterRegistry registry) {
+		this.saved = Counter.builder("ai.singleflight.saved")
+				.description("OpenAI calls avoided by joining an identical in-flight request")
+				.register(registry);
+		Gauge.builder("ai.singleflight.in-flight", inFlight, ConcurrentMap::size).register(registry);
+	}
+
+	/**
+	 * 実行中の同一キーに相乗りし、無ければ call で送信する
+	 */
+	public CompletableFuture<String> execute(String key, Supplier<CompletableFuture<String>> call) {
+
+		while (true) {
+			Flight existing = inFlight.get(key);
+			if (existing != null) {
+				CompletableFuture<String> joined = existing.join();
+				if (joined != null) {
+					saved.increment();
+					return joined;
+				}
+				// キャンセル済みの Flight は外されるのを待たずに置き換える
+				inFlight.remove(key, existing);
+				continue;
+			}
+
+			Flight created = new Flight();
+			if (inFlight.putIfAbsent(key, created) != null) {
+				continue;
+			}
+
+			CompletableFuture<String> waiter = created.join();
+			CompletableFuture<String> upstream;
+			try {
+				upstream = call.get();
+			} catch (RuntimeException e) {
+				inFlight.remove(key, created);
+				throw e;
+			}
+			created.start(upstream, () -> inFlight.remove(key, created));
+			return waiter;
+		}
+	}
+
+	/** 実行中の件数 */
+	int size() {
+		return inFlight.size();
+	}
+
+	/**
+	 * 1件の送信と待機者
+	 */
+	private static final class Flight {
+
+		// --- 以下は this で排他 ---
+		private int waiters = 0;
+		private boolean closed = false;
+		private CompletableFuture<String> upstream;
+		private final CompletableFuture<String> result = new CompletableFuture<>();
+
+		/** 待機者を追加（全員キャンセル済みで閉じていれば null） */
+		synchronized CompletableFuture<String> join() {
+			if (closed) {
+				return null;
+			}
+			waiters++;
+
+			CompletableFuture<String> waiter = result.thenApply(r -> r);
+			waiter.whenComplete((r, e) -> {
+				if (waiter.isCancelled()) {
+					leave();
+				}
+			});
+			return waiter;
+		}
+
+		void start(CompletableFuture<String> upstream, Runnable onDone) {
+			boolean cancelNow;
+			synchronized (this) {
+				this.upstream = upstream;
+				cancelNow = closed;
+			}
+			upstream.whenComplete((r, e) -> {
+				onDone.run();
+				if (e != null) {
+					result.completeExceptionally(e);
+				} else {
+					result.complete(r);
+				}
+			});
+			if (cancelNow) {
+				upstream.cancel(true);
+			}
+		}
+
+		private void leave() {
+			CompletableFuture<String> toCancel = null;
+			synchronized (this) {
+				if (--waiters > 0 || result.isDone()) {
+					return;
+				}
+				closed = true;
+				toCancel = upstream;
+			}
+			if (toCancel != null) {
+				toCancel.cancel(true);
+			}
+		}
+	}
+}
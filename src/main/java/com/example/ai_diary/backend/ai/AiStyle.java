@@ -1,5 +1,10 @@
 package com.example.ai_diary.backend.ai;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * AI生成スタイル
  * - 各スタイルに「キー名」と「システムプロンプト」を保持
@@ -34,6 +39,12 @@ public enum AiStyle {
         return systemPrompt;
     }
 
+    /** 生成結果の整形（俳句は改行を " / " に置換） */
+    public String postProcess(String out) {
+        if (out == null) return null;
+        return this == HAIKU ? out.replaceAll("\\r?\\n", " / ") : out;
+    }
+
     /**
      * 文字列からAiStyleを安全に取得
      * - nullや不正値ならnullを返す
@@ -49,4 +60,20 @@ public enum AiStyle {
         }
         return null;
     }
+
+    /**
+     * 文字列リストからAiStyleのリストを取得
+     * - 不正値は除外、重複は先勝ちで1つにまとめる
+     */
+    public static List<AiStyle> fromAll(Collection<String> ss) {
+        if (ss == null) return List.of();
+        Set<AiStyle> styles = new LinkedHashSet<>();
+        for (String s : ss) {
+            AiStyle style = from(s);
+            if (style != null) {
+                styles.add(style);
+            }
+        }
+        return List.copyOf(styles);
+    }
 }
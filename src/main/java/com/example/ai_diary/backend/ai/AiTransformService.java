@@ -1,79 +1,393 @@
 package com.example.ai_diary.backend.ai;
 
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.ai_diary.backend.config.AiInputProperties;
+import com.example.ai_diary.backend.config.AiProviderProperties;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 @Service
 public class AiTransformService {
 
+	private static final Logger log = LoggerFactory.getLogger(AiTransformService.class);
+
+	/** 相乗りキーのスタイルと本文の区切り */
+	private static final char FLIGHT_KEY_SEPARATOR = '\u0000';
+
+	/** 一括生成モードのシステムプロンプト（先頭部分） */
+	private static final String COMBINED_PROMPT_HEADER = """
+			以下の本文について、指定した各キーの指示に従って生成し、JSONオブジェクトのみを出力してください。
+			値はすべて文字列とし、指定したキー以外は出力しないこと。
+			""";
+
 	private final OpenAiClient client;
+	private final AiResultCache cache;
+	private final OpenAiCircuitBreaker breaker;
+	private final AiSingleFlight singleFlight;
+	private final AiUsageMeter usageMeter;
+	private final AiInputProperties inputProperties;
+	private final List<AiProvider> providers;
+	private final AiProviderProperties providerProperties;
 	@Autowired
 	private final ObjectMapper mapper;
-	
+
 	/** AI生成のON・OFFスイッチ */
 	private final boolean enabled;
 
-	public AiTransformService(OpenAiClient client, ObjectMapper mapper, @Value("${ai.enabled:true}") boolean enabled) {
+	/** 全スタイル共通の締め切り（ミリ秒） */
+	private final long deadlineMs;
+
+	/** 複数スタイルを1回の呼び出しでまとめて生成するか */
+	private final boolean combined;
+
+	public AiTransformService(OpenAiClient client, AiResultCache cache, OpenAiCircuitBreaker breaker,
+			AiSingleFlight singleFlight, AiUsageMeter usageMeter, AiInputProperties inputProperties,
+			List<AiProvider> providers, AiProviderProperties providerProperties,
+			ObjectMapper mapper, @Value("${ai.enabled:true}") boolean enabled,
+			@Value("${ai.request.deadline-ms:30000}") long deadlineMs,
+			@Value("${ai.combined.enabled:false}") boolean combined) {
 		this.client = client;
+		this.cache = cache;
+		this.breaker = breaker;
+		this.singleFlight = singleFlight;
+		this.usageMeter = usageMeter;
+		this.inputProperties = inputProperties;
+		this.providers = providers;
+		this.providerProperties = providerProperties;
 		this.mapper = mapper;
 		this.enabled = enabled;
+		this.deadlineMs = deadlineMs;
+		this.combined = combined;
+	}
+
+	/** AI生成が有効か */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * 今すぐ OpenAI を呼び出せるか（有効かつサーキットが OPEN でない）
+	 */
+	public boolean isAvailable() {
+		return enabled && breaker.isCallPermitted();
 	}
 
 	/**
 	* 指定スタイル（0..n）で content を変換し、JSON文字列を返す。
 	* 例: {"summary":"...", "haiku":"...", "quote":"..."}
+	* - キャッシュ済みのスタイルは OpenAI を呼ばない
+	* - 一括生成モードでは1回の呼び出しで全スタイルを生成し、不正な応答のスタイルのみ個別に再生成する
+	* - 個別生成では各スタイルを並行に送信し、締め切りまでに完了した分のみ採用する
+	* - 個別失敗・締め切り超過は null（他スタイルは生成する）
+	* - 本文はスタイルごとの入力トークン予算に収めてから送信する
+	* - ai.provider.mode.<style> が primary のスタイルは AiProvider で生成し、OpenAI を呼ばない
+	* - fallback のスタイルは OpenAI で生成できなかった場合（失敗・締め切り超過・クォータ枯渇・サーキット OPEN）に AiProvider で補う
+	* - クォータ枯渇・サーキット OPEN で1件も生成できなかった場合は null
+	* @param userId 使用量の記録先（null なら記録しない）
 	*/
-	public String transformToJson(String content, List<String> styles) {
+	public String transformToJson(Long userId, String content, List<String> styles) {
 
 		if (!enabled || styles == null || styles.isEmpty())
 			return null;
 
-		// 空のJSONオブジェクトを作成する
+		// 不正な値・重複はスキップ
+		List<AiStyle> targets = AiStyle.fromAll(styles);
+		if (targets.isEmpty())
+			return null;
+
+		long deadlineAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+
+		Map<AiStyle, String> results = new EnumMap<>(AiStyle.class);
+
+		// キャッシュ済みのスタイルを先に埋める
+		for (AiStyle st : targets) {
+			String cached = cache.get(st, content);
+			if (cached != null) {
+				results.put(st, cached);
+			}
+		}
+
+		// ローカル生成を優先するスタイル
+		for (AiStyle st : targets) {
+			if (!results.containsKey(st) && providerProperties.modeFor(st.key()) == AiProviderProperties.Mode.PRIMARY) {
+				String local = generateLocal(st, content);
+				if (local != null) {
+					results.put(st, local);
+				}
+			}
+		}
+
+		boolean unavailable = false;
+		try {
+			List<AiStyle> pending = targets.stream().filter(st -> !results.containsKey(st)).toList();
+
+			// サーキット OPEN 中は生成せずキャッシュ分のみ返す
+			if (!pending.isEmpty() && !breaker.isCallPermitted()) {
+				unavailable = true;
+				pending = List.of();
+			}
+
+			if (combined && pending.size() > 1) {
+				Map<AiStyle, String> generated = generateCombined(userId, pending, content, deadlineAt);
+				generated.forEach((st, out) -> cache.put(st, content, out));
+				results.putAll(generated);
+				pending = pending.stream().filter(st -> !results.containsKey(st)).toList();
+			}
+
+			if (!pending.isEmpty()) {
+				Map<AiStyle, String> generated = generateEach(userId, pending, content, deadlineAt);
+				generated.forEach((st, out) -> cache.put(st, content, out));
+				results.putAll(generated);
+			}
+
+		} catch (OpenAiQuotaExceededException | OpenAiCircuitOpenException q) {
+			unavailable = true;
+		}
+
+		// OpenAI で生成できなかった分をローカル生成で補う（キャッシュには入れない）
+		for (AiStyle st : targets) {
+			if (results.get(st) == null && providerProperties.modeFor(st.key()) == AiProviderProperties.Mode.FALLBACK) {
+				String local = generateLocal(st, content);
+				if (local != null) {
+					results.put(st, local);
+				}
+			}
+		}
+
+		// クォータ枯渇・サーキット OPEN 時に何も得られなければnull返却
+		if (unavailable && results.values().stream().allMatch(v -> v == null)) {
+			return null;
+		}
+
+		// 空のJSONオブジェクトを作成する（キー順はリクエスト順）
 		ObjectNode root = mapper.createObjectNode();
+		for (AiStyle st : targets) {
+			root.put(st.key(), results.get(st));
+		}
 
-		for (String s : styles) {
+		return root.isEmpty() ? null : root.toString();
+	}
 
-			AiStyle st;
+	/**
+	 * transformToJson の結果から null の値（生成できなかったスタイル）を除いた JSON
+	 * - すべて null（1件も生成できなかった）なら null
+	 */
+	public String withoutNulls(String json) {
+		if (json == null) {
+			return null;
+		}
+		try {
+			ObjectNode node = (ObjectNode) mapper.readTree(json);
+			ObjectNode out = mapper.createObjectNode();
+			node.fields().forEachRemaining(e -> {
+				if (!e.getValue().isNull()) {
+					out.set(e.getKey(), e.getValue());
+				}
+			});
+			return out.isEmpty() ? null : out.toString();
+		} catch (Exception e) {
+			return null;
+		}
+	}
 
-			try {
-				st = AiStyle.from(s);
-			} catch (Exception e) {
+	/**
+	 * 一括生成
+	 * - 応答を解析できたスタイルのみ返す（解析できなければ空）
+	 */
+	private Map<AiStyle, String> generateCombined(Long userId, List<AiStyle> targets, String content, long deadlineAt) {
+
+		// 予算は対象スタイルの最大値
+		int budget = targets.stream().mapToInt(st -> inputProperties.budgetFor(st.key())).max().orElse(0);
+		String input = input(content, budget);
 
-				// 不正な値はスキップ
+		StringBuilder prompt = new StringBuilder(COMBINED_PROMPT_HEADER);
+		for (AiStyle st : targets) {
+			prompt.append("- \"").append(st.key()).append("\": ").append(st.prompt()).append('\n');
+		}
+
+		String key = targets.stream().map(AiStyle::key).collect(Collectors.joining(",")) + FLIGHT_KEY_SEPARATOR
+				+ AiResultCache.normalize(content);
+		CompletableFuture<String> f = singleFlight.execute(key,
+				() -> metered(userId, AiUsageMeter.STYLE_COMBINED, client.chatAsync(prompt.toString(), input, true)));
+		awaitUntil(List.of(f), deadlineAt);
+
+		Map<AiStyle, String> results = new EnumMap<>(AiStyle.class);
+
+		if (!f.isDone()) {
+			f.cancel(true);
+			return results;
+		}
+		if (failedWith(f, OpenAiQuotaExceededException.class)) {
+			throw new OpenAiQuotaExceededException("OpenAI quota exceeded");
+		}
+		if (failedWith(f, OpenAiCircuitOpenException.class)) {
+			throw new OpenAiCircuitOpenException("OpenAI circuit is open");
+		}
+		if (f.isCompletedExceptionally()) {
+			return results;
+		}
+
+		try {
+			JsonNode root = mapper.readTree(f.join());
+			for (AiStyle st : targets) {
+				JsonNode v = root.path(st.key());
+				if (v.isTextual() && !v.asText().isBlank()) {
+					results.put(st, st.postProcess(v.asText().strip()));
+				}
+			}
+		} catch (Exception e) {
+			log.debug("combined AI reply is not valid JSON, falling back to per-style calls: {}", e.toString());
+		}
+
+		return results;
+	}
+
+	/**
+	 * スタイルごとに並行生成
+	 * - 失敗・締め切り超過は null
+	 * - サーキット OPEN で失敗し、1件も生成できなかった場合は OpenAiCircuitOpenException
+	 */
+	private Map<AiStyle, String> generateEach(Long userId, List<AiStyle> targets, String content, long deadlineAt) {
+
+		Map<AiStyle, String> results = new EnumMap<>(AiStyle.class);
+
+		// 締め切り済みなら送信しない
+		if (deadlineAt - System.nanoTime() <= 0) {
+			targets.forEach(st -> results.put(st, null));
+			return results;
+		}
+
+		Map<AiStyle, CompletableFuture<String>> futures = new LinkedHashMap<>();
+		for (AiStyle st : targets) {
+			// 同一スタイル・同一本文の実行中リクエストがあれば相乗りする
+			String key = st.key() + FLIGHT_KEY_SEPARATOR + AiResultCache.normalize(content);
+			String input = input(content, inputProperties.budgetFor(st.key()));
+			futures.put(st, singleFlight.execute(key,
+					() -> metered(userId, st.key(), client.chatAsync(st.prompt(), input))));
+		}
+
+		awaitUntil(futures.values(), deadlineAt);
+
+		boolean circuitOpen = false;
+		for (Map.Entry<AiStyle, CompletableFuture<String>> e : futures.entrySet()) {
+
+			AiStyle st = e.getKey();
+			CompletableFuture<String> f = e.getValue();
+
+			if (f.isDone() && !f.isCompletedExceptionally()) {
+				results.put(st, st.postProcess(f.join()));
 				continue;
 			}
 
-			try {
+			if (failedWith(f, OpenAiQuotaExceededException.class)) {
+				futures.values().forEach(other -> other.cancel(true));
+				throw new OpenAiQuotaExceededException("OpenAI quota exceeded");
+			}
+			circuitOpen |= failedWith(f, OpenAiCircuitOpenException.class);
 
-				// OpenAIへ送信する文章を作成する
-				String out = client.chat(st.prompt(),
-						"本文:\n" + content.trim());
+			// 締め切り超過分は中断し、個別失敗として続行
+			f.cancel(true);
+			results.put(st, null);
+		}
 
-				switch (st) {
+		if (circuitOpen && results.values().stream().allMatch(v -> v == null)) {
+			throw new OpenAiCircuitOpenException("OpenAI circuit is open");
+		}
+		return results;
+	}
 
-				case SUMMARY -> root.put("summary", out);
-				case HAIKU -> root.put("haiku", out.replaceAll("\\r?\\n", " / "));
-				case QUOTE -> root.put("quote", out);
+	/**
+	 * 対応する AiProvider で生成する（無い・失敗した場合は null）
+	 */
+	private String generateLocal(AiStyle st, String content) {
+		for (AiProvider p : providers) {
+			if (!p.supports(st)) {
+				continue;
+			}
+			try {
+				String out = p.generate(st, content);
+				if (out != null && !out.isBlank()) {
+					return st.postProcess(out);
 				}
-				
-			} catch (OpenAiQuotaExceededException q) {
-				
-				// クォータ枯渇時はnull返却
-				return null;
-				
-			} catch (Exception apiEx) {
-
-				// 個別失敗は握りつぶして続行（他スタイルは生成する）
-				root.put(st.name().toLowerCase(), (String) null);
+			} catch (RuntimeException e) {
+				log.warn("AI provider {} failed for {}: {}", p.name(), st.key(), e.toString());
 			}
 		}
+		return null;
+	}
 
-		return root.isEmpty() ? null : root.toString();
+	/**
+	 * OpenAIへ送信する文章を作成する（予算超過分は切り詰める）
+	 */
+	public static String input(String content, int budget) {
+		return "本文:\n" + TokenEstimator.fit(content.trim(), budget);
+	}
+
+	/**
+	 * 使用量を記録して本文のみ返す
+	 * - 相乗りした呼び出しは最初の呼び出し元にのみ記録される
+	 * - 返却 Future のキャンセルは送信元にも伝える
+	 */
+	private CompletableFuture<String> metered(Long userId, String style, CompletableFuture<ChatResult> call) {
+		CompletableFuture<String> f = call.thenApply(r -> {
+			usageMeter.record(userId, style, r);
+			return r.content();
+		});
+		f.whenComplete((r, e) -> {
+			if (f.isCancelled()) {
+				call.cancel(true);
+			}
+		});
+		return f;
+	}
+
+	/**
+	 * 全Futureの完了、または締め切りまで待つ
+	 */
+	private static void awaitUntil(Collection<CompletableFuture<String>> futures, long deadlineAt) {
+
+		long remaining = deadlineAt - System.nanoTime();
+		if (remaining <= 0) {
+			return;
+		}
+
+		try {
+			CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(remaining, TimeUnit.NANOSECONDS);
+		} catch (TimeoutException | ExecutionException e) {
+			// 完了済みの分のみ採用する
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/** 指定の例外で失敗したか（キャンセル・未完了は false） */
+	private static boolean failedWith(CompletableFuture<String> f, Class<? extends Exception> type) {
+		if (!f.isCompletedExceptionally() || f.isCancelled()) {
+			return false;
+		}
+		try {
+			f.join();
+			return false;
+		} catch (CompletionException e) {
+			return type.isInstance(e.getCause());
+		}
 	}
 }
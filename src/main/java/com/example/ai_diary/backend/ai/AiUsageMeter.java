@@ -0,0 +1,101 @@
+package com.example.ai_diary.backend.ai;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.repository.AiUsageRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * OpenAI のトークン使用量の記録
+ * - Micrometer: ai.tokens{style, kind=prompt|completion} / ai.requests{style}（ユーザー単位のタグは付けない）
+ * - ai_usage: ユーザー × 日 × スタイルでメモリに集約し、定期的に加算 UPSERT する
+ * - userId が無い呼び出し（疎通確認など）はメトリクスのみ
+ */
+@Component
+public class AiUsageMeter {
+
+	private static final Logger log = LoggerFactory.getLogger(AiUsageMeter.class);
+
+	/** まとめて生成した場合のスタイル名 */
+	public static final String STYLE_COMBINED = "combined";
+
+	private record Key(Long userId, LocalDate date, String style) {
+	}
+
+	private record Totals(long requests, long promptTokens, long completionTokens) {
+		Totals plus(Totals o) {
+			return new Totals(requests + o.requests, promptTokens + o.promptTokens,
+					completionTokens + o.completionTokens);
+		}
+	}
+
+	private final AiUsageRepository repository;
+	private final MeterRegistry registry;
+	private final ZoneId zone;
+
+	/** 未書き込みの使用量 */
+	private final Map<Key, Totals> buffer = new ConcurrentHashMap<>();
+
+	public AiUsageMeter(AiUsageRepository repository, MeterRegistry registry,
+			@Value("${ai.usage.zone:Asia/Tokyo}") String zone) {
+		this.repository = repository;
+		this.registry = registry;
+		this.zone = ZoneId.of(zone);
+	}
+
+	/**
+	 * 1呼び出し分の使用量を記録
+	 */
+	public void record(Long userId, String style, ChatResult result) {
+
+		Counter.builder("ai.requests").tag("style", style).register(registry).increment();
+		Counter.builder("ai.tokens").tag("style", style).tag("kind", "prompt").register(registry)
+				.increment(result.promptTokens());
+		Counter.builder("ai.tokens").tag("style", style).tag("kind", "completion").register(registry)
+				.increment(result.completionTokens());
+
+		if (userId == null) {
+			return;
+		}
+		buffer.merge(new Key(userId, LocalDate.now(zone), style),
+				new Totals(1, result.promptTokens(), result.completionTokens()), Totals::plus);
+	}
+
+	/**
+	 * バッファを ai_usage へ書き込む（失敗分はバッファへ戻す）
+	 */
+	@Scheduled(fixedDelayString = "${ai.usage.flush-interval-ms:10000}")
+	public void flush() {
+		for (Key key : buffer.keySet()) {
+			Totals t = buffer.remove(key);
+			if (t == null) {
+				continue;
+			}
+			try {
+				repository.add(key.userId(), key.date(), key.style(), t.requests(), t.promptTokens(),
+						t.completionTokens());
+			} catch (Exception e) {
+				log.warn("AI usage flush failed userId={}: {}", key.userId(), e.toString());
+				buffer.merge(key, t, Totals::plus);
+				return;
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flush();
+	}
+}
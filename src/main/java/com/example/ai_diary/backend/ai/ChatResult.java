@@ -0,0 +1,13 @@
+package com.example.ai_diary.backend.ai;
+
+/**
+ * Chat Completions の結果
+ * - 応答に usage が無い場合、トークン数は 0
+ */
+public record ChatResult(String content, int promptTokens, int completionTokens) {
+
+	/** usage 不明の結果 */
+	public static ChatResult of(String content) {
+		return new ChatResult(content, 0, 0);
+	}
+}
@@ -0,0 +1,308 @@
+package com.example.ai_diary.backend.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Chat Completions 互換の疑似サーバ（負荷試験・オフライン動作確認用）
+ * - JDK 内蔵の HttpServer で動作し、外部通信・課金は発生しない
+ * - レイテンシ（対数正規分布）・429/5xx の発生率・ストリーミングを設定できる
+ * - 応答本文は本文の先頭を切り出した固定形式（JSON モードでは指定キーごとに生成）
+ */
+public class FakeOpenAiServer implements AutoCloseable {
+
+	private static final Logger log = LoggerFactory.getLogger(FakeOpenAiServer.class);
+
+	public static final String PATH = "/v1/chat/completions";
+
+	/** 一括生成プロンプトのキー指定（- "summary": ...） */
+	private static final Pattern COMBINED_KEY = Pattern.compile("^- \"([a-z]+)\":", Pattern.MULTILINE);
+
+	/**
+	 * 挙動の設定（起動後も変更可）
+	 */
+	public static class Settings {
+		/** レイテンシの中央値 */
+		private volatile long latencyMedianMs = 300;
+		/** 対数正規分布の σ（0 なら常に中央値） */
+		private volatile double latencySigma = 0.5;
+		/** レイテンシの上限 */
+		private volatile long latencyMaxMs = 10_000;
+		/** 429（レート制限）を返す割合 0..1 */
+		private volatile double rateLimitRate = 0;
+		/** 5xx を返す割合 0..1 */
+		private volatile double serverErrorRate = 0;
+		/** 429 に付ける retry-after-ms */
+		private volatile long retryAfterMs = 1000;
+		/** ストリーミング時のチャンク数・チャンク間隔 */
+		private volatile int streamChunks = 8;
+		private volatile long streamChunkDelayMs = 30;
+
+		public long getLatencyMedianMs() { return latencyMedianMs; }
+		public Settings setLatencyMedianMs(long v) { this.latencyMedianMs = v; return this; }
+		public double getLatencySigma() { return latencySigma; }
+		public Settings setLatencySigma(double v) { this.latencySigma = v; return this; }
+		public long getLatencyMaxMs() { return latencyMaxMs; }
+		public Settings setLatencyMaxMs(long v) { this.latencyMaxMs = v; return this; }
+		public double getRateLimitRate() { return rateLimitRate; }
+		public Settings setRateLimitRate(double v) { this.rateLimitRate = v; return this; }
+		public double getServerErrorRate() { return serverErrorRate; }
+		public Settings setServerErrorRate(double v) { this.serverErrorRate = v; return this; }
+		public long getRetryAfterMs() { return retryAfterMs; }
+		public Settings setRetryAfterMs(long v) { this.retryAfterMs = v; return this; }
+		public int getStreamChunks() { return streamChunks; }
+		public Settings setStreamChunks(int v) { this.streamChunks = v; return this; }
+		public long getStreamChunkDelayMs() { return streamChunkDelayMs; }
+		public Settings setStreamChunkDelayMs(long v) { this.streamChunkDelayMs = v; return this; }
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final ObjectMapper mapper;
+	private final Settings settings;
+
+	/** 次のリクエストに強制的に返すステータス（テスト用） */
+	private final Queue<Integer> forcedStatuses = new ConcurrentLinkedQueue<>();
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong rateLimited = new AtomicLong();
+	private final AtomicLong serverErrors = new AtomicLong();
+
+	private FakeOpenAiServer(HttpServer server, ObjectMapper mapper, Settings settings) {
+		this.server = server;
+		this.mapper = mapper;
+		this.settings = settings;
+		this.executor = Executors.newCachedThreadPool(daemonThreads());
+		server.setExecutor(executor);
+		server.createContext(PATH, this::handle);
+	}
+
+	/**
+	 * 起動する
+	 * @param port 0 なら空きポート
+	 */
+	public static FakeOpenAiServer start(int port, ObjectMapper mapper, Settings settings) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 512);
+		FakeOpenAiServer fake = new FakeOpenAiServer(server, mapper, settings);
+		server.start();
+		log.info("Fake OpenAI server started on {}", fake.url());
+		return fake;
+	}
+
+	/** openai.api.url に設定する URL */
+	public String url() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+	}
+
+	public Settings settings() {
+		return settings;
+	}
+
+	/** 次の count 件に status を返す（レイテンシ無し） */
+	public void failNext(int status, int count) {
+		for (int i = 0; i < count; i++) {
+			forcedStatuses.add(status);
+		}
+	}
+
+	public long requestCount() {
+		return requests.get();
+	}
+
+	public long rateLimitedCount() {
+		return rateLimited.get();
+	}
+
+	public long serverErrorCount() {
+		return serverErrors.get();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	private void handle(HttpExchange ex) throws IOException {
+		try (ex) {
+			requests.incrementAndGet();
+
+			if (!"POST".equals(ex.getRequestMethod())) {
+				send(ex, 405, "{\"error\":{\"message\":\"method not allowed\"}}");
+				return;
+			}
+
+			JsonNode req;
+			try (InputStream in = ex.getRequestBody()) {
+				req = mapper.readTree(in);
+			}
+
+			Integer forced = forcedStatuses.poll();
+			if (forced != null) {
+				sendError(ex, forced);
+				return;
+			}
+
+			ThreadLocalRandom rnd = ThreadLocalRandom.current();
+			if (rnd.nextDouble() < settings.rateLimitRate) {
+				sendError(ex, 429);
+				return;
+			}
+
+			sleep(sampleLatencyMs(rnd));
+
+			if (rnd.nextDouble() < settings.serverErrorRate) {
+				sendError(ex, 503);
+				return;
+			}
+
+			String system = message(req, "system");
+			String user = message(req, "user");
+			boolean json = "json_object".equals(req.path("response_format").path("type").asText());
+			String content = json ? combinedReply(system, user) : reply(user);
+			int promptTokens = TokenEstimator.estimate(system) + TokenEstimator.estimate(user);
+			int completionTokens = TokenEstimator.estimate(content);
+
+			if (req.path("stream").asBoolean(false)) {
+				stream(ex, content, promptTokens, completionTokens);
+			} else {
+				ObjectNode root = mapper.createObjectNode();
+				root.put("id", "chatcmpl-fake").put("object", "chat.completion").put("model",
+						req.path("model").asText());
+				ObjectNode choice = root.putArray("choices").addObject();
+				choice.put("index", 0).put("finish_reason", "stop");
+				choice.putObject("message").put("role", "assistant").put("content", content);
+				root.set("usage", usage(promptTokens, completionTokens));
+				send(ex, 200, mapper.writeValueAsString(root));
+			}
+		} catch (IOException e) {
+			// 呼び出し側の切断
+			log.debug("fake OpenAI exchange aborted: {}", e.toString());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void stream(HttpExchange ex, String content, int promptTokens, int completionTokens)
+			throws IOException, InterruptedException {
+
+		ex.getResponseHeaders().set("Content-Type", "text/event-stream");
+		ex.sendResponseHeaders(200, 0);
+
+		OutputStream out = ex.getResponseBody();
+		int chunks = Math.max(1, Math.min(settings.streamChunks, content.length()));
+		int size = (content.length() + chunks - 1) / chunks;
+
+		for (int i = 0; i < content.length(); i += size) {
+			ObjectNode chunk = mapper.createObjectNode();
+			chunk.put("id", "chatcmpl-fake");
+			chunk.putArray("choices").addObject().put("index", 0).putObject("delta")
+					.put("content", content.substring(i, Math.min(content.length(), i + size)));
+			chunk.putNull("usage");
+			writeEvent(out, mapper.writeValueAsString(chunk));
+			sleep(settings.streamChunkDelayMs);
+		}
+
+		ObjectNode last = mapper.createObjectNode();
+		last.put("id", "chatcmpl-fake");
+		last.putArray("choices");
+		last.set("usage", usage(promptTokens, completionTokens));
+		writeEvent(out, mapper.writeValueAsString(last));
+		writeEvent(out, "[DONE]");
+	}
+
+	private static void writeEvent(OutputStream out, String data) throws IOException {
+		out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+		out.flush();
+	}
+
+	private void sendError(HttpExchange ex, int status) throws IOException {
+		if (status == 429) {
+			rateLimited.incrementAndGet();
+			ex.getResponseHeaders().set("retry-after-ms", Long.toString(settings.retryAfterMs));
+			send(ex, 429, "{\"error\":{\"message\":\"Rate limit reached (fake)\",\"type\":\"requests\",\"code\":\"rate_limit_exceeded\"}}");
+		} else {
+			serverErrors.incrementAndGet();
+			send(ex, status, "{\"error\":{\"message\":\"fake upstream error\",\"type\":\"server_error\"}}");
+		}
+	}
+
+	private static void send(HttpExchange ex, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		ex.getResponseHeaders().set("Content-Type", "application/json");
+		ex.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = ex.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	private ObjectNode usage(int promptTokens, int completionTokens) {
+		ObjectNode u = mapper.createObjectNode();
+		u.put("prompt_tokens", promptTokens);
+		u.put("completion_tokens", completionTokens);
+		u.put("total_tokens", promptTokens + completionTokens);
+		return u;
+	}
+
+	private String combinedReply(String system, String user) throws IOException {
+		ObjectNode root = mapper.createObjectNode();
+		Matcher m = COMBINED_KEY.matcher(system);
+		while (m.find()) {
+			root.put(m.group(1), reply(user));
+		}
+		return mapper.writeValueAsString(root);
+	}
+
+	/** 本文の先頭を切り出した応答 */
+	private static String reply(String user) {
+		String body = user.startsWith("本文:") ? user.substring("本文:".length()).strip() : user.strip();
+		return "（fake）" + (body.length() > 20 ? body.substring(0, 20) + "…" : body);
+	}
+
+	private static String message(JsonNode req, String role) {
+		for (JsonNode m : req.path("messages")) {
+			if (role.equals(m.path("role").asText())) {
+				return m.path("content").asText("");
+			}
+		}
+		return "";
+	}
+
+	private long sampleLatencyMs(ThreadLocalRandom rnd) {
+		double v = settings.latencyMedianMs * Math.exp(settings.latencySigma * rnd.nextGaussian());
+		return Math.min(settings.latencyMaxMs, Math.max(0, Math.round(v)));
+	}
+
+	private static void sleep(long ms) throws InterruptedException {
+		if (ms > 0) {
+			Thread.sleep(ms);
+		}
+	}
+
+	private static CustomizableThreadFactory daemonThreads() {
+		CustomizableThreadFactory f = new CustomizableThreadFactory("fake-openai-");
+		f.setDaemon(true);
+		return f;
+	}
+}
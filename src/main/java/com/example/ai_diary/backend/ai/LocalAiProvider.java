@@ -0,0 +1,40 @@
+package com.example.ai_diary.backend.ai;
+
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.config.AiProviderProperties;
+
+/**
+ * プロセス内の抽出型生成エンジン（外部通信なし）
+ * - SUMMARY: TextRank で重要な文を抜き出す
+ * - QUOTE: 重要かつ前向きな一文から短い節を抜き出す（ヒューリスティック）
+ * - HAIKU は非対応
+ */
+@Component
+public class LocalAiProvider implements AiProvider {
+
+	private final AiProviderProperties properties;
+
+	public LocalAiProvider(AiProviderProperties properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public String name() {
+		return "local";
+	}
+
+	@Override
+	public boolean supports(AiStyle style) {
+		return style == AiStyle.SUMMARY || style == AiStyle.QUOTE;
+	}
+
+	@Override
+	public String generate(AiStyle style, String content) {
+		return switch (style) {
+		case SUMMARY -> TextRank.summarize(content, properties.getSummarySentences());
+		case QUOTE -> TextRank.quote(content, properties.getQuoteMaxChars());
+		default -> null;
+		};
+	}
+}
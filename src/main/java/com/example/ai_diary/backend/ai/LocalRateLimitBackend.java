@@ -0,0 +1,46 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.util.GcraRateLimiter;
+
+/**
+ * インスタンス内だけで判定するレート制限（ratelimit.backend=local）
+ * - ポリシーごとの GCRA（キーごとに1つの状態を CAS で更新）で、平均 per-second 件/秒・瞬間 burst 件まで許可する
+ * - 保持するキー数はポリシーごとに max-keys まで。しばらく来ていないキーは定期的に削除する
+ */
+@Component
+@ConditionalOnProperty(name = "ratelimit.backend", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitBackend implements RateLimitBackend {
+
+	private final int maxKeys;
+	/** ポリシー名 → GCRA */
+	private final Map<String, GcraRateLimiter> limiters = new ConcurrentHashMap<>();
+
+	public LocalRateLimitBackend(@Value("${ratelimit.max-keys:100000}") int maxKeys) {
+		this.maxKeys = maxKeys;
+	}
+
+	@Override
+	public Decision tryAcquire(RateLimitPolicy policy, String key) {
+		GcraRateLimiter limiter = limiters.computeIfAbsent(policy.name(),
+				n -> new GcraRateLimiter(policy.perSecond(), policy.burst(), maxKeys));
+		long waitNanos = limiter.tryAcquire(key);
+		long backlog = limiter.backlogNanos(key);
+		return new Decision(waitNanos, limiter.remaining(backlog), backlog);
+	}
+
+	/**
+	 * 期限切れのキーを削除する
+	 */
+	@Scheduled(fixedDelayString = "${ratelimit.evict-interval-ms:60000}")
+	public void evictIdle() {
+		limiters.values().forEach(GcraRateLimiter::evictIdle);
+	}
+}
@@ -0,0 +1,185 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * OpenAI 呼び出しのサーキットブレーカー（全リクエストで共有）
+ * - CLOSED: 直近 N 件の失敗率・遅延率がしきい値を超えたら OPEN
+ * - OPEN: 一定時間すべての呼び出しを即時拒否し、経過後 HALF_OPEN
+ * - HALF_OPEN: 限られた件数だけ試行し、全成功なら CLOSED、1件でも失敗なら OPEN
+ */
+@Component
+public class OpenAiCircuitBreaker {
+
+	private static final Logger log = LoggerFactory.getLogger(OpenAiCircuitBreaker.class);
+
+	/** 状態 */
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int windowSize;
+	private final int minimumCalls;
+	private final int failureRateThreshold;
+	private final long slowCallNanos;
+	private final int slowCallRateThreshold;
+	private final long openNanos;
+	private final int halfOpenCalls;
+
+	// --- 以下は this で排他 ---
+	private State state = State.CLOSED;
+	/** 直近の結果（リングバッファ）: 失敗フラグ / 遅延フラグ */
+	private final boolean[] failures;
+	private final boolean[] slows;
+	private int recorded = 0;
+	private int next = 0;
+	private long openedAt;
+	private int halfOpenPermits;
+	private int halfOpenSuccesses;
+
+	public OpenAiCircuitBreaker(MeterRegistry registry,
+			@Value("${openai.circuit.window-size:20}") int windowSize,
+			@Value("${openai.circuit.minimum-calls:10}") int minimumCalls,
+			@Value("${openai.circuit.failure-rate-threshold:50}") int failureRateThreshold,
+			@Value("${openai.circuit.slow-call-duration-ms:10000}") long slowCallMs,
+			@Value("${openai.circuit.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+			@Value("${openai.circuit.open-duration-ms:30000}") long openMs,
+			@Value("${openai.circuit.half-open-calls:3}") int halfOpenCalls) {
+		this.windowSize = windowSize;
+		this.minimumCalls = Math.min(minimumCalls, windowSize);
+		this.failureRateThreshold = failureRateThreshold;
+		this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMs);
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+		this.halfOpenCalls = halfOpenCalls;
+		this.failures = new boolean[windowSize];
+		this.slows = new boolean[windowSize];
+
+		// 0=CLOSED, 1=OPEN, 2=HALF_OPEN
+		Gauge.builder("openai.circuit.state", this, b -> b.state().ordinal()).register(registry);
+	}
+
+	/**
+	 * 呼び出し許可を取得する（HALF_OPEN では試行枠を消費する）
+	 */
+	public synchronized boolean tryAcquire() {
+		switch (currentState()) {
+		case CLOSED:
+			return true;
+		case HALF_OPEN:
+			if (halfOpenPermits < halfOpenCalls) {
+				halfOpenPermits++;
+				return true;
+			}
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * 呼び出し可能な状態か（試行枠は消費しない）
+	 */
+	public synchronized boolean isCallPermitted() {
+		State s = currentState();
+		return s == State.CLOSED || (s == State.HALF_OPEN && halfOpenPermits < halfOpenCalls);
+	}
+
+	/** 現在の状態 */
+	public synchronized State state() {
+		return currentState();
+	}
+
+	/** 成功を記録 */
+	public synchronized void onSuccess(long durationNanos) {
+		record(false, durationNanos);
+	}
+
+	/** 失敗を記録 */
+	public synchronized void onFailure(long durationNanos) {
+		record(true, durationNanos);
+	}
+
+	/** 結果を記録せずに試行枠を返却（キャンセル時など） */
+	public synchronized void release() {
+		if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+			halfOpenPermits--;
+		}
+	}
+
+	private void record(boolean failure, long durationNanos) {
+
+		State s = currentState();
+
+		if (s == State.HALF_OPEN) {
+			if (failure) {
+				transitionTo(State.OPEN);
+			} else if (++halfOpenSuccesses >= halfOpenCalls) {
+				transitionTo(State.CLOSED);
+			}
+			return;
+		}
+		if (s == State.OPEN) {
+			// OPEN 前に開始した呼び出しの結果は無視
+			return;
+		}
+
+		failures[next] = failure;
+		slows[next] = durationNanos >= slowCallNanos;
+		next = (next + 1) % windowSize;
+		if (recorded < windowSize) {
+			recorded++;
+		}
+
+		if (recorded < minimumCalls) {
+			return;
+		}
+
+		int failed = 0;
+		int slow = 0;
+		for (int i = 0; i < recorded; i++) {
+			if (failures[i]) failed++;
+			if (slows[i]) slow++;
+		}
+
+		if (failed * 100 >= failureRateThreshold * recorded || slow * 100 >= slowCallRateThreshold * recorded) {
+			log.warn("OpenAI circuit opened: failed={}/{} slow={}/{}", failed, recorded, slow, recorded);
+			transitionTo(State.OPEN);
+		}
+	}
+
+	/** OPEN の待機時間経過で HALF_OPEN に移行 */
+	private State currentState() {
+		if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+			transitionTo(State.HALF_OPEN);
+		}
+		return state;
+	}
+
+	private void transitionTo(State to) {
+		if (state == to) {
+			return;
+		}
+		log.info("OpenAI circuit {} -> {}", state, to);
+		state = to;
+		switch (to) {
+		case OPEN -> openedAt = System.nanoTime();
+		case HALF_OPEN -> {
+			halfOpenPermits = 0;
+			halfOpenSuccesses = 0;
+		}
+		case CLOSED -> {
+			recorded = 0;
+			next = 0;
+		}
+		}
+	}
+}
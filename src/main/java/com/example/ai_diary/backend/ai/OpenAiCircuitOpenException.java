@@ -0,0 +1,9 @@
+package com.example.ai_diary.backend.ai;
+
+/**
+ * サーキットブレーカーが OPEN のため呼び出さなかった場合の例外クラス
+ */
+public class OpenAiCircuitOpenException extends RuntimeException {
+
+	public OpenAiCircuitOpenException(String msg) { super(msg); }
+}
@@ -1,11 +1,23 @@
 package com.example.ai_diary.backend.ai;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +25,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -24,11 +39,32 @@ public class OpenAiClient {
 	
 	private static final Logger log = LoggerFactory.getLogger(OpenAiClient.class);
 
+	/** SSE の data 行の接頭辞 */
+	private static final String SSE_DATA = "data:";
+	/** ストリーム終端 */
+	private static final String SSE_DONE = "[DONE]";
+	/** 課金枠の枯渇を示すエラーコード */
+	private static final String INSUFFICIENT_QUOTA = "insufficient_quota";
+	private static final double TEMPERATURE = 0.7;
+
+	/** リクエスト本文の書き込み先（スレッドごとに再利用） */
+	private static final ThreadLocal<ByteArrayBuilder> PAYLOAD_BUFFER = ThreadLocal
+			.withInitial(() -> new ByteArrayBuilder(4096));
+
 	private final String apiKey;
 	private final String apiUrl;
 	private final String model;
 	private final int timeoutMs;
 	private final HttpClient http;
+	private final OpenAiCircuitBreaker breaker;
+	private final OpenAiConcurrencyLimiter limiter;
+	private final OpenAiStats stats;
+
+	/** リトライ設定 */
+	private final int maxRetries;
+	private final long baseDelayMs;
+	private final long maxDelayMs;
+	private final double jitterRatio;
 	
 	/** JavaのオブジェクトをJSON文字列に相互変換するためインスタンス作成 */
 	@Autowired
@@ -41,6 +77,13 @@ public class OpenAiClient {
 			@Value("${openai.api.url}") String apiUrl,
 			@Value("${openai.model:gpt-4o-mini}") String model,
 			@Value("${openai.request.timeout-ms:10000}") int timeoutMs,
+			@Value("${openai.retry.max-retries:2}") int maxRetries,
+			@Value("${openai.retry.base-delay-ms:500}") long baseDelayMs,
+			@Value("${openai.retry.max-delay-ms:20000}") long maxDelayMs,
+			@Value("${openai.retry.jitter-ratio:0.2}") double jitterRatio,
+			OpenAiCircuitBreaker breaker,
+			OpenAiConcurrencyLimiter limiter,
+			OpenAiStats stats,
 			ObjectMapper mapper) {
 
 		this.apiKey = apiKey;
@@ -50,6 +93,13 @@ public class OpenAiClient {
 		this.http = HttpClient.newBuilder()
 				.connectTimeout(Duration.ofMillis(timeoutMs))
 				.build();
+		this.maxRetries = maxRetries;
+		this.baseDelayMs = baseDelayMs;
+		this.maxDelayMs = maxDelayMs;
+		this.jitterRatio = jitterRatio;
+		this.breaker = breaker;
+		this.limiter = limiter;
+		this.stats = stats;
 		this.mapper = mapper;
 	}
 
@@ -57,55 +107,560 @@ public class OpenAiClient {
 	 * Chat Completions API を叩いて最初の候補の content を返す
 	 */
 	public String chat(String systemPrompt, String userContent) throws Exception {
+		try {
+			return chatAsync(systemPrompt, userContent).join().content();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * chat の非同期版（usage 付き）
+	 * - 返却した Future をキャンセルすると HTTP 通信も中断する
+	 */
+	public CompletableFuture<ChatResult> chatAsync(String systemPrompt, String userContent) {
+		return chatAsync(systemPrompt, userContent, false);
+	}
+
+	/**
+	 * chat の非同期版
+	 * @param jsonObject true の場合 JSON モード（response_format=json_object）で生成させる
+	 */
+	public CompletableFuture<ChatResult> chatAsync(String systemPrompt, String userContent, boolean jsonObject) {
+
+		HttpRequest req;
+		try {
+			req = buildRequest(systemPrompt, userContent, jsonObject, false);
+		} catch (Exception e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		CompletableFuture<ChatResult> result = new CompletableFuture<>();
+		AtomicReference<CompletableFuture<?>> current = new AtomicReference<>();
+
+		result.whenComplete((r, e) -> {
+			if (result.isCancelled()) {
+				CompletableFuture<?> c = current.get();
+				if (c != null) {
+					c.cancel(true);
+				}
+			}
+		});
+
+		attempt(req, 0, result, current);
+		return result;
+	}
+
+	/**
+	 * 1回分の送信
+	 * - 同時実行枠（OpenAiConcurrencyLimiter）を待ってから送る。待ち行列が満杯なら即失敗
+	 * - サーキットが OPEN なら送信せず即失敗
+	 * - 再試行可能なエラー（429 レート制限 / 408 / 5xx / 通信エラー）は枠を返してから待機し、再送する
+	 * - それ以外の 4xx（リクエスト側の誤り）は再試行せず、サーキットの失敗にも数えない
+	 */
+	private void attempt(HttpRequest req, int retries, CompletableFuture<ChatResult> result,
+			AtomicReference<CompletableFuture<?>> current) {
+
+		if (result.isDone()) {
+			return;
+		}
+
+		CompletableFuture<OpenAiConcurrencyLimiter.Permit> acquiring = limiter.acquire();
+		current.set(acquiring);
+
+		acquiring.whenComplete((permit, err) -> {
+			if (err != null) {
+				if (!acquiring.isCancelled()) {
+					result.completeExceptionally(err);
+				}
+				return;
+			}
+			if (result.isDone()) {
+				permit.release();
+				return;
+			}
+			send(req, retries, result, current, permit);
+		});
+	}
+
+	private void send(HttpRequest req, int retries, CompletableFuture<ChatResult> result,
+			AtomicReference<CompletableFuture<?>> current, OpenAiConcurrencyLimiter.Permit permit) {
+
+		if (!breaker.tryAcquire()) {
+			permit.release();
+			result.completeExceptionally(new OpenAiCircuitOpenException("OpenAI circuit is open"));
+			return;
+		}
+
+		long start = System.nanoTime();
+		CompletableFuture<HttpResponse<byte[]>> raw = http.sendAsync(req, HttpResponse.BodyHandlers.ofByteArray());
+		current.set(raw);
+
+		raw.whenComplete((res, err) -> {
+			long elapsed = System.nanoTime() - start;
+
+			if (raw.isCancelled() || result.isCancelled()) {
+				breaker.release();
+				permit.release();
+				return;
+			}
+
+			Throwable failure;
+			if (err != null) {
+				failure = (err instanceof CompletionException && err.getCause() != null) ? err.getCause() : err;
+			} else {
+				try {
+					ChatResult content = extractResult(res);
+					breaker.onSuccess(elapsed);
+					permit.onSuccess(elapsed);
+					stats.record(true, elapsed);
+					result.complete(content);
+					return;
+				} catch (RuntimeException e) {
+					failure = e;
+				}
+			}
+
+			if (failure instanceof ClientErrorException) {
+				// リクエスト側の誤り（400 / 401 など）は OpenAI の障害ではないため、サーキットの失敗に数えず再試行もしない
+				breaker.onSuccess(elapsed);
+				stats.record(false, elapsed);
+				permit.release();
+				result.completeExceptionally(failure);
+				return;
+			}
+
+			breaker.onFailure(elapsed);
+			stats.record(false, elapsed);
+			if (isOverload(failure)) {
+				permit.onDropped();
+			} else {
+				permit.release();
+			}
+
+			long delayMs = retryDelayMs(failure, retries);
+			if (delayMs < 0) {
+				result.completeExceptionally(giveUp(failure));
+				return;
+			}
+
+			log.debug("OpenAI call failed ({}), retry #{} in {} ms", failure.toString(), retries + 1, delayMs);
+			CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS)
+					.execute(() -> attempt(req, retries + 1, result, current));
+		});
+	}
+
+	/** 上流の過負荷を示す失敗か（429 / 408 / 5xx / タイムアウト） */
+	private static boolean isOverload(Throwable failure) {
+		return failure instanceof RetryableStatusException
+				|| failure instanceof OpenAiQuotaExceededException
+				|| failure instanceof HttpTimeoutException;
+	}
+
+	/**
+	 * 再試行までの待機時間（再試行しない場合は -1）
+	 * - ヘッダー指定（Retry-After 等）があればそれに従う。上限を超える場合は再試行しない
+	 * - 指定が無ければ指数バックオフ
+	 * - いずれもジッターを加える
+	 */
+	private long retryDelayMs(Throwable failure, int retries) {
+
+		if (retries >= maxRetries) {
+			return -1;
+		}
+
+		long delay;
+		if (failure instanceof RetryableStatusException r) {
+			delay = (r.retryAfter != null) ? r.retryAfter.toMillis() : baseDelayMs << retries;
+		} else if (failure instanceof IOException) {
+			delay = baseDelayMs << retries;
+		} else {
+			return -1;
+		}
+
+		if (delay > maxDelayMs) {
+			return -1;
+		}
+		long jitter = (long) (ThreadLocalRandom.current().nextDouble() * jitterRatio * Math.max(delay, baseDelayMs));
+		return delay + jitter;
+	}
+
+	/** 再試行を諦めた時の例外（429 は従来どおりクォータ超過として扱う） */
+	private static Throwable giveUp(Throwable failure) {
+		if (failure instanceof RetryableStatusException r && r.status == 429) {
+			return new OpenAiQuotaExceededException("OpenAI rate limit exceeded");
+		}
+		return failure;
+	}
+
+	/**
+	 * ストリーミング（stream: true）で生成し、差分を受信するたびに onDelta へ渡す
+	 * - SSE の各 data 行はストリーミングパーサで delta.content のみ取り出す
+	 * - onDelta が例外を投げた場合は受信を中断する（接続も閉じる）
+	 *   - StreamClientGoneException は受信側の切断として扱い、OpenAI の失敗として数えない
+	 * @return 生成された全文（usage 付き）
+	 */
+	public ChatResult chatStream(String systemPrompt, String userContent, Consumer<String> onDelta) throws Exception {
+
+		OpenAiConcurrencyLimiter.Permit permit = awaitPermit();
+		if (!breaker.tryAcquire()) {
+			permit.release();
+			throw new OpenAiCircuitOpenException("OpenAI circuit is open");
+		}
+
+		// ストリーミングの所要時間は生成量に比例するため、上限の増減には使わない
+		long start = System.nanoTime();
+		try {
+			ChatResult text = doChatStream(systemPrompt, userContent, onDelta);
+			long elapsed = System.nanoTime() - start;
+			breaker.onSuccess(elapsed);
+			stats.record(true, elapsed);
+			permit.release();
+			return text;
+		} catch (ClientErrorException rejected) {
+			// リクエスト側の誤りは OpenAI の失敗として数えない
+			long elapsed = System.nanoTime() - start;
+			breaker.onSuccess(elapsed);
+			stats.record(false, elapsed);
+			permit.release();
+			throw rejected;
+		} catch (StreamClientGoneException clientGone) {
+			// 受信側の都合による中断は OpenAI の失敗として数えない（OpenAI との通信エラーは下で失敗として数える）
+			breaker.release();
+			permit.release();
+			throw clientGone;
+		} catch (Exception e) {
+			long elapsed = System.nanoTime() - start;
+			breaker.onFailure(elapsed);
+			stats.record(false, elapsed);
+			if (isOverload(e)) {
+				permit.onDropped();
+			} else {
+				permit.release();
+			}
+			throw e;
+		}
+	}
+
+	/** 同時実行枠を待つ（同期呼び出し用。割り込まれたら待ち行列から外れる） */
+	private OpenAiConcurrencyLimiter.Permit awaitPermit() throws Exception {
+		CompletableFuture<OpenAiConcurrencyLimiter.Permit> acquiring = limiter.acquire();
+		try {
+			return acquiring.get();
+		} catch (InterruptedException e) {
+			if (!acquiring.cancel(false) && !acquiring.isCompletedExceptionally()) {
+				acquiring.join().release();
+			}
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private ChatResult doChatStream(String systemPrompt, String userContent, Consumer<String> onDelta) throws Exception {
+
+		HttpResponse<Stream<String>> res = http.send(buildRequest(systemPrompt, userContent, false, true),
+				HttpResponse.BodyHandlers.ofLines());
+
+		try (Stream<String> lines = res.body()) {
 
-		String payload = """
-				{
-				          "model": "%s",
-				          "temperature": 0.7,
-				          "messages": [
-				            {"role":"system","content": %s},
-				            {"role":"user","content": %s}
-				          ]
+			if (res.statusCode() < 200 || res.statusCode() >= 300) {
+				String body = lines.limit(20).collect(Collectors.joining("\n"));
+				if (res.statusCode() == 429) {
+					stats.recordRateLimited();
+					// ストリーミングは再試行しない
+					log.warn("OpenAI quota exceeded: {}", truncate(body, 400));
+					throw new OpenAiQuotaExceededException("OpenAI quota exceeded");
 				}
-				""".formatted(model,
-				mapper.writeValueAsString(systemPrompt),
-				mapper.writeValueAsString(userContent));
+				log.warn("OpenAI API error status={} body={}", res.statusCode(), truncate(body, 400));
+				if (isClientError(res.statusCode())) {
+					throw new ClientErrorException(res.statusCode(), body);
+				}
+				throw new IllegalStateException("OpenAi API error!: " + res.statusCode() + " " + body);
+			}
+
+			StringBuilder text = new StringBuilder();
+			int[] usage = new int[2];
+			Iterator<String> it = lines.iterator();
+
+			while (it.hasNext()) {
+				String line = it.next();
+
+				// SSE のコメント・空行・data 以外のフィールドは無視
+				if (!line.startsWith(SSE_DATA)) {
+					continue;
+				}
+				String data = line.substring(SSE_DATA.length()).strip();
+				if (SSE_DONE.equals(data)) {
+					break;
+				}
+
+				String delta = parseChunk(data, usage);
+				if (delta != null && !delta.isEmpty()) {
+					text.append(delta);
+					onDelta.accept(delta);
+				}
+			}
+			return new ChatResult(text.toString(), usage[0], usage[1]);
+		}
+	}
 
-		HttpRequest req = HttpRequest.newBuilder(URI.create(apiUrl))
+	/**
+	 * ストリーミングチャンクから choices[0].delta.content を取り出す（無ければ null または空文字）
+	 * - 最終チャンクの usage があれば usage[0]=prompt, usage[1]=completion に格納
+	 * - ツリーを作らず、不要な要素は読み飛ばす
+	 */
+	private String parseChunk(String chunk, int[] usage) throws IOException {
+
+		String delta = null;
+
+		try (JsonParser p = mapper.getFactory().createParser(chunk)) {
+
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				String field = p.currentName();
+				JsonToken t = p.nextToken();
+
+				if ("usage".equals(field) && t == JsonToken.START_OBJECT) {
+					readUsage(p, usage);
+				} else if ("choices".equals(field) && t == JsonToken.START_ARRAY) {
+					delta = readFirstChoice(p, "delta");
+				} else {
+					p.skipChildren();
+				}
+			}
+		}
+		return delta;
+	}
+
+	/**
+	 * choices 配列から最初の候補の holder.content（message / delta）を読み、配列の終わりまで進める
+	 * @return 候補が無ければ null、content が無ければ空文字
+	 */
+	private static String readFirstChoice(JsonParser p, String holder) throws IOException {
+
+		String content = null;
+
+		if (p.nextToken() == JsonToken.START_OBJECT) {
+			content = "";
+			while (p.nextToken() == JsonToken.FIELD_NAME) {
+				String cf = p.currentName();
+				JsonToken ct = p.nextToken();
+
+				if (!holder.equals(cf) || ct != JsonToken.START_OBJECT) {
+					p.skipChildren();
+					continue;
+				}
+				while (p.nextToken() == JsonToken.FIELD_NAME) {
+					String df = p.currentName();
+					JsonToken dt = p.nextToken();
+					if ("content".equals(df) && dt == JsonToken.VALUE_STRING) {
+						content = p.getText();
+					} else {
+						p.skipChildren();
+					}
+				}
+			}
+		}
+
+		// 残りの候補は読み飛ばす
+		while (p.currentToken() != JsonToken.END_ARRAY && p.nextToken() != null) {
+			p.skipChildren();
+		}
+		return content;
+	}
+
+	/** usage オブジェクトを読む（prompt_tokens / completion_tokens） */
+	private static void readUsage(JsonParser p, int[] usage) throws IOException {
+		while (p.nextToken() == JsonToken.FIELD_NAME) {
+			String f = p.currentName();
+			JsonToken t = p.nextToken();
+			if (t == JsonToken.VALUE_NUMBER_INT && "prompt_tokens".equals(f)) {
+				usage[0] = p.getIntValue();
+			} else if (t == JsonToken.VALUE_NUMBER_INT && "completion_tokens".equals(f)) {
+				usage[1] = p.getIntValue();
+			} else {
+				p.skipChildren();
+			}
+		}
+	}
+
+	/**
+	 * リクエスト作成
+	 */
+	private HttpRequest buildRequest(String systemPrompt, String userContent, boolean jsonObject, boolean stream)
+			throws Exception {
+
+		return HttpRequest.newBuilder(URI.create(apiUrl))
 				.timeout(Duration.ofMillis(timeoutMs))
 				.header("Authorization", "Bearer " + apiKey)
 				.header("Content-Type", "application/json")
-				.POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+				.POST(HttpRequest.BodyPublishers.ofByteArray(payload(systemPrompt, userContent, jsonObject, stream)))
 				.build();
+	}
+
+	/**
+	 * リクエスト本文（JSON）を UTF-8 のバイト列で書き出す
+	 * - ストリーミングジェネレータでスレッドごとの再利用バッファへ直接書き、最後に1回だけコピーする
+	 */
+	byte[] payload(String systemPrompt, String userContent, boolean jsonObject, boolean stream) throws IOException {
+
+		ByteArrayBuilder buf = PAYLOAD_BUFFER.get();
+		buf.reset();
+
+		try (JsonGenerator g = mapper.getFactory().createGenerator(buf)) {
+			g.writeStartObject();
+			g.writeStringField("model", model);
+			g.writeNumberField("temperature", TEMPERATURE);
+			if (jsonObject) {
+				g.writeObjectFieldStart("response_format");
+				g.writeStringField("type", "json_object");
+				g.writeEndObject();
+			}
+			if (stream) {
+				g.writeBooleanField("stream", true);
+				g.writeObjectFieldStart("stream_options");
+				g.writeBooleanField("include_usage", true);
+				g.writeEndObject();
+			}
+			g.writeArrayFieldStart("messages");
+			writeMessage(g, "system", systemPrompt);
+			writeMessage(g, "user", userContent);
+			g.writeEndArray();
+			g.writeEndObject();
+		}
+		return buf.toByteArray();
+	}
+
+	private static void writeMessage(JsonGenerator g, String role, String content) throws IOException {
+		g.writeStartObject();
+		g.writeStringField("role", role);
+		g.writeStringField("content", content);
+		g.writeEndObject();
+	}
+
+	/**
+	 * レスポンスから最初の候補の content と usage を取り出す
+	 */
+	private ChatResult extractResult(HttpResponse<byte[]> res) {
 
-		HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
-		
 		if (res.statusCode() == 429) {
-			
+
+			stats.recordRateLimited();
+			String body = text(res.body());
+
 			// 詳細ログ
-			log.warn("OpenAI quota exceeded: {}", truncate(res.body(), 400));
-			
-		    throw new OpenAiQuotaExceededException("OpenAI quota exceeded");
+			log.warn("OpenAI quota exceeded: {}", truncate(body, 400));
+
+			// 課金枠の枯渇は待っても回復しないため再試行しない
+			if (body != null && body.contains(INSUFFICIENT_QUOTA)) {
+				throw new OpenAiQuotaExceededException("OpenAI quota exceeded");
+			}
+			throw new RetryableStatusException(429, RetryAfter.from(res.headers()).orElse(null));
+		}
+
+		if (res.statusCode() >= 500 || res.statusCode() == 408) {
+			log.warn("OpenAI API error status={} body={}", res.statusCode(), truncate(text(res.body()), 400));
+			throw new RetryableStatusException(res.statusCode(), RetryAfter.from(res.headers()).orElse(null));
 		}
 		
 		if (res.statusCode() < 200 || res.statusCode() >= 300) {
-			
+			String body = text(res.body());
+
 			// 詳細ログ
-            log.warn("OpenAI API error status={} body={}", res.statusCode(), truncate(res.body(), 400));
+            log.warn("OpenAI API error status={} body={}", res.statusCode(), truncate(body, 400));
 			
-			throw new IllegalStateException("OpenAi API error!: " + res.statusCode() + " " + res.body());
+			if (isClientError(res.statusCode())) {
+				throw new ClientErrorException(res.statusCode(), body);
+			}
+			throw new IllegalStateException("OpenAi API error!: " + res.statusCode() + " " + body);
 		}
 
-		JsonNode root = mapper.readTree(res.body());
-		JsonNode choices = root.path("choices");
+		return parseResult(res.body());
+	}
+
+	/**
+	 * 応答本文から choices[0].message.content と usage を読む
+	 * - ツリーを作らずバイト列から直接読み、両方そろった時点で打ち切る
+	 */
+	ChatResult parseResult(byte[] body) {
+
+		String content = null;
+		boolean usageRead = false;
+		int[] usage = new int[2];
+
+		try (JsonParser p = mapper.getFactory().createParser(body)) {
+
+			if (p.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalStateException("OpenAI response is not JSON.");
+			}
+			while ((content == null || !usageRead) && p.nextToken() == JsonToken.FIELD_NAME) {
+				String field = p.currentName();
+				JsonToken t = p.nextToken();
 
-		if (!choices.isArray() || choices.isEmpty()) {
+				if ("choices".equals(field) && t == JsonToken.START_ARRAY) {
+					content = readFirstChoice(p, "message");
+				} else if ("usage".equals(field) && t == JsonToken.START_OBJECT) {
+					readUsage(p, usage);
+					usageRead = true;
+				} else {
+					p.skipChildren();
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("OpenAI response is not JSON.", e);
+		}
+
+		if (content == null) {
 			throw new IllegalStateException("OpenAI response has no choices.");
 		}
+		return new ChatResult(content, usage[0], usage[1]);
+	}
 
-		return choices.get(0).path("message").path("content").asText();
+	private static String text(byte[] body) {
+		return body == null ? null : new String(body, StandardCharsets.UTF_8);
 	}
-	
+
+	/**
+	 * 再試行可能なステータスの例外
+	 */
+	private static final class RetryableStatusException extends RuntimeException {
+
+		private final int status;
+		private final Duration retryAfter;
+
+		RetryableStatusException(int status, Duration retryAfter) {
+			super("OpenAI API error!: " + status);
+			this.status = status;
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	/** リクエスト側の誤りを示すステータスか（408 / 429 を除く 4xx） */
+	private static boolean isClientError(int status) {
+		return status >= 400 && status < 500 && status != 408 && status != 429;
+	}
+
+	/**
+	 * リクエスト側の誤り（不正なリクエスト・認証エラーなど）の例外
+	 * - 呼び出し元からは従来どおり IllegalStateException に見える
+	 */
+	private static final class ClientErrorException extends IllegalStateException {
+
+		ClientErrorException(int status, String body) {
+			super("OpenAi API error!: " + status + " " + body);
+		}
+	}
+
 	private static String truncate(String s, int max) {
         return (s == null || s.length() <= max) ? s : s.substring(0, max) + "...";
     }
@@ -0,0 +1,181 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * OpenAI への同時リクエスト数の適応制御（AIMD）
+ * - 成功するたびに上限を 1/上限 ずつ増やす（上限件数の成功で +1）
+ * - 429 / 5xx / タイムアウト、または応答が latency-threshold-ms を超えたら上限を backoff-ratio 倍に減らす
+ * - 上限到達時は有界の待ち行列に入れ、満杯なら即座に拒否する（OpenAiLimitExceededException → 503）
+ */
+@Component
+public class OpenAiConcurrencyLimiter {
+
+	/**
+	 * 同時実行枠（結果の通知で返却される。通知は1回のみ有効）
+	 */
+	public final class Permit {
+
+		private boolean released = false;
+
+		private Permit() {
+		}
+
+		/** 成功（応答時間で上限を調整） */
+		public void onSuccess(long durationNanos) {
+			if (durationNanos > latencyThresholdNanos) {
+				complete(Outcome.DROPPED);
+			} else {
+				complete(Outcome.SUCCESS);
+			}
+		}
+
+		/** 過負荷を示す失敗（429 / 5xx / タイムアウト） */
+		public void onDropped() {
+			complete(Outcome.DROPPED);
+		}
+
+		/** 上限を調整せずに返却（キャンセル・ストリーミング・入力起因の失敗など） */
+		public void release() {
+			complete(Outcome.IGNORED);
+		}
+
+		private void complete(Outcome outcome) {
+			synchronized (OpenAiConcurrencyLimiter.this) {
+				if (released) {
+					return;
+				}
+				released = true;
+			}
+			OpenAiConcurrencyLimiter.this.onComplete(outcome);
+		}
+	}
+
+	private enum Outcome {
+		SUCCESS, DROPPED, IGNORED
+	}
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final long latencyThresholdNanos;
+	private final int maxQueue;
+	private final Counter rejected;
+
+	// --- 以下は this で排他 ---
+	private double limit;
+	private int inFlight = 0;
+	private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+	public OpenAiConcurrencyLimiter(MeterRegistry registry,
+			@Value("${openai.limiter.initial-limit:20}") int initialLimit,
+			@Value("${openai.limiter.min-limit:2}") int minLimit,
+			@Value("${openai.limiter.max-limit:200}") int maxLimit,
+			@Value("${openai.limiter.backoff-ratio:0.9}") double backoffRatio,
+			@Value("${openai.limiter.latency-threshold-ms:10000}") long latencyThresholdMs,
+			@Value("${openai.limiter.max-queue:100}") int maxQueue) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+		this.maxQueue = maxQueue;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+		Gauge.builder("openai.limiter.limit", this, OpenAiConcurrencyLimiter::limit).register(registry);
+		Gauge.builder("openai.limiter.in-flight", this, OpenAiConcurrencyLimiter::inFlight).register(registry);
+		Gauge.builder("openai.limiter.queue", this, OpenAiConcurrencyLimiter::queueDepth).register(registry);
+		this.rejected = Counter.builder("openai.limiter.rejected").register(registry);
+	}
+
+	/**
+	 * 同時実行枠を取得する
+	 * - 空きがあれば完了済みの Future、無ければ待ち行列に入る
+	 * - 待ち行列が満杯なら OpenAiLimitExceededException で失敗した Future
+	 * - 返却した Future をキャンセルすると待ち行列から外れる
+	 */
+	public CompletableFuture<Permit> acquire() {
+		CompletableFuture<Permit> waiter;
+		synchronized (this) {
+			if (inFlight < (int) limit && waiters.isEmpty()) {
+				inFlight++;
+				return CompletableFuture.completedFuture(new Permit());
+			}
+			if (waiters.size() >= maxQueue) {
+				rejected.increment();
+				return CompletableFuture.failedFuture(new OpenAiLimitExceededException("OpenAI concurrency limit reached"));
+			}
+			waiter = new CompletableFuture<>();
+			waiters.addLast(waiter);
+		}
+		waiter.whenComplete((p, e) -> {
+			if (waiter.isCancelled()) {
+				synchronized (this) {
+					waiters.remove(waiter);
+				}
+			}
+		});
+		return waiter;
+	}
+
+	/** 現在の上限 */
+	public synchronized int limit() {
+		return (int) limit;
+	}
+
+	/** 実行中の件数 */
+	public synchronized int inFlight() {
+		return inFlight;
+	}
+
+	/** 待ち行列の長さ */
+	public synchronized int queueDepth() {
+		return waiters.size();
+	}
+
+	private void onComplete(Outcome outcome) {
+		List<CompletableFuture<Permit>> granted = new ArrayList<>();
+		synchronized (this) {
+			switch (outcome) {
+			case SUCCESS -> {
+				// 枠を使い切っていない時は増やさない
+				if (inFlight * 2 >= limit) {
+					limit = Math.min(maxLimit, limit + 1.0 / limit);
+				}
+			}
+			case DROPPED -> limit = Math.max(minLimit, limit * backoffRatio);
+			case IGNORED -> {
+			}
+			}
+			inFlight--;
+
+			while (inFlight < (int) limit && !waiters.isEmpty()) {
+				CompletableFuture<Permit> w = waiters.pollFirst();
+				if (w.isDone()) {
+					continue;
+				}
+				inFlight++;
+				granted.add(w);
+			}
+		}
+
+		// ロック外で通知（キャンセル済みと競合した場合は枠を戻す）
+		for (CompletableFuture<Permit> w : granted) {
+			Permit p = new Permit();
+			if (!w.complete(p)) {
+				p.release();
+			}
+		}
+	}
+}
@@ -1,36 +1,110 @@
 package com.example.ai_diary.backend.ai;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * HealthIndicatorインターフェースを用いて、
  * OpenAiの健康状態（正常な挙動か）を確認
+ * - 実トラフィックの統計（OpenAiStats）とサーキット状態から定期的に算出し、結果をキャッシュして返す
+ * - 直近のトラフィックが無い場合のみ、間隔を空けてバックグラウンドで疎通確認を行う
  */
 @Component
 public class OpenAiHealthIndicator implements HealthIndicator {
 
 	private final OpenAiClient client;
+	private final OpenAiStats stats;
+	private final OpenAiCircuitBreaker breaker;
+	private final boolean enabled;
+	private final double minSuccessRate;
+	private final long idleMs;
+	private final long probeIntervalMs;
+
+	/** 最新の判定結果 */
+	private volatile Health cached = Health.unknown().withDetail("openai", "NO_DATA").build();
 
-	public OpenAiHealthIndicator(OpenAiClient client) {
+	/** 疎通確認の実行中フラグ・最終実行時刻 */
+	private volatile CompletableFuture<ChatResult> probe;
+	private volatile long lastProbeAtMillis = 0;
+
+	public OpenAiHealthIndicator(OpenAiClient client, OpenAiStats stats, OpenAiCircuitBreaker breaker,
+			@Value("${ai.enabled:true}") boolean enabled,
+			@Value("${openai.health.min-success-rate:0.5}") double minSuccessRate,
+			@Value("${openai.health.idle-ms:300000}") long idleMs,
+			@Value("${openai.health.probe-interval-ms:600000}") long probeIntervalMs) {
 		this.client = client;
+		this.stats = stats;
+		this.breaker = breaker;
+		this.enabled = enabled;
+		this.minSuccessRate = minSuccessRate;
+		this.idleMs = idleMs;
+		this.probeIntervalMs = probeIntervalMs;
 	}
 
 	@Override
 	public Health health() {
+		return cached;
+	}
 
-		try {
-			client.chat("Reply with OK.", "OK");
+	/**
+	 * 判定結果の更新
+	 */
+	@Scheduled(fixedDelayString = "${openai.health.refresh-ms:5000}")
+	public void refresh() {
+		maybeProbe();
+		cached = evaluate(stats.snapshot(), breaker.state());
+	}
+
+	/**
+	 * トラフィックが途絶えている場合のみ疎通確認（結果は統計に記録される）
+	 */
+	private void maybeProbe() {
+
+		if (!enabled || (probe != null && !probe.isDone())) {
+			return;
+		}
 
+		long now = System.currentTimeMillis();
+		if (now - stats.lastCallAtMillis() < idleMs || now - lastProbeAtMillis < probeIntervalMs) {
+			return;
+		}
+
+		lastProbeAtMillis = now;
+		probe = client.chatAsync("Reply with OK.", "OK");
+	}
+
+	Health evaluate(OpenAiStats.Snapshot s, OpenAiCircuitBreaker.State circuit) {
+
+		Health.Builder b;
+		if (circuit == OpenAiCircuitBreaker.State.OPEN) {
+			b = Health.down().withDetail("openai", "CIRCUIT_OPEN");
+		} else if (s.samples() == 0) {
+			b = Health.status(Status.UNKNOWN).withDetail("openai", "NO_DATA");
+		} else if (s.successRate() < minSuccessRate) {
+			b = Health.down().withDetail("openai", "DOWN");
+		} else {
 			// 正常な場合、withDetail()の情報でオブジェクトを作成
-			return Health.up().withDetail("openai", "UP").build();
+			b = Health.up().withDetail("openai", "UP");
+		}
 
-		} catch (OpenAiQuotaExceededException e) {
-			return Health.down().withDetail("openai", "OpenAI quota exceeded").build();
-		} catch (Exception e) {
-			return Health.down().withDetail("openai", "DOWN").withDetail("reason", e.getClass().getSimpleName())
-					.build();
+		b.withDetail("circuit", circuit.name())
+				.withDetail("samples", s.samples())
+				.withDetail("successRate", Math.round(s.successRate() * 1000) / 1000.0)
+				.withDetail("latencyP50Ms", s.p50Ms())
+				.withDetail("latencyP95Ms", s.p95Ms())
+				.withDetail("latencyP99Ms", s.p99Ms());
+		if (s.lastCallAt() != null) {
+			b.withDetail("lastCallAt", s.lastCallAt().toString());
+		}
+		if (s.lastRateLimitedAt() != null) {
+			b.withDetail("lastRateLimitedAt", s.lastRateLimitedAt().toString());
 		}
+		return b.build();
 	}
 }
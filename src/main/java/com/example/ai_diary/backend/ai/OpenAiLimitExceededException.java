@@ -0,0 +1,11 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * OpenAI 呼び出しの待ち行列が満杯で受け付けなかった場合の例外クラス（503 として扱う）
+ */
+public class OpenAiLimitExceededException extends RejectedExecutionException {
+
+	public OpenAiLimitExceededException(String msg) { super(msg); }
+}
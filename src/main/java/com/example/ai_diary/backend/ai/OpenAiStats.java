@@ -0,0 +1,108 @@
+package com.example.ai_diary.backend.ai;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 実トラフィックから集計する OpenAI 呼び出しの統計（直近 N 件）
+ * - 成功率・レイテンシ分位点・最終 429 時刻・最終呼び出し時刻
+ * - 記録は呼び出しごとの O(1)、集計は snapshot() 時のみ
+ */
+@Component
+public class OpenAiStats {
+
+	/**
+	 * 集計結果
+	 * - samples が 0 の場合、率・分位点は 0
+	 */
+	public record Snapshot(int samples, double successRate, long p50Ms, long p95Ms, long p99Ms,
+			Instant lastCallAt, Instant lastRateLimitedAt) {
+	}
+
+	private final long windowNanos;
+
+	// --- 以下は this で排他 ---
+	private final long[] latencies;
+	private final boolean[] successes;
+	private final long[] recordedAt;
+	private int recorded = 0;
+	private int next = 0;
+
+	private volatile long lastCallAtMillis = 0;
+	private volatile long lastRateLimitedAtMillis = 0;
+
+	public OpenAiStats(@Value("${openai.stats.window-size:200}") int windowSize,
+			@Value("${openai.stats.window-ms:300000}") long windowMs) {
+		this.latencies = new long[windowSize];
+		this.successes = new boolean[windowSize];
+		this.recordedAt = new long[windowSize];
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+	}
+
+	/** 1呼び出し分の結果を記録 */
+	public void record(boolean success, long durationNanos) {
+		lastCallAtMillis = System.currentTimeMillis();
+		synchronized (this) {
+			latencies[next] = durationNanos;
+			successes[next] = success;
+			recordedAt[next] = System.nanoTime();
+			next = (next + 1) % latencies.length;
+			if (recorded < latencies.length) {
+				recorded++;
+			}
+		}
+	}
+
+	/** レート制限（429）を記録 */
+	public void recordRateLimited() {
+		lastRateLimitedAtMillis = System.currentTimeMillis();
+	}
+
+	/** 最後に呼び出しを記録した時刻（未記録なら 0） */
+	public long lastCallAtMillis() {
+		return lastCallAtMillis;
+	}
+
+	/**
+	 * 集計（window-ms より古い記録は除外）
+	 */
+	public Snapshot snapshot() {
+
+		long[] lat;
+		int ok = 0;
+		int n = 0;
+		long since = System.nanoTime() - windowNanos;
+
+		synchronized (this) {
+			lat = new long[recorded];
+			for (int i = 0; i < recorded; i++) {
+				if (recordedAt[i] - since < 0) {
+					continue;
+				}
+				lat[n++] = latencies[i];
+				if (successes[i]) ok++;
+			}
+		}
+
+		Arrays.sort(lat, 0, n);
+		return new Snapshot(n, n == 0 ? 0 : (double) ok / n,
+				percentileMs(lat, n, 0.50), percentileMs(lat, n, 0.95), percentileMs(lat, n, 0.99),
+				toInstant(lastCallAtMillis), toInstant(lastRateLimitedAtMillis));
+	}
+
+	private static long percentileMs(long[] sorted, int n, double p) {
+		if (n == 0) {
+			return 0;
+		}
+		int idx = (int) Math.ceil(p * n) - 1;
+		return TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, Math.min(idx, n - 1))]);
+	}
+
+	private static Instant toInstant(long millis) {
+		return millis == 0 ? null : Instant.ofEpochMilli(millis);
+	}
+}
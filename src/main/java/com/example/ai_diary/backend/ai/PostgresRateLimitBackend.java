@@ -0,0 +1,269 @@
+package com.example.ai_diary.backend.ai;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.util.GcraRateLimiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 複数インスタンスで共有するレート制限（ratelimit.backend=postgres）
+ * - 判定は常にメモリ上のポリシーごとの GCRA で行い、リクエストごとの DB 通信はしない
+ * - 許可した件数を「ポリシー名|キーのハッシュ」ごとに集計し、sync-interval-ms ごとに rate_limit_usage の自インスタンスの累計へ加算する
+ *   （キーの長さによらず rl_key 列に収まるよう、このクラスの GCRA もハッシュをキーにする）
+ * - 同時に他インスタンスの累計の増分を読み、その分を自分の GCRA から差し引く（反映は同期間隔の分だけ遅れる）
+ * - DB に接続できない間はインスタンス内だけで判定し、未送信の件数は復旧後に送る
+ *   - DB が受け付けない行（制約違反など）は1行ずつ送り直して捨てる（持ち越すと同期が止まり続けるため）
+ */
+@Component
+@ConditionalOnProperty(name = "ratelimit.backend", havingValue = "postgres")
+public class PostgresRateLimitBackend implements RateLimitBackend {
+
+	private static final Logger log = LoggerFactory.getLogger(PostgresRateLimitBackend.class);
+
+	/** 他インスタンスの消費で先送りする上限 */
+	private static final long MAX_DEBIT_NANOS = TimeUnit.MINUTES.toNanos(1);
+	/** 読み取り範囲の余裕（コミットの遅れ・時刻のずれ） */
+	private static final long READ_MARGIN_MS = 5_000;
+	/** 共有キーのポリシー名との区切り */
+	private static final char SEPARATOR = '|';
+	/** キーのハッシュの長さ（16進数。128bit） */
+	private static final int KEY_HASH_CHARS = 32;
+	private static final HexFormat HEX = HexFormat.of();
+	private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	});
+
+	private static final String UPSERT = """
+			INSERT INTO rate_limit_usage (node_id, rl_key, total) VALUES (?, ?, ?)
+			ON CONFLICT (node_id, rl_key)
+			DO UPDATE SET total = rate_limit_usage.total + EXCLUDED.total, updated_at = NOW()
+			""";
+	private static final String SELECT_REMOTE = """
+			SELECT node_id, rl_key, total, created_at > ? AS fresh
+			FROM rate_limit_usage
+			WHERE node_id <> ? AND updated_at > ?
+			""";
+	private static final String DELETE_IDLE = """
+			DELETE FROM rate_limit_usage WHERE updated_at < NOW() - make_interval(secs => ?)
+			""";
+
+	/**
+	 * 他インスタンスの累計
+	 * @param fresh 前回の読み取り以降に作られた行（累計がすべて新しい増分）
+	 */
+	record Usage(String nodeId, String key, long total, boolean fresh) {
+	}
+
+	/** 前回読んだ累計 */
+	private record Seen(long total, long seenAtMs) {
+	}
+
+	private final JdbcTemplate jdbc;
+	/** ポリシー名 → GCRA */
+	private final Map<String, GcraRateLimiter> limiters = new ConcurrentHashMap<>();
+	private final String nodeId;
+	private final int maxKeys;
+	private final long retentionMs;
+	private final Counter syncErrors;
+	private final Counter dropped;
+
+	/** 未送信の許可数 */
+	private volatile Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+	/** ノードID + キー → 前回読んだ累計 */
+	private final Map<String, Seen> seen = new ConcurrentHashMap<>();
+	/** 前回読み取り時の DB 時刻 */
+	private Timestamp lastReadAt;
+	private volatile boolean degraded = false;
+
+	public PostgresRateLimitBackend(JdbcTemplate jdbc, MeterRegistry registry,
+			@Value("${ratelimit.max-keys:100000}") int maxKeys,
+			@Value("${ratelimit.node-id:}") String nodeId,
+			@Value("${ratelimit.retention-ms:600000}") long retentionMs) {
+		this.jdbc = jdbc;
+		this.maxKeys = maxKeys;
+		this.nodeId = nodeId.isBlank()
+				? System.getenv().getOrDefault("HOSTNAME", "node") + "-" + UUID.randomUUID().toString().substring(0, 8)
+				: nodeId;
+		this.retentionMs = retentionMs;
+
+		Gauge.builder("ratelimit.backend.degraded", this, b -> b.degraded ? 1 : 0).register(registry);
+		this.syncErrors = Counter.builder("ratelimit.sync.errors").register(registry);
+		this.dropped = Counter.builder("ratelimit.sync.dropped").register(registry);
+	}
+
+	@Override
+	public Decision tryAcquire(RateLimitPolicy policy, String key) {
+		GcraRateLimiter limiter = limiters.computeIfAbsent(policy.name(),
+				n -> new GcraRateLimiter(policy.perSecond(), policy.burst(), maxKeys));
+		String hashed = hash(key);
+		long waitNanos = limiter.tryAcquire(hashed);
+		if (waitNanos == 0) {
+			count(pending, policy.name() + SEPARATOR + hashed, 1);
+		}
+		long backlog = limiter.backlogNanos(hashed);
+		return new Decision(waitNanos, limiter.remaining(backlog), backlog);
+	}
+
+	/**
+	 * 自インスタンスの許可数を送り、他インスタンスの増分を反映する
+	 */
+	@Scheduled(fixedDelayString = "${ratelimit.sync-interval-ms:1000}")
+	public void sync() {
+
+		// 差し替え直後に古い Map へ加算された分は失われる（おおよその制限で良い）
+		Map<String, LongAdder> drained = pending;
+		pending = new ConcurrentHashMap<>();
+
+		try {
+			push(drained);
+			applyRemote(pull());
+			if (degraded) {
+				log.info("Rate limit sync recovered node={}", nodeId);
+				degraded = false;
+			}
+		} catch (DataAccessException e) {
+			syncErrors.increment();
+			if (!degraded) {
+				log.warn("Rate limit sync failed, limiting per instance until recovered node={}: {}", nodeId, e.toString());
+				degraded = true;
+			}
+			// 未送信分は次回に持ち越す（送信済みで読み取りだけ失敗した場合も再送しない）
+			drained.forEach((k, v) -> count(pending, k, v.sum()));
+		}
+	}
+
+	/**
+	 * 長く更新されていない行と、前回値の記録・期限切れのキーを削除する
+	 */
+	@Scheduled(fixedDelayString = "${ratelimit.evict-interval-ms:60000}")
+	public void evictIdle() {
+		limiters.values().forEach(GcraRateLimiter::evictIdle);
+		long cutoff = System.currentTimeMillis() - retentionMs;
+		seen.values().removeIf(s -> s.seenAtMs() < cutoff);
+		try {
+			jdbc.update(DELETE_IDLE, retentionMs / 1000.0);
+		} catch (DataAccessException e) {
+			log.debug("Rate limit cleanup failed: {}", e.toString());
+		}
+	}
+
+	/** DB に接続できずインスタンス内だけで判定している */
+	public boolean isDegraded() {
+		return degraded;
+	}
+
+	/**
+	 * 他インスタンスの累計から前回との差分を求め、GCRA から差し引く
+	 * - 自インスタンスでまだ使われていないポリシーの分は無視する
+	 */
+	void applyRemote(List<Usage> rows) {
+		long now = System.currentTimeMillis();
+		for (Usage u : rows) {
+			Seen prev = seen.put(u.nodeId() + '\n' + u.key(), new Seen(u.total(), now));
+			long delta = prev != null ? u.total() - prev.total() : u.fresh() ? u.total() : 0;
+			int sep = u.key().indexOf(SEPARATOR);
+			GcraRateLimiter limiter = sep > 0 ? limiters.get(u.key().substring(0, sep)) : null;
+			if (delta > 0 && limiter != null) {
+				limiter.debit(u.key().substring(sep + 1), delta, MAX_DEBIT_NANOS);
+			}
+		}
+	}
+
+	private void push(Map<String, LongAdder> drained) {
+		List<Object[]> batch = new ArrayList<>(drained.size());
+		drained.forEach((k, v) -> {
+			long n = v.sum();
+			if (n > 0) {
+				batch.add(new Object[] { nodeId, k, n });
+			}
+		});
+		if (!batch.isEmpty()) {
+			try {
+				jdbc.batchUpdate(UPSERT, batch);
+			} catch (DataIntegrityViolationException e) {
+				// バッチは全体が取り消されるので、1行ずつ送り直して書けない行だけを捨てる
+				pushEach(batch, drained);
+			}
+		}
+		// 送信できたので持ち越し対象から外す
+		drained.clear();
+	}
+
+	/**
+	 * 1行ずつ送る（送れた行・捨てた行は drained から外し、途中で DB に接続できなくなっても残りだけを持ち越す）
+	 */
+	private void pushEach(List<Object[]> batch, Map<String, LongAdder> drained) {
+		for (Object[] row : batch) {
+			try {
+				jdbc.update(UPSERT, row);
+			} catch (DataIntegrityViolationException e) {
+				dropped.increment();
+				log.warn("Rate limit usage dropped key={}: {}", row[1], e.toString());
+			}
+			drained.remove((String) row[1]);
+		}
+	}
+
+	/**
+	 * GCRA と共有に使うキー（固定長）
+	 * - リクエストごとに呼ばれるため、MessageDigest はスレッドごとに使い回す
+	 */
+	static String hash(String key) {
+		byte[] digest = SHA256.get().digest(key.getBytes(StandardCharsets.UTF_8));
+		return HEX.formatHex(digest, 0, KEY_HASH_CHARS / 2);
+	}
+
+	private List<Usage> pull() {
+		Timestamp now = jdbc.queryForObject("SELECT NOW()", Timestamp.class);
+		if (lastReadAt == null) {
+			// 起動直後は基準点を記録するだけ
+			lastReadAt = now;
+			return List.of();
+		}
+		Timestamp since = new Timestamp(lastReadAt.getTime() - READ_MARGIN_MS);
+		List<Usage> rows = jdbc.query(SELECT_REMOTE,
+				(rs, i) -> new Usage(rs.getString("node_id"), rs.getString("rl_key"), rs.getLong("total"), rs.getBoolean("fresh")),
+				since, nodeId, since);
+		lastReadAt = now;
+		return rows;
+	}
+
+	private void count(Map<String, LongAdder> counts, String key, long n) {
+		LongAdder c = counts.get(key);
+		if (c == null) {
+			if (counts.size() >= maxKeys) {
+				return;
+			}
+			c = counts.computeIfAbsent(key, k -> new LongAdder());
+		}
+		c.add(n);
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.ai_diary.backend.ai;
+
+/**
+ * レート制限の判定先（RateLimitFilter から呼ばれる）
+ * - local: インスタンスごとに判定する（既定）
+ * - postgres: 各インスタンスの許可数を DB で共有し、クラスタ全体でおおよそ上限を守る
+ * - バケットはポリシーごとに独立している
+ */
+public interface RateLimitBackend {
+
+	/**
+	 * 判定結果
+	 * @param waitNanos 許可なら 0、拒否なら次に許可されるまでの時間
+	 * @param remaining 残りの許可数
+	 * @param resetNanos 満杯に戻るまでの時間
+	 */
+	record Decision(long waitNanos, int remaining, long resetNanos) {
+
+		public boolean allowed() {
+			return waitNanos == 0;
+		}
+	}
+
+	/**
+	 * 1件分を判定する
+	 * - リクエストごとに呼ばれるため、外部への通信はしないこと
+	 */
+	Decision tryAcquire(RateLimitPolicy policy, String key);
+}
@@ -0,0 +1,108 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.example.ai_diary.backend.config.RateLimitProperties;
+import com.example.ai_diary.backend.config.RateLimitProperties.KeyType;
+import com.example.ai_diary.backend.security.AuthUser;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * リクエストに適用するレート制限ポリシーの選択
+ * - 設定は起動時に解析済みにしておく
+ *   - パターンを含まないパスは パス → メソッド のハッシュ表で引く
+ *   - パターンは解析済みの PathPattern を宣言順に照合する（完全一致が無い時のみ）
+ * - どれにも一致しなければ既定のポリシー（ratelimit.per-second / burst、IP ごと）
+ */
+@Component
+public class RateLimitPolicies {
+
+	/** メソッド指定なし */
+	private static final String ANY = "*";
+
+	private record Pattern(PathPattern path, String method, RateLimitPolicy policy) {
+	}
+
+	private final RateLimitPolicy defaultPolicy;
+	private final Map<String, Map<String, RateLimitPolicy>> exact = new HashMap<>();
+	private final List<Pattern> patterns = new ArrayList<>();
+
+	public RateLimitPolicies(RateLimitProperties properties,
+			@Value("${ratelimit.per-second:10}") int limitPerSec,
+			@Value("${ratelimit.burst:${ratelimit.per-second:10}}") int burst) {
+
+		this.defaultPolicy = new RateLimitPolicy("default", limitPerSec, burst, KeyType.IP);
+
+		for (RateLimitProperties.Policy p : properties.getPolicies()) {
+			if (p.getName() == null || p.getName().isBlank() || p.getPath() == null || p.getPath().isBlank()) {
+				throw new IllegalStateException("ratelimit.policies requires name and path: " + p.getName());
+			}
+			if (p.getPerSecond() <= 0) {
+				throw new IllegalStateException("ratelimit.policies per-second must be positive: " + p.getName());
+			}
+			RateLimitPolicy policy = new RateLimitPolicy(p.getName(), p.getPerSecond(),
+					p.getBurst() > 0 ? p.getBurst() : Math.max(1, (int) p.getPerSecond()), p.getKey());
+			String method = p.getMethod() == null || p.getMethod().isBlank() ? ANY : p.getMethod().toUpperCase(Locale.ROOT);
+
+			PathPattern pattern = PathPatternParser.defaultInstance.parse(p.getPath());
+			if (pattern.hasPatternSyntax()) {
+				patterns.add(new Pattern(pattern, method, policy));
+			} else {
+				exact.computeIfAbsent(p.getPath(), k -> new HashMap<>()).putIfAbsent(method, policy);
+			}
+		}
+	}
+
+	/**
+	 * リクエストに適用するポリシー
+	 */
+	public RateLimitPolicy resolve(String method, String path) {
+
+		Map<String, RateLimitPolicy> byMethod = exact.get(path);
+		if (byMethod != null) {
+			RateLimitPolicy p = byMethod.get(method);
+			if (p == null) {
+				p = byMethod.get(ANY);
+			}
+			if (p != null) {
+				return p;
+			}
+		}
+
+		if (!patterns.isEmpty()) {
+			PathContainer container = PathContainer.parsePath(path);
+			for (Pattern p : patterns) {
+				if ((ANY.equals(p.method()) || p.method().equals(method)) && p.path().matches(container)) {
+					return p.policy();
+				}
+			}
+		}
+		return defaultPolicy;
+	}
+
+	/**
+	 * 数える単位のキー（ユーザーごとのポリシーはユーザーID。未認証・AuthUser 以外の認証なら IP）
+	 */
+	public String key(RateLimitPolicy policy, HttpServletRequest request) {
+		if (policy.key() == KeyType.USER) {
+			Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+			if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof AuthUser user) {
+				return "u:" + user.id();
+			}
+		}
+		return "ip:" + request.getRemoteAddr();
+	}
+}
@@ -0,0 +1,18 @@
+package com.example.ai_diary.backend.ai;
+
+import com.example.ai_diary.backend.config.RateLimitProperties.KeyType;
+
+/**
+ * 1つのレート制限ポリシー（名前ごとに独立したバケットを持つ）
+ * @param name 識別名
+ * @param perSecond 1秒あたりの平均許可数
+ * @param burst 連続して許可する最大数
+ * @param key 何ごとに数えるか
+ */
+public record RateLimitPolicy(String name, double perSecond, int burst, KeyType key) {
+
+	/** RateLimit-Policy ヘッダーの値（例: 10;w=1） */
+	public String header() {
+		return burst + ";w=" + Math.max(1, (long) Math.ceil(burst / perSecond));
+	}
+}
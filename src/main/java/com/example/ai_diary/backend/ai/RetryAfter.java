@@ -0,0 +1,121 @@
+package com.example.ai_diary.backend.ai;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * レート制限レスポンスの待機時間ヘッダー解析
+ * - retry-after-ms: ミリ秒
+ * - Retry-After: 秒 または HTTP-date
+ * - x-ratelimit-reset-requests / x-ratelimit-reset-tokens: "1s", "6m0s", "20ms" 形式
+ */
+public final class RetryAfter {
+
+	/** "1h2m3.5s" / "20ms" などの1要素 */
+	private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+	private RetryAfter() {
+	}
+
+	/**
+	 * ヘッダーから待機時間を求める（指定が無ければ空）
+	 * - Retry-After 系を優先し、無ければ使い切った側（requests / tokens）のリセット時間
+	 */
+	public static Optional<Duration> from(HttpHeaders headers) {
+
+		Optional<Duration> ms = headers.firstValue("retry-after-ms").flatMap(RetryAfter::parseMillis);
+		if (ms.isPresent()) {
+			return ms;
+		}
+
+		Optional<Duration> ra = headers.firstValue("retry-after").flatMap(RetryAfter::parseRetryAfter);
+		if (ra.isPresent()) {
+			return ra;
+		}
+
+		Optional<Duration> requests = headers.firstValue("x-ratelimit-reset-requests").flatMap(RetryAfter::parseDuration);
+		Optional<Duration> tokens = headers.firstValue("x-ratelimit-reset-tokens").flatMap(RetryAfter::parseDuration);
+		boolean requestsExhausted = isZero(headers.firstValue("x-ratelimit-remaining-requests"));
+		boolean tokensExhausted = isZero(headers.firstValue("x-ratelimit-remaining-tokens"));
+
+		if (requestsExhausted || tokensExhausted) {
+			Duration d = Duration.ZERO;
+			if (requestsExhausted && requests.isPresent()) d = max(d, requests.get());
+			if (tokensExhausted && tokens.isPresent()) d = max(d, tokens.get());
+			if (!d.isZero()) {
+				return Optional.of(d);
+			}
+		}
+
+		// どちらを使い切ったか不明なら短い方
+		if (requests.isPresent() && tokens.isPresent()) {
+			return Optional.of(min(requests.get(), tokens.get()));
+		}
+		return requests.isPresent() ? requests : tokens;
+	}
+
+	/** Retry-After（秒 または HTTP-date） */
+	static Optional<Duration> parseRetryAfter(String v) {
+		String s = v.strip();
+		try {
+			return Optional.of(Duration.ofMillis((long) (Double.parseDouble(s) * 1000)));
+		} catch (NumberFormatException ignore) {
+			// HTTP-date
+		}
+		try {
+			ZonedDateTime at = ZonedDateTime.parse(s, DateTimeFormatter.RFC_1123_DATE_TIME);
+			Duration d = Duration.between(ZonedDateTime.now(at.getZone()), at);
+			return Optional.of(d.isNegative() ? Duration.ZERO : d);
+		} catch (DateTimeParseException e) {
+			return Optional.empty();
+		}
+	}
+
+	/** "6m0s" / "1.5s" / "20ms" 形式 */
+	static Optional<Duration> parseDuration(String v) {
+		String s = v.strip();
+		Matcher m = DURATION_PART.matcher(s);
+		double millis = 0;
+		int end = 0;
+		while (m.find()) {
+			if (m.start() != end) {
+				return Optional.empty();
+			}
+			double n = Double.parseDouble(m.group(1));
+			millis += switch (m.group(2)) {
+			case "h" -> n * 3_600_000;
+			case "m" -> n * 60_000;
+			case "s" -> n * 1_000;
+			default -> n;
+			};
+			end = m.end();
+		}
+		return (end == 0 || end != s.length()) ? Optional.empty() : Optional.of(Duration.ofMillis((long) millis));
+	}
+
+	private static Optional<Duration> parseMillis(String v) {
+		try {
+			return Optional.of(Duration.ofMillis((long) Double.parseDouble(v.strip())));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static boolean isZero(Optional<String> v) {
+		return v.map(String::strip).filter("0"::equals).isPresent();
+	}
+
+	private static Duration max(Duration a, Duration b) {
+		return a.compareTo(b) >= 0 ? a : b;
+	}
+
+	private static Duration min(Duration a, Duration b) {
+		return a.compareTo(b) <= 0 ? a : b;
+	}
+}
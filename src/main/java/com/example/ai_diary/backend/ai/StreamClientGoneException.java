@@ -0,0 +1,13 @@
+package com.example.ai_diary.backend.ai;
+
+/**
+ * ストリーミングの受信側（クライアント）が切断した場合の例外クラス
+ * - OpenAiClient.chatStream の onDelta から投げると、OpenAI の失敗として数えずに受信を中断する
+ */
+public class StreamClientGoneException extends RuntimeException {
+
+	/**
+	 * @param cause 送信時の例外（切断による IOException、タイムアウト・完了後の送信による IllegalStateException）
+	 */
+	public StreamClientGoneException(Exception cause) { super(cause); }
+}
@@ -0,0 +1,282 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 日本語向けの抽出型要約（TextRank）
+ * - 形態素解析は使わず、文字 bigram の TF-IDF ベクトルのコサイン類似度で文同士のグラフを作る
+ * - PageRank で文の重要度を求め、上位の文を元の順序で返す
+ * - 外部通信なし・数ミリ秒で完了する
+ */
+public final class TextRank {
+
+	/** 扱う文の上限（類似度計算は文数の2乗） */
+	static final int MAX_SENTENCES = 200;
+
+	private static final double DAMPING = 0.85;
+	private static final int MAX_ITERATIONS = 50;
+	private static final double TOLERANCE = 1e-6;
+
+	/** 名言風の一文を選ぶ際に加点する語 */
+	private static final List<String> POSITIVE_WORDS = List.of(
+			"嬉し", "うれし", "楽し", "たのし", "幸せ", "しあわせ", "良かった", "よかった", "好き", "笑",
+			"ありがと", "感謝", "頑張", "がんば", "できた", "晴れ", "咲", "美味し", "おいし", "元気", "希望", "最高");
+
+	private TextRank() {
+	}
+
+	/**
+	 * 文に分割する
+	 * - 。！？!?．と改行で区切る。直後の閉じ括弧は前の文に含める
+	 */
+	public static List<String> sentences(String text) {
+
+		List<String> out = new ArrayList<>();
+		if (text == null) {
+			return out;
+		}
+
+		StringBuilder cur = new StringBuilder();
+		int n = text.length();
+		for (int i = 0; i < n && out.size() < MAX_SENTENCES; i++) {
+			char c = text.charAt(i);
+			if (c == '\n' || c == '\r') {
+				add(out, cur);
+				continue;
+			}
+			cur.append(c);
+			if (isTerminator(c)) {
+				while (i + 1 < n && isCloser(text.charAt(i + 1))) {
+					cur.append(text.charAt(++i));
+				}
+				add(out, cur);
+			}
+		}
+		if (out.size() < MAX_SENTENCES) {
+			add(out, cur);
+		}
+		return out;
+	}
+
+	/**
+	 * 重要度の高い文を最大 maxSentences 件、元の順序で連結して返す（文が無ければ null）
+	 */
+	public static String summarize(String text, int maxSentences) {
+
+		List<String> sents = sentences(text);
+		if (sents.isEmpty()) {
+			return null;
+		}
+		if (sents.size() <= maxSentences) {
+			return join(sents);
+		}
+
+		double[] scores = rank(sents);
+		List<String> picked = IntStream.range(0, sents.size()).boxed()
+				.sorted(Comparator.comparingDouble((Integer i) -> -scores[i]).thenComparing(i -> i))
+				.limit(maxSentences)
+				.sorted()
+				.map(sents::get)
+				.toList();
+		return join(picked);
+	}
+
+	/**
+	 * 名言風の短い一文（ヒューリスティック。文が無ければ null）
+	 * - 重要度に前向きな語の数で加点して文を選び、その中の読点区切りから前向きな節（無ければ最後の節）を採る
+	 * - maxChars を超える場合は切り詰めて「…」を付ける
+	 */
+	public static String quote(String text, int maxChars) {
+
+		List<String> sents = sentences(text);
+		if (sents.isEmpty()) {
+			return null;
+		}
+
+		double[] scores = rank(sents);
+		int best = 0;
+		double bestScore = -1;
+		for (int i = 0; i < sents.size(); i++) {
+			double s = scores[i] * (1 + positives(sents.get(i)));
+			if (s > bestScore) {
+				best = i;
+				bestScore = s;
+			}
+		}
+
+		String[] clauses = strip(sents.get(best)).split("[、，,]");
+		String clause = clauses[clauses.length - 1];
+		for (String c : clauses) {
+			if (positives(c) > 0) {
+				clause = c;
+				break;
+			}
+		}
+		clause = clause.strip();
+		if (clause.isEmpty()) {
+			return null;
+		}
+
+		int len = clause.codePointCount(0, clause.length());
+		if (len + 1 <= maxChars) {
+			return clause + "。";
+		}
+		return clause.substring(0, clause.offsetByCodePoints(0, Math.max(1, maxChars - 1))) + "…";
+	}
+
+	/**
+	 * 各文の重要度（PageRank）
+	 */
+	static double[] rank(List<String> sents) {
+
+		int n = sents.size();
+		double[] scores = new double[n];
+		if (n == 0) {
+			return scores;
+		}
+
+		// 文字 bigram の出現数と文書頻度
+		List<Map<Integer, Integer>> tfs = new ArrayList<>(n);
+		Map<Integer, Integer> df = new HashMap<>();
+		for (String s : sents) {
+			Map<Integer, Integer> tf = bigrams(s);
+			tfs.add(tf);
+			tf.keySet().forEach(k -> df.merge(k, 1, Integer::sum));
+		}
+
+		// TF-IDF ベクトル（正規化済み）
+		List<Map<Integer, Double>> vecs = new ArrayList<>(n);
+		for (Map<Integer, Integer> tf : tfs) {
+			Map<Integer, Double> v = new HashMap<>(tf.size() * 2);
+			double norm = 0;
+			for (Map.Entry<Integer, Integer> e : tf.entrySet()) {
+				double w = e.getValue() * (Math.log((n + 1.0) / (df.get(e.getKey()) + 1.0)) + 1);
+				v.put(e.getKey(), w);
+				norm += w * w;
+			}
+			double inv = norm > 0 ? 1 / Math.sqrt(norm) : 0;
+			v.replaceAll((k, w) -> w * inv);
+			vecs.add(v);
+		}
+
+		// 類似度行列と各行の合計
+		double[][] sim = new double[n][n];
+		double[] rowSum = new double[n];
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				double c = cosine(vecs.get(i), vecs.get(j));
+				sim[i][j] = c;
+				sim[j][i] = c;
+				rowSum[i] += c;
+				rowSum[j] += c;
+			}
+		}
+
+		Arrays.fill(scores, 1.0 / n);
+		double[] next = new double[n];
+		for (int it = 0; it < MAX_ITERATIONS; it++) {
+			double delta = 0;
+			for (int i = 0; i < n; i++) {
+				double acc = 0;
+				for (int j = 0; j < n; j++) {
+					if (rowSum[j] > 0 && sim[j][i] > 0) {
+						acc += sim[j][i] / rowSum[j] * scores[j];
+					}
+				}
+				next[i] = (1 - DAMPING) / n + DAMPING * acc;
+				delta += Math.abs(next[i] - scores[i]);
+			}
+			System.arraycopy(next, 0, scores, 0, n);
+			if (delta < TOLERANCE) {
+				break;
+			}
+		}
+		return scores;
+	}
+
+	/** 文字 bigram（記号・空白で区切る。1文字だけの断片はその文字） */
+	private static Map<Integer, Integer> bigrams(String s) {
+
+		Map<Integer, Integer> tf = new HashMap<>();
+		int prev = -1;
+		int n = s.length();
+		for (int i = 0; i < n; i++) {
+			char c = Character.toLowerCase(s.charAt(i));
+			if (!Character.isLetterOrDigit(c)) {
+				prev = -1;
+				continue;
+			}
+			if (prev >= 0) {
+				tf.merge((prev << 16) | c, 1, Integer::sum);
+			} else if (i + 1 >= n || !Character.isLetterOrDigit(s.charAt(i + 1))) {
+				tf.merge((int) c, 1, Integer::sum);
+			}
+			prev = c;
+		}
+		return tf;
+	}
+
+	private static double cosine(Map<Integer, Double> a, Map<Integer, Double> b) {
+		if (a.size() > b.size()) {
+			Map<Integer, Double> t = a;
+			a = b;
+			b = t;
+		}
+		double dot = 0;
+		for (Map.Entry<Integer, Double> e : a.entrySet()) {
+			Double w = b.get(e.getKey());
+			if (w != null) {
+				dot += e.getValue() * w;
+			}
+		}
+		return dot;
+	}
+
+	private static int positives(String s) {
+		int count = 0;
+		for (String w : POSITIVE_WORDS) {
+			if (s.contains(w)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static String join(List<String> sents) {
+		StringBuilder sb = new StringBuilder();
+		for (String s : sents) {
+			sb.append(s);
+			if (!isTerminator(s.charAt(s.length() - 1)) && !isCloser(s.charAt(s.length() - 1))) {
+				sb.append('。');
+			}
+		}
+		return sb.toString();
+	}
+
+	/** 括弧と文末記号を除く */
+	private static String strip(String s) {
+		return s.replaceAll("[「」『』（）()\"]", "").replaceAll("[。！？!?．]+$", "");
+	}
+
+	private static void add(List<String> out, StringBuilder cur) {
+		String s = cur.toString().strip();
+		if (!s.isEmpty()) {
+			out.add(s);
+		}
+		cur.setLength(0);
+	}
+
+	private static boolean isTerminator(char c) {
+		return c == '。' || c == '！' || c == '？' || c == '!' || c == '?' || c == '．';
+	}
+
+	private static boolean isCloser(char c) {
+		return c == '」' || c == '』' || c == '）' || c == ')';
+	}
+}
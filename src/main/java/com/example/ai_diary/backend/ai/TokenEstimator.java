@@ -0,0 +1,109 @@
+package com.example.ai_diary.backend.ai;
+
+import java.util.regex.Pattern;
+
+/**
+ * 入力トークン数の概算と、予算内への切り詰め
+ * - 正確なトークナイザは使わず、文字種ごとの目安で見積もる（多めに見積もる側に寄せる）
+ *   - 日本語（かな・漢字など ASCII 以外）: 1文字 ≒ 1トークン
+ *   - ASCII: 4文字 ≒ 1トークン
+ */
+public final class TokenEstimator {
+
+	/** 省略箇所の印 */
+	static final String ELLIPSIS = "\n…\n";
+
+	private static final Pattern BLANK_LINES = Pattern.compile("\\n\\s*\\n+");
+	private static final Pattern SPACES = Pattern.compile("[ \\t\\u3000]+");
+
+	private TokenEstimator() {
+	}
+
+	/** 概算トークン数 */
+	public static int estimate(CharSequence s) {
+		if (s == null) {
+			return 0;
+		}
+		int ascii = 0;
+		int other = 0;
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (Character.isLowSurrogate(c)) {
+				continue;
+			}
+			if (c < 0x80) {
+				ascii++;
+			} else {
+				other++;
+			}
+		}
+		return other + (ascii + 3) / 4;
+	}
+
+	/**
+	 * 予算内に収める
+	 * 1. 空白・空行を詰める
+	 * 2. それでも超える場合は先頭と末尾を残して中間を省略する（日記は書き出しと結びが要点になりやすい）
+	 * @param budget 0 以下なら無制限
+	 */
+	public static String fit(String text, int budget) {
+
+		if (text == null || budget <= 0 || estimate(text) <= budget) {
+			return text;
+		}
+
+		String condensed = SPACES.matcher(BLANK_LINES.matcher(text.strip()).replaceAll("\n")).replaceAll(" ");
+		if (estimate(condensed) <= budget) {
+			return condensed;
+		}
+
+		// 先頭 2/3・末尾 1/3 の配分で、予算に収まる位置を探す
+		int available = Math.max(0, budget - estimate(ELLIPSIS));
+		int headBudget = available * 2 / 3;
+		int tailBudget = available - headBudget;
+
+		int headEnd = prefixLength(condensed, headBudget);
+		int tailStart = suffixStart(condensed, tailBudget, headEnd);
+
+		return condensed.substring(0, headEnd) + ELLIPSIS + condensed.substring(tailStart);
+	}
+
+	/** 先頭から budget トークン以内に収まる文字数 */
+	private static int prefixLength(String s, int budget) {
+		int ascii = 0;
+		int other = 0;
+		int i = 0;
+		while (i < s.length()) {
+			char c = s.charAt(i);
+			int nextAscii = ascii + (c < 0x80 ? 1 : 0);
+			int nextOther = other + (c < 0x80 ? 0 : 1);
+			if (nextOther + (nextAscii + 3) / 4 > budget) {
+				break;
+			}
+			ascii = nextAscii;
+			other = nextOther;
+			i += Character.isHighSurrogate(c) && i + 1 < s.length() ? 2 : 1;
+		}
+		return i;
+	}
+
+	/** 末尾から budget トークン以内に収まる開始位置（from より前には戻らない） */
+	private static int suffixStart(String s, int budget, int from) {
+		int ascii = 0;
+		int other = 0;
+		int i = s.length();
+		while (i > from) {
+			int step = i - 2 >= from && Character.isLowSurrogate(s.charAt(i - 1)) ? 2 : 1;
+			char c = s.charAt(i - step);
+			int nextAscii = ascii + (c < 0x80 ? 1 : 0);
+			int nextOther = other + (c < 0x80 ? 0 : 1);
+			if (nextOther + (nextAscii + 3) / 4 > budget) {
+				break;
+			}
+			ascii = nextAscii;
+			other = nextOther;
+			i -= step;
+		}
+		return i;
+	}
+}
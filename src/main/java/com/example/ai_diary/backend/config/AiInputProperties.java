@@ -0,0 +1,27 @@
+package com.example.ai_diary.backend.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * OpenAI へ送る本文の入力トークン予算
+ * - max-tokens.<style> でスタイルごとに指定、無ければ default-max-tokens
+ * - 0 以下は無制限
+ */
+@ConfigurationProperties(prefix = "ai.input")
+public class AiInputProperties {
+	private int defaultMaxTokens = 1200;
+	private Map<String, Integer> maxTokens = new HashMap<>();
+
+	public int getDefaultMaxTokens() { return defaultMaxTokens; }
+	public void setDefaultMaxTokens(int defaultMaxTokens) { this.defaultMaxTokens = defaultMaxTokens; }
+	public Map<String, Integer> getMaxTokens() { return maxTokens; }
+	public void setMaxTokens(Map<String, Integer> maxTokens) { this.maxTokens = maxTokens; }
+
+	/** スタイルキーの予算 */
+	public int budgetFor(String styleKey) {
+		return maxTokens.getOrDefault(styleKey, defaultMaxTokens);
+	}
+}
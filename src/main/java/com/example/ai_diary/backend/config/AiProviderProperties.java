@@ -0,0 +1,41 @@
+package com.example.ai_diary.backend.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * OpenAI 以外の生成エンジン（AiProvider）の使い方
+ * - mode.<style> でスタイルごとに primary / fallback / off を指定、無ければ off
+ */
+@ConfigurationProperties(prefix = "ai.provider")
+public class AiProviderProperties {
+
+	public enum Mode {
+		/** OpenAI より先に使う（OpenAI は呼ばない） */
+		PRIMARY,
+		/** OpenAI で生成できなかった時に使う */
+		FALLBACK,
+		/** 使わない */
+		OFF
+	}
+
+	private Map<String, Mode> mode = new HashMap<>();
+	/** 要約に使う文の数 */
+	private int summarySentences = 3;
+	/** 名言風の一文の最大文字数 */
+	private int quoteMaxChars = 20;
+
+	public Map<String, Mode> getMode() { return mode; }
+	public void setMode(Map<String, Mode> mode) { this.mode = mode; }
+	public int getSummarySentences() { return summarySentences; }
+	public void setSummarySentences(int summarySentences) { this.summarySentences = summarySentences; }
+	public int getQuoteMaxChars() { return quoteMaxChars; }
+	public void setQuoteMaxChars(int quoteMaxChars) { this.quoteMaxChars = quoteMaxChars; }
+
+	/** スタイルキーのモード */
+	public Mode modeFor(String styleKey) {
+		return mode.getOrDefault(styleKey, Mode.OFF);
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.ai_diary.backend.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import com.example.ai_diary.backend.ai.FakeOpenAiServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 疑似 OpenAI サーバの起動（fake-openai プロファイル）
+ * - openai.api.url は application-fake-openai.properties で疑似サーバに向ける
+ */
+@Configuration
+@Profile("fake-openai")
+public class FakeOpenAiConfig {
+
+	@Bean(destroyMethod = "close")
+	public FakeOpenAiServer fakeOpenAiServer(ObjectMapper mapper,
+			@Value("${fake-openai.port:18080}") int port,
+			@Value("${fake-openai.latency.median-ms:300}") long latencyMedianMs,
+			@Value("${fake-openai.latency.sigma:0.5}") double latencySigma,
+			@Value("${fake-openai.latency.max-ms:10000}") long latencyMaxMs,
+			@Value("${fake-openai.rate-limit-rate:0}") double rateLimitRate,
+			@Value("${fake-openai.server-error-rate:0}") double serverErrorRate,
+			@Value("${fake-openai.retry-after-ms:1000}") long retryAfterMs,
+			@Value("${fake-openai.stream.chunks:8}") int streamChunks,
+			@Value("${fake-openai.stream.chunk-delay-ms:30}") long streamChunkDelayMs) throws IOException {
+
+		FakeOpenAiServer.Settings settings = new FakeOpenAiServer.Settings()
+				.setLatencyMedianMs(latencyMedianMs)
+				.setLatencySigma(latencySigma)
+				.setLatencyMaxMs(latencyMaxMs)
+				.setRateLimitRate(rateLimitRate)
+				.setServerErrorRate(serverErrorRate)
+				.setRetryAfterMs(retryAfterMs)
+				.setStreamChunks(streamChunks)
+				.setStreamChunkDelayMs(streamChunkDelayMs);
+
+		return FakeOpenAiServer.start(port, mapper, settings);
+	}
+}
@@ -4,5 +4,6 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties(PagingProperties.class)
+@EnableConfigurationProperties({ PagingProperties.class, AiInputProperties.class, AiProviderProperties.class,
+		RateLimitProperties.class })
 public class PropsConfig {}
@@ -0,0 +1,55 @@
+package com.example.ai_diary.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 経路ごとのレート制限ポリシー
+ * - policies[n] に path（パターン可）・method（省略で全て）・key（ip / user）と上限を指定する
+ * - どれにも一致しないリクエストは ratelimit.per-second / burst で IP ごとに制限する
+ */
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+	public enum KeyType {
+		/** クライアントの IP ごと */
+		IP,
+		/** 認証済みユーザーごと（未認証なら IP ごと） */
+		USER
+	}
+
+	public static class Policy {
+
+		/** 識別名（メトリクス・共有ストアのキーに使う） */
+		private String name;
+		/** 対象のパス（/api/diary/{id} や /api/** のようなパターンも可） */
+		private String path;
+		/** 対象の HTTP メソッド（省略時は全て） */
+		private String method;
+		private KeyType key = KeyType.IP;
+		/** 1秒あたりの平均許可数 */
+		private double perSecond = 10;
+		/** 連続して許可する最大数（0 なら per-second と同じ） */
+		private int burst = 0;
+
+		public String getName() { return name; }
+		public void setName(String name) { this.name = name; }
+		public String getPath() { return path; }
+		public void setPath(String path) { this.path = path; }
+		public String getMethod() { return method; }
+		public void setMethod(String method) { this.method = method; }
+		public KeyType getKey() { return key; }
+		public void setKey(KeyType key) { this.key = key; }
+		public double getPerSecond() { return perSecond; }
+		public void setPerSecond(double perSecond) { this.perSecond = perSecond; }
+		public int getBurst() { return burst; }
+		public void setBurst(int burst) { this.burst = burst; }
+	}
+
+	private List<Policy> policies = new ArrayList<>();
+
+	public List<Policy> getPolicies() { return policies; }
+	public void setPolicies(List<Policy> policies) { this.policies = policies; }
+}
@@ -1,5 +1,6 @@
 package com.example.ai_diary.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
@@ -8,11 +9,11 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import com.example.ai_diary.backend.security.BoundedPasswordEncoder;
 import com.example.ai_diary.backend.security.CustomUserDetailsService;
 import com.example.ai_diary.backend.security.JwtAuthenticationFilter;
 import com.example.ai_diary.backend.security.JwtUtil;
@@ -40,15 +41,22 @@ public class SecurityConfig {
 			.sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 			.authorizeHttpRequests(auth -> auth
 					.requestMatchers("/api/auth/**", "/actuator/**", "/h2-console/**").permitAll()
+					.requestMatchers("/api/admin/**").hasRole("ADMIN")
 					.anyRequest().authenticated())
 		.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
 
 		return http.build();
 	}
 
+	/**
+	 * BCrypt（専用の有界スレッドプールで計算。満杯なら 503）
+	 * - strength を上げると、ログイン成功時に低いコストのハッシュが再ハッシュされる（CustomUserDetailsService.updatePassword）
+	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength,
+			@Value("${security.bcrypt.threads:2}") int threads,
+			@Value("${security.bcrypt.max-queue:16}") int maxQueue) {
+		return new BoundedPasswordEncoder(strength, threads, maxQueue);
 	}
 
 	@Bean
@@ -1,9 +1,14 @@
 package com.example.ai_diary.backend.config;
 
+import java.util.List;
+
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.ai_diary.backend.security.AuthUserArgumentResolver;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -16,4 +21,9 @@ public class WebConfig implements WebMvcConfigurer {
 				.allowCredentials(true)
 				.maxAge(3600);
 	}
+
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		resolvers.add(new AuthUserArgumentResolver());
+	}
 }
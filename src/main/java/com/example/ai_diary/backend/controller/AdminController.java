@@ -0,0 +1,77 @@
+package com.example.ai_diary.backend.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.ai_diary.backend.domain.AiBackfillRun;
+import com.example.ai_diary.backend.dto.AiDtos.BackfillRequest;
+import com.example.ai_diary.backend.dto.AiDtos.BackfillResponse;
+import com.example.ai_diary.backend.service.AiBackfillService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.validation.Valid;
+
+/**
+ * 管理者用コントローラ（security.admin-emails のユーザーのみ）
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+	private final AiBackfillService aiBackfillService;
+
+	public AdminController(AiBackfillService aiBackfillService) {
+		this.aiBackfillService = aiBackfillService;
+	}
+
+	@Operation(summary="AI一括再生成の開始", description="既存日記のcontent_aiを指定スタイルで再生成（非同期）。同時実行は1件のみ。管理者のみ。")
+	@SecurityRequirement(name = "bearerAuth")
+	@PostMapping("/ai/backfill")
+	public ResponseEntity<BackfillResponse> startBackfill(@Valid @RequestBody BackfillRequest req,
+			@AuthenticationPrincipal UserDetails principal) {
+		AiBackfillRun run = aiBackfillService.start(req.getStyles(), req.isOnlyMissing(), principal.getUsername());
+		return ResponseEntity.accepted().body(toResponse(run));
+	}
+
+	@Operation(summary="AI一括再生成の進捗", description="管理者のみ。")
+	@SecurityRequirement(name = "bearerAuth")
+	@GetMapping("/ai/backfill/{id}")
+	public ResponseEntity<BackfillResponse> getBackfill(@PathVariable Long id) {
+		return ResponseEntity.ok(toResponse(aiBackfillService.find(id).orElseThrow()));
+	}
+
+	@Operation(summary="AI一括再生成の取り消し", description="処理中のチャンクの完了後に停止。管理者のみ。")
+	@SecurityRequirement(name = "bearerAuth")
+	@PostMapping("/ai/backfill/{id}/cancel")
+	public ResponseEntity<BackfillResponse> cancelBackfill(@PathVariable Long id) {
+		aiBackfillService.cancel(id);
+		return ResponseEntity.ok(toResponse(aiBackfillService.find(id).orElseThrow()));
+	}
+
+	private static BackfillResponse toResponse(AiBackfillRun run) {
+		BackfillResponse r = new BackfillResponse();
+		r.setId(run.getId());
+		r.setStyles(run.getStyles());
+		r.setOnlyMissing(run.isOnlyMissing());
+		r.setStatus(run.getStatus());
+		r.setLastDiaryId(run.getLastDiaryId());
+		r.setMaxDiaryId(run.getMaxDiaryId());
+		r.setProcessed(run.getProcessed());
+		r.setSucceeded(run.getSucceeded());
+		r.setFailed(run.getFailed());
+		r.setSkipped(run.getSkipped());
+		r.setLastError(run.getLastError());
+		r.setCreatedAt(run.getCreatedAt());
+		r.setHeartbeatAt(run.getHeartbeatAt());
+		r.setFinishedAt(run.getFinishedAt());
+		return r;
+	}
+}
@@ -1,13 +1,25 @@
 package com.example.ai_diary.backend.controller;
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.ai_diary.backend.ai.AiTransformService;
+import com.example.ai_diary.backend.domain.AiUsage;
+import com.example.ai_diary.backend.dto.AiDtos.UsageResponse;
+import com.example.ai_diary.backend.exception.ErrorMessages;
+import com.example.ai_diary.backend.repository.AiUsageRepository;
+import com.example.ai_diary.backend.security.AuthUser;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 
 /**
  * AIが使用できるか確認
@@ -16,14 +28,53 @@ import com.example.ai_diary.backend.ai.AiTransformService;
 @RequestMapping("/api/ai")
 public class AiController {
 
+	/** 使用量の既定の集計期間（日） */
+	private static final int DEFAULT_USAGE_DAYS = 30;
+	/** 使用量の最大集計期間（日） */
+	private static final int MAX_USAGE_DAYS = 366;
+
 	private final AiTransformService svc;
-	public AiController(AiTransformService svc) {
+	private final AiUsageRepository aiUsageRepository;
+
+	public AiController(AiTransformService svc, AiUsageRepository aiUsageRepository) {
 		this.svc = svc;
+		this.aiUsageRepository = aiUsageRepository;
 	}
 	
 	@GetMapping("/ping")
 	public ResponseEntity<?> ping() {
-		String res = svc.transformToJson("疎通テスト", List.of("SUMMARY"));
+		String res = svc.transformToJson(null, "疎通テスト", List.of("SUMMARY"));
 		return ResponseEntity.ok(res == null ? "{\"status\":\"AI_DISABLED_OR_ERROR\"}" : res);
 	}
+
+	@Operation(summary="AIトークン使用量", description="自分の日別・スタイル別の使用量。期間省略時は直近30日。数秒程度の反映遅れあり。JWT必須。")
+	@SecurityRequirement(name = "bearerAuth")
+	@GetMapping("/usage")
+	public ResponseEntity<List<UsageResponse>> usage(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			AuthUser user) {
+
+		LocalDate end = (to != null) ? to : LocalDate.now();
+		LocalDate start = (from != null) ? from : end.minusDays(DEFAULT_USAGE_DAYS - 1);
+		if (start.isAfter(end) || ChronoUnit.DAYS.between(start, end) >= MAX_USAGE_DAYS) {
+			throw new IllegalArgumentException(ErrorMessages.AI_USAGE_RANGE_INVALID);
+		}
+
+		List<UsageResponse> res = aiUsageRepository
+				.findByUserIdAndUsageDateBetweenOrderByUsageDateDescStyleAsc(user.id(), start, end).stream()
+				.map(AiController::toResponse)
+				.toList();
+		return ResponseEntity.ok(res);
+	}
+
+	private static UsageResponse toResponse(AiUsage u) {
+		UsageResponse r = new UsageResponse();
+		r.setDate(u.getUsageDate());
+		r.setStyle(u.getStyle());
+		r.setRequests(u.getRequests());
+		r.setPromptTokens(u.getPromptTokens());
+		r.setCompletionTokens(u.getCompletionTokens());
+		return r;
+	}
 }
@@ -4,6 +4,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -15,8 +16,10 @@ import com.example.ai_diary.backend.dto.AuthDtos.AuthResponse;
 import com.example.ai_diary.backend.dto.AuthDtos.LoginRequest;
 import com.example.ai_diary.backend.dto.AuthDtos.SignupRequest;
 import com.example.ai_diary.backend.security.JwtUtil;
+import com.example.ai_diary.backend.security.LoginThrottle;
 import com.example.ai_diary.backend.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 /**
@@ -29,29 +32,43 @@ public class AuthController {
 	private final UserService userService;
 	private final AuthenticationManager authManager;
 	private final JwtUtil jwtUtil;
+	private final LoginThrottle loginThrottle;
 
-	public AuthController(UserService userService, AuthenticationManager authManager, JwtUtil jwtUtil) {
+	public AuthController(UserService userService, AuthenticationManager authManager, JwtUtil jwtUtil,
+			LoginThrottle loginThrottle) {
 		this.userService = userService;
 		this.authManager = authManager;
 		this.jwtUtil = jwtUtil;
+		this.loginThrottle = loginThrottle;
 	}
 
 	@PostMapping("/signup")
 	public ResponseEntity<AuthResponse> signup(@Valid @RequestBody SignupRequest req) {
 		User user = userService.signup(req.getEmail(), req.getPassword(), req.getDisplayName());
-		String token = jwtUtil.generateToken(user.getEmail());
+		String token = jwtUtil.generateToken(user.getEmail(), user.getId());
 		return ResponseEntity.ok(
 				new AuthResponse(token, user.getId(), user.getEmail(), user.getDisplayName(), user.isPremiumFlag()));
 	}
 
 	@PostMapping("/login")
-	public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest req) {
-		Authentication auth = authManager
-				.authenticate(new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
+	public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest req, HttpServletRequest http) {
+
+		// 失敗が続いているアカウント・IP はハッシュ計算の前に断る（429）
+		String ip = http.getRemoteAddr();
+		loginThrottle.check(req.getEmail(), ip);
+
+		Authentication auth;
+		try {
+			auth = authManager.authenticate(new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
+		} catch (AuthenticationException e) {
+			loginThrottle.onFailure(req.getEmail(), ip);
+			throw e;
+		}
+		loginThrottle.onSuccess(req.getEmail());
 
 		UserDetails ud = (UserDetails) auth.getPrincipal();
 		User user = userService.findByEmailOrThrow(ud.getUsername());
-		String token = jwtUtil.generateToken(user.getEmail());
+		String token = jwtUtil.generateToken(user.getEmail(), user.getId());
 		return ResponseEntity.ok(
 				new AuthResponse(token, user.getId(), user.getEmail(), user.getDisplayName(), user.isPremiumFlag()));
 	}
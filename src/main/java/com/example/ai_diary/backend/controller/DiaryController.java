@@ -1,23 +1,34 @@
 package com.example.ai_diary.backend.controller;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.ai_diary.backend.domain.Diary;
 import com.example.ai_diary.backend.domain.Visibility;
 import com.example.ai_diary.backend.dto.DiaryDtos.CreateRequest;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedSlice;
 import com.example.ai_diary.backend.dto.DiaryDtos.Response;
 import com.example.ai_diary.backend.repository.DiaryRepository;
-import com.example.ai_diary.backend.repository.UserRepository;
+import com.example.ai_diary.backend.security.AuthUser;
+import com.example.ai_diary.backend.service.AiStreamService;
 import com.example.ai_diary.backend.service.DiaryService;
+import com.example.ai_diary.backend.service.FeedHeadCache;
+import com.example.ai_diary.backend.util.FeedCursor;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -31,60 +42,93 @@ public class DiaryController {
 
 	private final DiaryService diaryService;
 	private final DiaryRepository diaryRepository;
-	private final UserRepository userRepository;
+	private final AiStreamService aiStreamService;
+	private final FeedHeadCache feedHeadCache;
 
-	public DiaryController(DiaryService diaryService, DiaryRepository diaryRepository, UserRepository userRepository) {
+	public DiaryController(DiaryService diaryService, DiaryRepository diaryRepository,
+			AiStreamService aiStreamService, FeedHeadCache feedHeadCache) {
 		this.diaryService = diaryService;
 		this.diaryRepository = diaryRepository;
-		this.userRepository = userRepository;
+		this.aiStreamService = aiStreamService;
+		this.feedHeadCache = feedHeadCache;
 	}
 
-	@Operation(summary="日記作成", description="AI生成はstyles指定時のみ。JWT必須。")
+	@Operation(summary="日記作成", description="AI生成はstyles指定時のみ（非同期。aiStatusで進捗を確認）。JWT必須。")
 	@SecurityRequirement(name = "bearerAuth")
 	@PostMapping("/api/diary")
 	public ResponseEntity<Response> create(@Valid @RequestBody CreateRequest req,
-			@AuthenticationPrincipal UserDetails principal) {
+			AuthUser user) {
 
-		Long userId = userRepository.findByEmail(principal.getUsername()).orElseThrow().getId();
-		Diary diary = diaryService.create(userId, req.getContent(), req.getVisibility(), req.getStyles());
-		Response res = toResponse(diary);
+		Diary diary = diaryService.create(user.id(), user.premium(), req.getContent(), req.getVisibility(), req.getStyles());
+		Response res = Response.from(diary);
 		return ResponseEntity.ok(res);
 	}
 
 	@GetMapping("/api/diary/{id}")
-	public ResponseEntity<Response> getOne(@PathVariable Long id, @AuthenticationPrincipal UserDetails principal) {
+	public ResponseEntity<Response> getOne(@PathVariable Long id, AuthUser user) {
 		Diary diary = diaryRepository.findById(id).orElseThrow();
 
 		// PUBLIC は全員、PRIVATE/LIMITED は本人のみ
 		if (diary.getVisibility() != Visibility.PUBLIC) {
-			if (principal == null)
-				return ResponseEntity.status(403).build();
-			Long me = userRepository.findByEmail(principal.getUsername()).orElseThrow().getId();
-			if (!diary.getUserId().equals(me))
+			if (user == null || diary.getUserId() != user.id())
 				return ResponseEntity.status(403).build();
 		}
 
-		return ResponseEntity.ok(toResponse(diary));
+		return ResponseEntity.ok(Response.from(diary));
+	}
+
+	@Operation(summary="AI生成ストリーミング", description="指定スタイルの生成結果をSSEで逐次配信し、完了後にcontent_aiへ保存。本人のみ。OpenAIを呼ぶ場合はAI利用枠を1消費（不足時は429）。")
+	@SecurityRequirement(name = "bearerAuth")
+	@GetMapping(value = "/api/diary/{id}/ai/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamAi(@PathVariable Long id, @RequestParam String style,
+			AuthUser user) {
+
+		return aiStreamService.stream(id, user.id(), user.premium(), style);
 	}
 
+	@Operation(summary="公開フィード", description="新しい順。本文は先頭のみ（preview。全文は GET /api/diary/{id}）。先頭付近のページはキャッシュから返し、ETag / If-None-Match に対応する。")
 	@GetMapping("/api/feed")
-	public Page<Response> feed(@RequestParam(defaultValue = "0") int page,
-			@RequestParam(defaultValue = "20") int size) {
-		
-		return diaryService.publicFeed(page, size).map(this::toResponse);
+	public ResponseEntity<Page<FeedItem>> feed(@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "20") int size, WebRequest request) {
+
+		FeedHeadCache.Head head = feedHeadCache.page(page, size);
+		if (head == null) {
+			return ResponseEntity.ok(diaryService.publicFeed(page, size));
+		}
+		if (request.checkNotModified(head.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(head.etag()).build();
+		}
+		Page<FeedItem> body = new PageImpl<>(head.items(), PageRequest.of(head.page(), head.size()), head.total());
+		return ResponseEntity.ok().eTag(head.etag()).body(body);
+	}
+
+	@Operation(summary="公開フィード（カーソル方式）", description="新しい順。本文は先頭のみ（preview）。続きは前の応答の next を cursor に指定する。総件数は返さない。1ページ目は ETag / If-None-Match に対応する。")
+	@GetMapping("/api/feed/cursor")
+	public ResponseEntity<FeedSlice> feedByCursor(@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size, WebRequest request) {
+
+		FeedHeadCache.Head head = (cursor == null || cursor.isBlank()) ? feedHeadCache.page(0, size) : null;
+		if (head == null) {
+			DiaryService.FeedSlice slice = diaryService.publicFeedByCursor(cursor, size);
+			return ResponseEntity.ok(toSlice(slice.items(), slice.next()));
+		}
+		if (request.checkNotModified(head.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(head.etag()).build();
+		}
+		String next = null;
+		if (head.hasNext() && !head.items().isEmpty()) {
+			FeedItem last = head.items().get(head.items().size() - 1);
+			next = new FeedCursor(last.createdAt(), last.id()).encode();
+		}
+		return ResponseEntity.ok().eTag(head.etag()).body(toSlice(head.items(), next));
 	}
 
-	/**
-	 * 日記情報DTO取得
-	 */
-	private Response toResponse(Diary d) {
-		Response r = new Response();
-		r.setId(d.getId());
-		r.setUserId(d.getUserId());
-		r.setContent(d.getContent());
-		r.setContentAi(d.getContentAi());
-		r.setVisibility(d.getVisibility());
-		r.setCreatedAt(d.getCreatedAt());
-		return r;
+	/** カーソル方式の応答 */
+	private static FeedSlice toSlice(List<FeedItem> items, String next) {
+		FeedSlice res = new FeedSlice();
+		res.setItems(items);
+		res.setNext(next);
+		res.setHasNext(next != null);
+		return res;
 	}
 }
@@ -0,0 +1,155 @@
+package com.example.ai_diary.backend.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * AI一括再生成の実行状態（チェックポイント）
+ * - 進捗の更新は AiBackfillRunRepository の更新クエリで行う
+ */
+@Entity
+@Table(name = "ai_backfill_runs")
+public class AiBackfillRun {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/** スタイルキーのカンマ区切り（例: summary,haiku） */
+	@Column(nullable = false, length = 64)
+	private String styles;
+
+	/** true: 指定スタイルが未生成の日記のみ / false: すべて再生成 */
+	@Column(name = "only_missing", nullable = false)
+	private boolean onlyMissing = true;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private AiBackfillStatus status = AiBackfillStatus.RUNNING;
+
+	@Column(name = "last_diary_id", nullable = false)
+	private long lastDiaryId = 0;
+
+	@Column(name = "max_diary_id", nullable = false)
+	private long maxDiaryId;
+
+	@Column(nullable = false)
+	private long processed = 0;
+
+	@Column(nullable = false)
+	private long succeeded = 0;
+
+	@Column(nullable = false)
+	private long failed = 0;
+
+	@Column(nullable = false)
+	private long skipped = 0;
+
+	@Column(name = "last_error", length = 512)
+	private String lastError;
+
+	@Column(name = "created_by")
+	private String createdBy;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt = Instant.now();
+
+	@Column(name = "heartbeat_at", nullable = false)
+	private Instant heartbeatAt = Instant.now();
+
+	@Column(name = "finished_at")
+	private Instant finishedAt;
+
+	// --- getters/setters ---
+	public Long getId() {
+		return id;
+	}
+
+	public String getStyles() {
+		return styles;
+	}
+
+	public void setStyles(String styles) {
+		this.styles = styles;
+	}
+
+	public boolean isOnlyMissing() {
+		return onlyMissing;
+	}
+
+	public void setOnlyMissing(boolean onlyMissing) {
+		this.onlyMissing = onlyMissing;
+	}
+
+	public AiBackfillStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(AiBackfillStatus status) {
+		this.status = status;
+	}
+
+	public long getLastDiaryId() {
+		return lastDiaryId;
+	}
+
+	public void setLastDiaryId(long lastDiaryId) {
+		this.lastDiaryId = lastDiaryId;
+	}
+
+	public long getMaxDiaryId() {
+		return maxDiaryId;
+	}
+
+	public void setMaxDiaryId(long maxDiaryId) {
+		this.maxDiaryId = maxDiaryId;
+	}
+
+	public long getProcessed() {
+		return processed;
+	}
+
+	public long getSucceeded() {
+		return succeeded;
+	}
+
+	public long getFailed() {
+		return failed;
+	}
+
+	public long getSkipped() {
+		return skipped;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public String getCreatedBy() {
+		return createdBy;
+	}
+
+	public void setCreatedBy(String createdBy) {
+		this.createdBy = createdBy;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public Instant getHeartbeatAt() {
+		return heartbeatAt;
+	}
+
+	public Instant getFinishedAt() {
+		return finishedAt;
+	}
+}
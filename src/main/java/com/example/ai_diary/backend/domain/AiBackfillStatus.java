@@ -0,0 +1,8 @@
+package com.example.ai_diary.backend.domain;
+
+/**
+ * AI一括再生成の状態
+ */
+public enum AiBackfillStatus {
+	RUNNING, DONE, CANCELLED, FAILED
+}
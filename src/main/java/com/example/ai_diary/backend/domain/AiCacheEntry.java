@@ -0,0 +1,77 @@
+package com.example.ai_diary.backend.domain;
+
+import java.time.Instant;
+
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * AI生成結果の永続キャッシュ
+ */
+@Entity
+@Table(name = "ai_cache")
+public class AiCacheEntry {
+
+	@Id
+	@Column(name = "cache_key", length = 64)
+	private String cacheKey;
+
+	@Column(nullable = false, length = 16)
+	private String style;
+
+	@Column(nullable = false, length = 64)
+	private String fingerprint;
+
+	@JdbcTypeCode(SqlTypes.LONGVARCHAR)
+	@Column(nullable = false, columnDefinition = "text")
+	private String output;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt = Instant.now();
+
+	// --- getters/setters ---
+	public String getCacheKey() {
+		return cacheKey;
+	}
+
+	public void setCacheKey(String cacheKey) {
+		this.cacheKey = cacheKey;
+	}
+
+	public String getStyle() {
+		return style;
+	}
+
+	public void setStyle(String style) {
+		this.style = style;
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public void setFingerprint(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	public String getOutput() {
+		return output;
+	}
+
+	public void setOutput(String output) {
+		this.output = output;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.ai_diary.backend.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * AI生成ジョブ
+ * - 日記保存と同一トランザクションで登録し、ワーカーが非同期に処理する
+ */
+@Entity
+@Table(name = "ai_jobs")
+public class AiJob {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "diary_id", nullable = false)
+	private Long diaryId;
+
+	/** スタイルキーのカンマ区切り（例: summary,haiku） */
+	@Column(nullable = false, length = 64)
+	private String styles;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private AiJobStatus status = AiJobStatus.PENDING;
+
+	@Column(nullable = false)
+	private int attempts = 0;
+
+	@Column(name = "next_run_at", nullable = false)
+	private Instant nextRunAt = Instant.now();
+
+	/** 登録時点のユーザーがプレミアムか（優先レーン） */
+	@Column(nullable = false)
+	private boolean premium = false;
+
+	/** 取得順の基準（next_run_at からプレミアムの優遇分を引いた時刻） */
+	@Column(name = "priority_at", nullable = false)
+	private Instant priorityAt = Instant.now();
+
+	@Column(name = "locked_at")
+	private Instant lockedAt;
+
+	@Column(name = "last_error", length = 512)
+	private String lastError;
+
+	@Column(name = "created_at", nullable = false)
+	private Instant createdAt = Instant.now();
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt = Instant.now();
+
+	// --- getters/setters ---
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getDiaryId() {
+		return diaryId;
+	}
+
+	public void setDiaryId(Long diaryId) {
+		this.diaryId = diaryId;
+	}
+
+	public String getStyles() {
+		return styles;
+	}
+
+	public void setStyles(String styles) {
+		this.styles = styles;
+	}
+
+	public AiJobStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(AiJobStatus status) {
+		this.status = status;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public Instant getNextRunAt() {
+		return nextRunAt;
+	}
+
+	public void setNextRunAt(Instant nextRunAt) {
+		this.nextRunAt = nextRunAt;
+	}
+
+	public boolean isPremium() {
+		return premium;
+	}
+
+	public void setPremium(boolean premium) {
+		this.premium = premium;
+	}
+
+	public Instant getPriorityAt() {
+		return priorityAt;
+	}
+
+	public void setPriorityAt(Instant priorityAt) {
+		this.priorityAt = priorityAt;
+	}
+
+	public Instant getLockedAt() {
+		return lockedAt;
+	}
+
+	public void setLockedAt(Instant lockedAt) {
+		this.lockedAt = lockedAt;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(Instant updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+}
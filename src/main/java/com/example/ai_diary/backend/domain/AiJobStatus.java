@@ -0,0 +1,12 @@
+package com.example.ai_diary.backend.domain;
+
+/**
+ * AI生成ジョブの状態
+ */
+public enum AiJobStatus {
+
+	PENDING, // 実行待ち
+	RUNNING, // ワーカーが実行中
+	DONE, // 完了
+	FAILED // リトライ上限に達し失敗
+}
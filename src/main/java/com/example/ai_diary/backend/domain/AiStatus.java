@@ -0,0 +1,14 @@
+package com.example.ai_diary.backend.domain;
+
+/**
+ * 日記ごとのAI生成状態
+ */
+public enum AiStatus {
+
+	NONE, // AI生成の対象外
+	PENDING, // 生成待ち（ジョブ登録済み）
+	DEFERRED, // 利用枠超過のため、枠の補充まで生成を延期（ジョブ登録済み）
+	DONE, // 生成完了
+	FAILED, // リトライ上限に達し失敗
+	SKIPPED // 利用枠超過のため生成しなかった
+}
@@ -0,0 +1,103 @@
+package com.example.ai_diary.backend.domain;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * OpenAI トークン使用量（ユーザー × 日 × スタイル）
+ * - 書き込みは AiUsageRepository.add（加算 UPSERT）のみ
+ */
+@Entity
+@Table(name = "ai_usage")
+@IdClass(AiUsage.Key.class)
+public class AiUsage {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	@Id
+	@Column(name = "usage_date")
+	private LocalDate usageDate;
+
+	@Id
+	@Column(length = 16)
+	private String style;
+
+	@Column(nullable = false)
+	private long requests;
+
+	@Column(name = "prompt_tokens", nullable = false)
+	private long promptTokens;
+
+	@Column(name = "completion_tokens", nullable = false)
+	private long completionTokens;
+
+	@Column(name = "updated_at", nullable = false)
+	private Instant updatedAt;
+
+	// --- getters ---
+	public Long getUserId() {
+		return userId;
+	}
+
+	public LocalDate getUsageDate() {
+		return usageDate;
+	}
+
+	public String getStyle() {
+		return style;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getPromptTokens() {
+		return promptTokens;
+	}
+
+	public long getCompletionTokens() {
+		return completionTokens;
+	}
+
+	public Instant getUpdatedAt() {
+		return updatedAt;
+	}
+
+	/** 複合主キー */
+	public static class Key implements Serializable {
+
+		private Long userId;
+		private LocalDate usageDate;
+		private String style;
+
+		public Key() {
+		}
+
+		public Key(Long userId, LocalDate usageDate, String style) {
+			this.userId = userId;
+			this.usageDate = usageDate;
+			this.style = style;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key k && Objects.equals(userId, k.userId) && Objects.equals(usageDate, k.usageDate)
+					&& Objects.equals(style, k.style);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(userId, usageDate, style);
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.example.ai_diary.backend.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * ユーザーごとの AI 利用枠の残量（トークンバケット）
+ * - 書き込みは AiUserQuotaRepository.save（UPSERT）のみ
+ */
+@Entity
+@Table(name = "ai_user_quota")
+public class AiUserQuota {
+
+	@Id
+	@Column(name = "user_id")
+	private Long userId;
+
+	/** refilledAt 時点の残量（負値は前借り分） */
+	@Column(nullable = false)
+	private double tokens;
+
+	@Column(name = "refilled_at", nullable = false)
+	private Instant refilledAt;
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public double getTokens() {
+		return tokens;
+	}
+
+	public Instant getRefilledAt() {
+		return refilledAt;
+	}
+}
@@ -40,6 +40,10 @@ public class Diary {
 	@Column(name="content_ai", columnDefinition="jsonb")
 	private String contentAi;
 
+	@Enumerated(EnumType.STRING)
+	@Column(name = "ai_status", nullable = false, length = 16)
+	private AiStatus aiStatus = AiStatus.NONE;
+
 	@Column(name = "created_at", nullable = false)
 	private Instant createdAt = Instant.now();
 
@@ -84,6 +88,14 @@ public class Diary {
 		this.contentAi = contentAi;
 	}
 
+	public AiStatus getAiStatus() {
+		return aiStatus;
+	}
+
+	public void setAiStatus(AiStatus aiStatus) {
+		this.aiStatus = aiStatus;
+	}
+
 	public Instant getCreatedAt() {
 		return createdAt;
 	}
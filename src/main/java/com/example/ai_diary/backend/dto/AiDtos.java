@@ -0,0 +1,104 @@
+package com.example.ai_diary.backend.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.example.ai_diary.backend.domain.AiBackfillStatus;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+/**
+ * AI関連DTO
+ */
+public class AiDtos {
+
+	/** トークン使用量（送信） */
+	public static class UsageResponse {
+
+		private LocalDate date;
+		private String style;
+		private long requests;
+		private long promptTokens;
+		private long completionTokens;
+
+		// getters/setters
+        public LocalDate getDate() { return date; }
+        public void setDate(LocalDate date) { this.date = date; }
+        public String getStyle() { return style; }
+        public void setStyle(String style) { this.style = style; }
+        public long getRequests() { return requests; }
+        public void setRequests(long requests) { this.requests = requests; }
+        public long getPromptTokens() { return promptTokens; }
+        public void setPromptTokens(long promptTokens) { this.promptTokens = promptTokens; }
+        public long getCompletionTokens() { return completionTokens; }
+        public void setCompletionTokens(long completionTokens) { this.completionTokens = completionTokens; }
+	}
+
+	/** AI一括再生成の開始（受取） */
+	public static class BackfillRequest {
+
+		@NotEmpty
+		@Size(max = 6)
+		private List<@Pattern(regexp = "(?i)SUMMARY|HAIKU|QUOTE") String> styles;
+		/** true（既定）: 未生成のスタイルのみ / false: すべて再生成 */
+		private boolean onlyMissing = true;
+
+		// getters/setters
+        public List<String> getStyles() { return styles; }
+        public void setStyles(List<String> styles) { this.styles = styles; }
+        public boolean isOnlyMissing() { return onlyMissing; }
+        public void setOnlyMissing(boolean onlyMissing) { this.onlyMissing = onlyMissing; }
+	}
+
+	/** AI一括再生成の状態（送信） */
+	public static class BackfillResponse {
+
+		private Long id;
+		private String styles;
+		private boolean onlyMissing;
+		private AiBackfillStatus status;
+		private long lastDiaryId;
+		private long maxDiaryId;
+		private long processed;
+		private long succeeded;
+		private long failed;
+		private long skipped;
+		private String lastError;
+		private Instant createdAt;
+		private Instant heartbeatAt;
+		private Instant finishedAt;
+
+		// getters/setters
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getStyles() { return styles; }
+        public void setStyles(String styles) { this.styles = styles; }
+        public boolean isOnlyMissing() { return onlyMissing; }
+        public void setOnlyMissing(boolean onlyMissing) { this.onlyMissing = onlyMissing; }
+        public AiBackfillStatus getStatus() { return status; }
+        public void setStatus(AiBackfillStatus status) { this.status = status; }
+        public long getLastDiaryId() { return lastDiaryId; }
+        public void setLastDiaryId(long lastDiaryId) { this.lastDiaryId = lastDiaryId; }
+        public long getMaxDiaryId() { return maxDiaryId; }
+        public void setMaxDiaryId(long maxDiaryId) { this.maxDiaryId = maxDiaryId; }
+        public long getProcessed() { return processed; }
+        public void setProcessed(long processed) { this.processed = processed; }
+        public long getSucceeded() { return succeeded; }
+        public void setSucceeded(long succeeded) { this.succeeded = succeeded; }
+        public long getFailed() { return failed; }
+        public void setFailed(long failed) { this.failed = failed; }
+        public long getSkipped() { return skipped; }
+        public void setSkipped(long skipped) { this.skipped = skipped; }
+        public String getLastError() { return lastError; }
+        public void setLastError(String lastError) { this.lastError = lastError; }
+        public Instant getCreatedAt() { return createdAt; }
+        public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+        public Instant getHeartbeatAt() { return heartbeatAt; }
+        public void setHeartbeatAt(Instant heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+        public Instant getFinishedAt() { return finishedAt; }
+        public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+	}
+}
@@ -3,6 +3,8 @@ package com.example.ai_diary.backend.dto;
 import java.time.Instant;
 import java.util.List;
 
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.domain.Diary;
 import com.example.ai_diary.backend.domain.Visibility;
 
 import jakarta.validation.constraints.NotBlank;
@@ -41,8 +43,22 @@ public class DiaryDtos {
 		private Long userId;
 		private String content;
 		private String contentAi;
+		private AiStatus aiStatus;
 		private Visibility visibility;
 		private Instant createdAt;
+
+		/** エンティティから組み立てる */
+		public static Response from(Diary d) {
+			Response r = new Response();
+			r.setId(d.getId());
+			r.setUserId(d.getUserId());
+			r.setContent(d.getContent());
+			r.setContentAi(d.getContentAi());
+			r.setAiStatus(d.getAiStatus());
+			r.setVisibility(d.getVisibility());
+			r.setCreatedAt(d.getCreatedAt());
+			return r;
+		}
 		
 		// getters/setters
         public Long getId() { return id; }
@@ -53,9 +69,49 @@ public class DiaryDtos {
         public void setContent(String content) { this.content = content; }
         public String getContentAi() { return contentAi; }
         public void setContentAi(String contentAi) { this.contentAi = contentAi; }
+        public AiStatus getAiStatus() { return aiStatus; }
+        public void setAiStatus(AiStatus aiStatus) { this.aiStatus = aiStatus; }
         public Visibility getVisibility() { return visibility; }
         public void setVisibility(Visibility visibility) { this.visibility = visibility; }
         public Instant getCreatedAt() { return createdAt; }
         public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 	}
+
+	/**
+	 * 一覧用の日記（送信）
+	 * - 本文は先頭 preview 文字のみ（全文・AI生成結果は GET /api/diary/{id}）
+	 * - DiaryRepository の射影クエリで直接組み立てる（エンティティは読み込まない）
+	 * @param truncated 本文が preview より長いか
+	 */
+	public record FeedItem(Long id, Long userId, String preview, boolean truncated, AiStatus aiStatus,
+			Visibility visibility, Instant createdAt) {
+
+		/** エンティティから組み立てる（文字数の数え方は SQL の substring / length と同じくコードポイント単位） */
+		public static FeedItem from(Diary d, int previewChars) {
+			String content = d.getContent();
+			boolean truncated = content != null && content.codePointCount(0, content.length()) > previewChars;
+			String preview = truncated ? content.substring(0, content.offsetByCodePoints(0, previewChars)) : content;
+			return new FeedItem(d.getId(), d.getUserId(), preview, truncated, d.getAiStatus(), d.getVisibility(),
+					d.getCreatedAt());
+		}
+	}
+
+	/**
+	 * 公開フィード（カーソル方式。総件数は返さない）
+	 */
+	public static class FeedSlice {
+
+		private List<FeedItem> items;
+		/** 続きのカーソル（最後のページなら null） */
+		private String next;
+		private boolean hasNext;
+
+		// getters/setters
+        public List<FeedItem> getItems() { return items; }
+        public void setItems(List<FeedItem> items) { this.items = items; }
+        public String getNext() { return next; }
+        public void setNext(String next) { this.next = next; }
+        public boolean isHasNext() { return hasNext; }
+        public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+	}
 }
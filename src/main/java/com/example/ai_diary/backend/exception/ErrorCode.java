@@ -13,5 +13,7 @@ public enum ErrorCode {
 	CONFLICT, // リソースの競合
 	METHOD_NOT_ALLOWED, // サポートされていないHTTPメソッドでリクエストされた
 	UNSUPPORTED_MEDIA_TYPE, // サポートされていないリクエスト形式
-	INTERNAL_ERROR // サーバー内部エラー
+	TOO_MANY_REQUESTS, // 短時間の試行回数が多すぎる
+	INTERNAL_ERROR, // サーバー内部エラー
+	SERVICE_UNAVAILABLE // 混雑などで一時的に処理できない
 }
@@ -25,6 +25,12 @@ public class ErrorMessages {
 	public static final String USER_ID_REQUIRED    = "ユーザーIDは必須です。";
     public static final String DIARY_NOT_FOUND = "日記が見つかりません";
     public static final String DIARY_ACCESS_DENIED = "この日記を閲覧する権限がありません";
+    // AI関連
+    public static final String AI_DISABLED = "AI生成は現在利用できません。";
+    public static final String AI_STYLE_INVALID = "AI生成スタイルが不正です: ";
+    public static final String AI_BACKFILL_ALREADY_RUNNING = "AI一括再生成は既に実行中です。";
+    public static final String FEED_CURSOR_INVALID = "カーソルが不正です。";
+    public static final String AI_USAGE_RANGE_INVALID = "集計期間が不正です（from <= to、最大366日）。";
 	
 	// 401 / 403
 	public static final String UNAUTHORIZED = "認証が必要です。";
@@ -40,6 +46,13 @@ public class ErrorMessages {
 	public static final String METHOD_NOT_ALLOWED = "このHTTPメソッドは許可されていません。";
 	public static final String UNSUPPORTED_MEDIA_TYPE = "このContent-Typeはサポートしていません。";
 
+	// 429
+	public static final String LOGIN_THROTTLED = "ログインの失敗が続いたため、しばらくしてから再度お試しください。";
+	public static final String AI_QUOTA_EXCEEDED = "AI生成の利用上限に達しました。しばらくしてから再度お試しください。";
+
 	// 500
 	public static final String INTERNAL_SERVER_ERROR = "サーバ内部でエラーが発生しました。";
+
+	// 503
+	public static final String SERVICE_BUSY = "混雑しています。しばらくしてから再度お試しください。";
 }
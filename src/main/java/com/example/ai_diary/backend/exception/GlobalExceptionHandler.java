@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -19,6 +20,8 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.example.ai_diary.backend.dto.ErrorResponse;
+import com.example.ai_diary.backend.security.LoginThrottledException;
+import com.example.ai_diary.backend.service.AiQuotaExceededException;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
@@ -129,6 +132,36 @@ public class GlobalExceptionHandler {
 				ex.getMessage(), req.getRequestURI(), null);
 	}
 
+	/** 429: ログイン失敗による一時的な待機 */
+	@ExceptionHandler(LoginThrottledException.class)
+	public ResponseEntity<ErrorResponse> handleLoginThrottled(
+			LoginThrottledException ex, HttpServletRequest req) {
+		ResponseEntity<ErrorResponse> res = build(HttpStatus.TOO_MANY_REQUESTS, ErrorCode.TOO_MANY_REQUESTS,
+				ErrorMessages.LOGIN_THROTTLED, req.getRequestURI(), null);
+		return ResponseEntity.status(res.getStatusCode())
+				.header("Retry-After", Long.toString(ex.getRetryAfterSeconds()))
+				.body(res.getBody());
+	}
+
+	/** 429: ユーザーの AI 利用枠の超過 */
+	@ExceptionHandler(AiQuotaExceededException.class)
+	public ResponseEntity<ErrorResponse> handleAiQuotaExceeded(
+			AiQuotaExceededException ex, HttpServletRequest req) {
+		ResponseEntity<ErrorResponse> res = build(HttpStatus.TOO_MANY_REQUESTS, ErrorCode.TOO_MANY_REQUESTS,
+				ErrorMessages.AI_QUOTA_EXCEEDED, req.getRequestURI(), null);
+		return ResponseEntity.status(res.getStatusCode())
+				.header("Retry-After", Long.toString(ex.getRetryAfterSeconds()))
+				.body(res.getBody());
+	}
+
+	/** 503: 処理枠の上限超過（スレッドプール満杯など） */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<ErrorResponse> handleRejectedExecution(
+			RejectedExecutionException ex, HttpServletRequest req) {
+		return build(HttpStatus.SERVICE_UNAVAILABLE, ErrorCode.SERVICE_UNAVAILABLE,
+				ErrorMessages.SERVICE_BUSY, req.getRequestURI(), null);
+	}
+
 	/** 500: 想定外 */
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<ErrorResponse> handleException(
@@ -0,0 +1,62 @@
+package com.example.ai_diary.backend.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ai_diary.backend.domain.AiBackfillRun;
+import com.example.ai_diary.backend.domain.AiBackfillStatus;
+
+public interface AiBackfillRunRepository extends JpaRepository<AiBackfillRun, Long> {
+
+	boolean existsByStatus(AiBackfillStatus status);
+
+	/** 引き継ぎ対象（RUNNING かつ heartbeat が古い） */
+	@Query("SELECT r.id FROM AiBackfillRun r WHERE r.status = com.example.ai_diary.backend.domain.AiBackfillStatus.RUNNING AND r.heartbeatAt < :staleBefore ORDER BY r.id")
+	List<Long> findStale(@Param("staleBefore") Instant staleBefore);
+
+	/**
+	 * 引き継ぎ（heartbeat が古いままの場合のみ成功 = 1件更新）
+	 */
+	@Modifying
+	@Transactional
+	@Query("""
+			UPDATE AiBackfillRun r SET r.heartbeatAt = :now
+			WHERE r.id = :id AND r.status = com.example.ai_diary.backend.domain.AiBackfillStatus.RUNNING AND r.heartbeatAt < :staleBefore
+			""")
+	int takeOver(@Param("id") Long id, @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+	/**
+	 * チャンク完了時のチェックポイント（RUNNING の場合のみ = 取り消し済みなら 0件）
+	 */
+	@Modifying
+	@Transactional
+	@Query("""
+			UPDATE AiBackfillRun r
+			SET r.lastDiaryId = :lastDiaryId,
+			    r.processed = r.processed + :processed,
+			    r.succeeded = r.succeeded + :succeeded,
+			    r.failed = r.failed + :failed,
+			    r.skipped = r.skipped + :skipped,
+			    r.heartbeatAt = :now
+			WHERE r.id = :id AND r.status = com.example.ai_diary.backend.domain.AiBackfillStatus.RUNNING
+			""")
+	int checkpoint(@Param("id") Long id, @Param("lastDiaryId") long lastDiaryId, @Param("processed") long processed,
+			@Param("succeeded") long succeeded, @Param("failed") long failed, @Param("skipped") long skipped,
+			@Param("now") Instant now);
+
+	/** 終了（RUNNING の場合のみ） */
+	@Modifying
+	@Transactional
+	@Query("""
+			UPDATE AiBackfillRun r SET r.status = :status, r.lastError = :lastError, r.finishedAt = :now, r.heartbeatAt = :now
+			WHERE r.id = :id AND r.status = com.example.ai_diary.backend.domain.AiBackfillStatus.RUNNING
+			""")
+	int finish(@Param("id") Long id, @Param("status") AiBackfillStatus status, @Param("lastError") String lastError,
+			@Param("now") Instant now);
+}
@@ -0,0 +1,42 @@
+package com.example.ai_diary.backend.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ai_diary.backend.domain.AiCacheEntry;
+
+public interface AiCacheRepository extends JpaRepository<AiCacheEntry, String> {
+
+	/** 登録（既存キーは上書き） */
+	@Modifying
+	@Transactional
+	@Query(value = """
+			INSERT INTO ai_cache (cache_key, style, fingerprint, output, created_at)
+			VALUES (:key, :style, :fingerprint, :output, NOW())
+			ON CONFLICT (cache_key) DO UPDATE
+			SET output = EXCLUDED.output, created_at = EXCLUDED.created_at
+			""", nativeQuery = true)
+	int upsert(@Param("key") String key, @Param("style") String style, @Param("fingerprint") String fingerprint,
+			@Param("output") String output);
+
+	/** 指定スタイルのうち、現在のプロンプト/モデルと一致しない行を削除 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM AiCacheEntry e WHERE e.style = :style AND e.fingerprint <> :fingerprint")
+	int deleteStale(@Param("style") String style, @Param("fingerprint") String fingerprint);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM AiCacheEntry e WHERE e.style = :style")
+	int deleteByStyle(@Param("style") String style);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM AiCacheEntry e WHERE e.createdAt < :before")
+	int deleteOlderThan(@Param("before") Instant before);
+}
@@ -0,0 +1,84 @@
+package com.example.ai_diary.backend.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.ai_diary.backend.domain.AiJob;
+import com.example.ai_diary.backend.domain.AiJobStatus;
+
+public interface AiJobRepository extends JpaRepository<AiJob, Long> {
+
+	/**
+	 * 実行可能なジョブIDを行ロック付きで取得する
+	 * - 実行待ちで実行時刻を過ぎたもの
+	 * - 実行中のままリース期限切れのもの（ワーカー停止・再起動時の取りこぼし）
+	 * SKIP LOCKED により複数インスタンスでも同じジョブを重複取得しない
+	 * priority_at 順（プレミアムは優遇分だけ前に並ぶ）
+	 */
+	@Query(value = """
+			SELECT id FROM ai_jobs
+			WHERE (status = 'PENDING' AND next_run_at <= :now)
+			   OR (status = 'RUNNING' AND locked_at < :staleBefore)
+			ORDER BY priority_at, id
+			LIMIT :limit
+			FOR UPDATE SKIP LOCKED
+			""", nativeQuery = true)
+	List<Long> lockClaimable(@Param("now") Instant now, @Param("staleBefore") Instant staleBefore,
+			@Param("limit") int limit);
+
+	@Modifying
+	@Query("""
+			UPDATE AiJob j
+			SET j.status = :status, j.lockedAt = :now, j.attempts = j.attempts + 1, j.updatedAt = :now
+			WHERE j.id IN :ids
+			""")
+	int markRunning(@Param("ids") Collection<Long> ids, @Param("status") AiJobStatus status,
+			@Param("now") Instant now);
+
+	/**
+	 * ジョブを完了にする（取得時のリースを保持している場合のみ）
+	 * - リース期限切れで他のワーカーが取り直した場合は locked_at が変わっているため 0件
+	 */
+	@Modifying
+	@Query("""
+			UPDATE AiJob j
+			SET j.status = :done, j.lockedAt = null, j.lastError = null, j.updatedAt = :now
+			WHERE j.id = :id AND j.status = :running AND j.lockedAt = :claimedAt
+			""")
+	int completeIfClaimed(@Param("id") Long id, @Param("claimedAt") Instant claimedAt,
+			@Param("running") AiJobStatus running, @Param("done") AiJobStatus done, @Param("now") Instant now);
+
+	/**
+	 * 失敗したジョブを再実行待ちに戻す（取得時のリースを保持している場合のみ）
+	 */
+	@Modifying
+	@Query("""
+			UPDATE AiJob j
+			SET j.status = :pending, j.lockedAt = null, j.lastError = :error, j.nextRunAt = :nextRunAt,
+			    j.priorityAt = :priorityAt, j.updatedAt = :now
+			WHERE j.id = :id AND j.status = :running AND j.lockedAt = :claimedAt
+			""")
+	int retryIfClaimed(@Param("id") Long id, @Param("claimedAt") Instant claimedAt,
+			@Param("running") AiJobStatus running, @Param("pending") AiJobStatus pending,
+			@Param("error") String error, @Param("nextRunAt") Instant nextRunAt,
+			@Param("priorityAt") Instant priorityAt, @Param("now") Instant now);
+
+	/**
+	 * 再試行の上限に達したジョブを失敗にする（取得時のリースを保持している場合のみ）
+	 */
+	@Modifying
+	@Query("""
+			UPDATE AiJob j
+			SET j.status = :failed, j.lockedAt = null, j.lastError = :error, j.updatedAt = :now
+			WHERE j.id = :id AND j.status = :running AND j.lockedAt = :claimedAt
+			""")
+	int failIfClaimed(@Param("id") Long id, @Param("claimedAt") Instant claimedAt,
+			@Param("running") AiJobStatus running, @Param("failed") AiJobStatus failed,
+			@Param("error") String error, @Param("now") Instant now);
+}
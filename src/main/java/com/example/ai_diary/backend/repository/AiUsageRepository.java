@@ -0,0 +1,35 @@
+package com.example.ai_diary.backend.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ai_diary.backend.domain.AiUsage;
+
+public interface AiUsageRepository extends JpaRepository<AiUsage, AiUsage.Key> {
+
+	/** 使用量を加算（行が無ければ作成） */
+	@Modifying
+	@Transactional
+	@Query(value = """
+			INSERT INTO ai_usage (user_id, usage_date, style, requests, prompt_tokens, completion_tokens, updated_at)
+			VALUES (:userId, :usageDate, :style, :requests, :promptTokens, :completionTokens, NOW())
+			ON CONFLICT (user_id, usage_date, style) DO UPDATE
+			SET requests = ai_usage.requests + EXCLUDED.requests,
+			    prompt_tokens = ai_usage.prompt_tokens + EXCLUDED.prompt_tokens,
+			    completion_tokens = ai_usage.completion_tokens + EXCLUDED.completion_tokens,
+			    updated_at = EXCLUDED.updated_at
+			""", nativeQuery = true)
+	int add(@Param("userId") Long userId, @Param("usageDate") LocalDate usageDate, @Param("style") String style,
+			@Param("requests") long requests, @Param("promptTokens") long promptTokens,
+			@Param("completionTokens") long completionTokens);
+
+	/** 期間内の使用量（新しい日付順） */
+	List<AiUsage> findByUserIdAndUsageDateBetweenOrderByUsageDateDescStyleAsc(Long userId, LocalDate from,
+			LocalDate to);
+}
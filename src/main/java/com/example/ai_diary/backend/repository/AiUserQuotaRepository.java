@@ -0,0 +1,26 @@
+package com.example.ai_diary.backend.repository;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ai_diary.backend.domain.AiUserQuota;
+
+public interface AiUserQuotaRepository extends JpaRepository<AiUserQuota, Long> {
+
+	/** 残量を書き込む（行が無ければ作成） */
+	@Modifying
+	@Transactional
+	@Query(value = """
+			INSERT INTO ai_user_quota (user_id, tokens, refilled_at)
+			VALUES (:userId, :tokens, :refilledAt)
+			ON CONFLICT (user_id) DO UPDATE
+			SET tokens = EXCLUDED.tokens,
+			    refilled_at = EXCLUDED.refilled_at
+			""", nativeQuery = true)
+	int upsert(@Param("userId") Long userId, @Param("tokens") double tokens, @Param("refilledAt") Instant refilledAt);
+}
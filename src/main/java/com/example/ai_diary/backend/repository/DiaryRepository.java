@@ -1,17 +1,102 @@
 package com.example.ai_diary.backend.repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.ai_diary.backend.domain.AiStatus;
 import com.example.ai_diary.backend.domain.Diary;
 import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
 
 public interface DiaryRepository extends JpaRepository<Diary, Long> {
 
+	/** 一覧用の射影（本文は先頭 :previewChars 文字） */
+	String FEED_ITEM = """
+			SELECT new com.example.ai_diary.backend.dto.DiaryDtos$FeedItem(
+			    d.id, d.userId, substring(d.content, 1, :previewChars),
+			    CASE WHEN length(d.content) > :previewChars THEN true ELSE false END,
+			    d.aiStatus, d.visibility, d.createdAt)
+			FROM Diary d
+			""";
+
 	Page<Diary> findByVisibilityOrderByCreatedAtDesc(Visibility visibility, Pageable pageable);
 
 	Optional<Diary> findById(Long id);
+
+	/** 公開範囲ごとの件数（フィード先頭キャッシュの総件数） */
+	long countByVisibility(Visibility visibility);
+
+	/**
+	 * フィード一覧（OFFSET 方式）
+	 * - 一覧に必要な列と本文の先頭 previewChars 文字だけを選び、DTO に直接詰める
+	 *   （content 全文・content_ai を転送せず、エンティティを永続化コンテキストに載せないため変更検知の対象にもならない）
+	 */
+	@Query(value = FEED_ITEM + """
+			WHERE d.visibility = :visibility
+			ORDER BY d.createdAt DESC
+			""", countQuery = "SELECT count(d) FROM Diary d WHERE d.visibility = :visibility")
+	Page<FeedItem> findFeedItems(@Param("visibility") Visibility visibility,
+			@Param("previewChars") int previewChars, Pageable pageable);
+
+	/**
+	 * フィード一覧の先頭（作成日時・ID の降順。件数を数えない）
+	 */
+	@Query(FEED_ITEM + """
+			WHERE d.visibility = :visibility
+			ORDER BY d.createdAt DESC, d.id DESC
+			""")
+	List<FeedItem> findFeedItemsHead(@Param("visibility") Visibility visibility,
+			@Param("previewChars") int previewChars, Limit limit);
+
+	/**
+	 * フィード一覧の続き（カーソルの行より後ろ）
+	 * - (created_at, id) の行比較で索引 idx_diaries_visibility_created_at_id を範囲走査する（OFFSET なし）
+	 */
+	@Query(FEED_ITEM + """
+			WHERE d.visibility = :visibility
+			  AND (d.createdAt, d.id) < (:createdAt, :id)
+			ORDER BY d.createdAt DESC, d.id DESC
+			""")
+	List<FeedItem> findFeedItemsAfter(@Param("visibility") Visibility visibility, @Param("createdAt") Instant createdAt,
+			@Param("id") long id, @Param("previewChars") int previewChars, Limit limit);
+
+	/**
+	 * AI生成結果（JSONオブジェクト）を既存の content_ai にマージする（本文はロードしない）
+	 * - 同じキーは上書き、それ以外のキーは残す
+	 */
+	@Modifying
+	@Query(value = """
+			UPDATE diaries
+			SET content_ai = COALESCE(content_ai::jsonb, '{}'::jsonb) || CAST(:contentAi AS jsonb),
+			    ai_status = :#{#aiStatus.name()}
+			WHERE id = :id
+			""", nativeQuery = true)
+	int updateAi(@Param("id") Long id, @Param("contentAi") String contentAi, @Param("aiStatus") AiStatus aiStatus);
+
+	/**
+	 * 1スタイル分の生成結果を content_ai にマージする
+	 * - 生成待ちのジョブがある場合は状態を変えない
+	 */
+	@Modifying
+	@Query(value = """
+			UPDATE diaries
+			SET content_ai = COALESCE(content_ai::jsonb, '{}'::jsonb) || jsonb_build_object(CAST(:key AS text), CAST(:value AS text)),
+			    ai_status = CASE WHEN ai_status IN ('PENDING', 'DEFERRED') THEN ai_status ELSE 'DONE' END
+			WHERE id = :id
+			""", nativeQuery = true)
+	int mergeAiValue(@Param("id") Long id, @Param("key") String key, @Param("value") String value);
+
+	/** AI生成状態のみ更新 */
+	@Modifying
+	@Query("UPDATE Diary d SET d.aiStatus = :aiStatus WHERE d.id = :id")
+	int updateAiStatus(@Param("id") Long id, @Param("aiStatus") AiStatus aiStatus);
 }
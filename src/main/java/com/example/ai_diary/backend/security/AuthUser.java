@@ -0,0 +1,34 @@
+package com.example.ai_diary.backend.security;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * JWT 認証で確定したユーザー（認証時に1回だけ作り、コントローラにはそのまま渡す）
+ * - パスワードは持たない
+ * @param id ユーザーID
+ * @param email メールアドレス（ユーザー名）
+ * @param premium プレミアム会員か
+ * @param authorities 権限
+ */
+public record AuthUser(long id, String email, boolean premium, List<GrantedAuthority> authorities)
+		implements UserDetails {
+
+	@Override
+	public Collection<? extends GrantedAuthority> getAuthorities() {
+		return authorities;
+	}
+
+	@Override
+	public String getPassword() {
+		return "";
+	}
+
+	@Override
+	public String getUsername() {
+		return email;
+	}
+}
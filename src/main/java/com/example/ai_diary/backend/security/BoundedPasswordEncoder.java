@@ -0,0 +1,76 @@
+package com.example.ai_diary.backend.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * BCrypt のハッシュ計算を専用の有界スレッドプールで行う PasswordEncoder
+ * - 同時に計算するのは threads 件まで。ログインが集中しても他の API の CPU を奪い尽くさない
+ * - 待ち行列（max-queue）が満杯なら RejectedExecutionException（503）で即座に断る
+ * - 保存済みハッシュのコストが strength より低ければ upgradeEncoding が true（ログイン時に再ハッシュされる）
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+	private final PasswordEncoder delegate;
+	private final ThreadPoolExecutor executor;
+
+	public BoundedPasswordEncoder(int strength, int threads, int maxQueue) {
+		this(new BCryptPasswordEncoder(strength), threads, maxQueue);
+	}
+
+	BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int maxQueue) {
+		this.delegate = delegate;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxQueue), new CustomizableThreadFactory("bcrypt-"));
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return call(() -> delegate.encode(rawPassword));
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return call(() -> delegate.matches(rawPassword, encodedPassword));
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/** 計算中と待ち行列の件数 */
+	public int pending() {
+		return executor.getActiveCount() + executor.getQueue().size();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	/**
+	 * プールで実行して結果を待つ（満杯なら RejectedExecutionException）
+	 */
+	private <T> T call(Callable<T> task) {
+		try {
+			return executor.submit(task).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while hashing password", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+}
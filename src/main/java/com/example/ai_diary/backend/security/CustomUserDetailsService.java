@@ -1,23 +1,67 @@
 package com.example.ai_diary.backend.security;
 
+import java.time.Duration;
 import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.ai_diary.backend.domain.User;
 import com.example.ai_diary.backend.exception.ErrorMessages;
 import com.example.ai_diary.backend.repository.UserRepository;
+import com.example.ai_diary.backend.util.EmailNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * ユーザー情報の取得
+ * - ログイン時（メールアドレス）はパスワードハッシュ付きで毎回 DB から読む
+ * - JWT 認証時（ユーザーID）は AuthUser を件数上限・有効期限付きでキャッシュする
+ *   （権限・プレミアムの変更や削除の反映は最大 ttl-ms 遅れる）
+ * - ログイン成功時に保存済みハッシュのコストが古ければ、Spring Security が updatePassword で再ハッシュを保存する
+ */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+	/** 管理者権限 */
+	public static final String ROLE_ADMIN = "ROLE_ADMIN";
 
 	private final UserRepository userRepository;
 
-	public CustomUserDetailsService(UserRepository userRepository) {
+	/** 管理者のメールアドレス（正規化済み） */
+	private final Set<String> adminEmails;
+
+	/** ユーザーID → 認証情報 */
+	private final Cache<Long, AuthUser> principals;
+
+	public CustomUserDetailsService(UserRepository userRepository, MeterRegistry registry,
+			@Value("${security.admin-emails:}") List<String> adminEmails,
+			@Value("${security.principal-cache.max-size:10000}") long maxSize,
+			@Value("${security.principal-cache.ttl-ms:300000}") long ttlMs) {
 		this.userRepository = userRepository;
+		this.adminEmails = adminEmails.stream()
+				.map(EmailNormalizer::normalize)
+				.filter(e -> e != null && !e.isEmpty())
+				.collect(Collectors.toUnmodifiableSet());
+		this.principals = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofMillis(ttlMs))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(registry, principals, "auth.principal");
 	}
 
 	@Override
@@ -26,6 +70,57 @@ public class CustomUserDetailsService implements UserDetailsService {
 				.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.USER_NOT_FOUND + email));
 
 		return new org.springframework.security.core.userdetails.User(
-				user.getEmail(), user.getPasswordHash(), Collections.emptyList());
+				user.getEmail(), user.getPasswordHash(), authorities(user));
+	}
+
+	/**
+	 * 再ハッシュしたパスワードを保存する
+	 */
+	@Override
+	@Transactional
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		User entity = userRepository.findByEmail(user.getUsername())
+				.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.USER_NOT_FOUND + user.getUsername()));
+		entity.setPasswordHash(newPassword);
+		userRepository.save(entity);
+		evict(entity.getId());
+		return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+	}
+
+	/**
+	 * JWT 認証用の認証情報（キャッシュ優先）
+	 */
+	public AuthUser loadUserById(long userId) throws UsernameNotFoundException {
+		return principals.get(userId, id -> toAuthUser(userRepository.findById(id)
+				.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.USER_NOT_FOUND + id))));
+	}
+
+	/**
+	 * uid を持たない旧形式のトークン用（メールアドレスで検索し、結果はキャッシュにも入れる）
+	 */
+	public AuthUser loadAuthUserByEmail(String email) throws UsernameNotFoundException {
+		AuthUser user = toAuthUser(userRepository.findByEmail(email)
+				.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.USER_NOT_FOUND + email)));
+		principals.put(user.id(), user);
+		return user;
+	}
+
+	/**
+	 * キャッシュした認証情報を破棄する（ユーザー情報の変更時）
+	 * - パスワード・権限・プレミアム・有効状態を変更する処理から呼ぶ（updatePassword は呼び出し済み）
+	 * - アプリ外（DB を直接更新）での変更は最大 ttl-ms 遅れて反映される
+	 */
+	public void evict(long userId) {
+		principals.invalidate(userId);
+	}
+
+	private AuthUser toAuthUser(User user) {
+		return new AuthUser(user.getId(), user.getEmail(), user.isPremiumFlag(), authorities(user));
+	}
+
+	private List<GrantedAuthority> authorities(User user) {
+		return adminEmails.contains(EmailNormalizer.normalize(user.getEmail()))
+				? List.of(new SimpleGrantedAuthority(ROLE_ADMIN))
+				: Collections.emptyList();
 	}
 }
@@ -4,17 +4,24 @@ import java.io.IOException;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+/**
+ * Bearer トークンによる認証
+ * - トークンの解析・検証は1回だけ行う
+ * - uid 付きのトークンはキャッシュした認証情報（AuthUser）を使い、通常は DB を参照しない
+ *   （uid の無い旧形式のトークンはメールアドレスで検索する）
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -43,11 +50,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			token = header.substring(TOKEN_PREFIX_LENGTH);
 		}
 
-		if (token != null && jwtUtil.validate(token)
-				&& SecurityContextHolder.getContext().getAuthentication() == null) {
-			String email = jwtUtil.extractSubject(token);
-			UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+		Claims claims = token != null && SecurityContextHolder.getContext().getAuthentication() == null
+				? jwtUtil.verify(token)
+				: null;
+		AuthUser userDetails = claims != null ? load(claims) : null;
 
+		if (userDetails != null) {
 			var authorities = userDetails.getAuthorities();
 
 			// 認証済みトークンを生成
@@ -64,4 +72,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		}
 		chain.doFilter(request, response);
 	}
+
+	/**
+	 * トークンのユーザー（削除済みなら null で未認証のまま）
+	 */
+	private AuthUser load(Claims claims) {
+		try {
+			Long userId = JwtUtil.userId(claims);
+			return userId != null
+					? userDetailsService.loadUserById(userId)
+					: userDetailsService.loadAuthUserByEmail(claims.getSubject());
+		} catch (UsernameNotFoundException e) {
+			return null;
+		}
+	}
 }
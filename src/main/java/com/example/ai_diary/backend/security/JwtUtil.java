@@ -6,44 +6,81 @@ import java.util.Date;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * JWT の発行と検証
+ * - パーサーは起動時に1つだけ作り、全リクエストで使い回す（スレッドセーフ）
+ * - ユーザーIDを uid クレームに持たせ、認証時にメールアドレスでの検索を不要にする
+ */
 @Component
 public class JwtUtil {
 
+	/** ユーザーIDのクレーム名 */
+	public static final String CLAIM_USER_ID = "uid";
+
 	private final Key key;
 	private final long expirationMs; // 有効期限ミリ秒
+	private final JwtParser parser;
 
 	public JwtUtil(@Value("${security.jwt.secret}")String secret,
 			@Value("${security.jwt.expiration-ms}")long expirationMs) {
 		this.key = Keys.hmacShaKeyFor(secret.getBytes());
 		this.expirationMs = expirationMs;
+		this.parser = Jwts.parserBuilder().setSigningKey(key).build();
 	}
 
 	public String generateToken(String subject) {
-		long now = System.currentTimeMillis();
-		return Jwts.builder()
-				.setSubject(subject)
-				.setIssuedAt(new Date(now))
-				.setExpiration(new Date(now + expirationMs))
-				.signWith(key, SignatureAlgorithm.HS256)
-				.compact();
+		return builder(subject).compact();
+	}
+
+	/**
+	 * ユーザーID付きのトークンを発行する
+	 */
+	public String generateToken(String subject, long userId) {
+		return builder(subject).claim(CLAIM_USER_ID, userId).compact();
 	}
 
 	public String extractSubject(String token) {
-		return Jwts.parserBuilder().setSigningKey(key).build()
-				.parseClaimsJws(token).getBody().getSubject();
+		return parser.parseClaimsJws(token).getBody().getSubject();
 	}
 
 	public boolean validate(String token) {
+		return verify(token) != null;
+	}
+
+	/**
+	 * 署名・期限を検証してクレームを返す（不正なトークンは null）
+	 * - 1回の解析で検証と値の取り出しを済ませる
+	 */
+	public Claims verify(String token) {
 		try {
-			Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-			return true;
+			return parser.parseClaimsJws(token).getBody();
 		} catch (JwtException | IllegalArgumentException e) {
-			return false;
+			return null;
 		}
 	}
+
+	/**
+	 * クレームのユーザーID（uid を持たない旧形式のトークンは null）
+	 */
+	public static Long userId(Claims claims) {
+		Object uid = claims.get(CLAIM_USER_ID);
+		return uid instanceof Number n ? n.longValue() : null;
+	}
+
+	private JwtBuilder builder(String subject) {
+		long now = System.currentTimeMillis();
+		return Jwts.builder()
+				.setSubject(subject)
+				.setIssuedAt(new Date(now))
+				.setExpiration(new Date(now + expirationMs))
+				.signWith(key, SignatureAlgorithm.HS256);
+	}
 }
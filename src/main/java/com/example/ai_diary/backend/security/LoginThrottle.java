@@ -0,0 +1,112 @@
+package com.example.ai_diary.backend.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.util.EmailNormalizer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ログイン失敗によるアカウント別・IP 別の待機（指数バックオフ）
+ * - 無料の失敗回数を超えると backoff-base-ms から倍々で待たせる（最大 backoff-max-ms）
+ * - 状態はメモリ上の有界の表（max-keys 件、最後の失敗から ttl-ms で消える）
+ * - 成功するとアカウント側の記録を消す（IP 側は別アカウントへの総当たり対策として残す）
+ */
+@Component
+public class LoginThrottle {
+
+	/** 1キー分の記録（this で排他） */
+	private static final class Attempts {
+		int failures;
+		long lockedUntil;
+	}
+
+	private final Cache<String, Attempts> table;
+	private final int accountFreeAttempts;
+	private final int ipFreeAttempts;
+	private final long baseMs;
+	private final long maxMs;
+
+	public LoginThrottle(@Value("${security.login.max-keys:100000}") long maxKeys,
+			@Value("${security.login.ttl-ms:3600000}") long ttlMs,
+			@Value("${security.login.account-free-attempts:5}") int accountFreeAttempts,
+			@Value("${security.login.ip-free-attempts:20}") int ipFreeAttempts,
+			@Value("${security.login.backoff-base-ms:1000}") long baseMs,
+			@Value("${security.login.backoff-max-ms:900000}") long maxMs) {
+		this.table = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterWrite(Duration.ofMillis(ttlMs))
+				.build();
+		this.accountFreeAttempts = accountFreeAttempts;
+		this.ipFreeAttempts = ipFreeAttempts;
+		this.baseMs = baseMs;
+		this.maxMs = maxMs;
+	}
+
+	/**
+	 * 待機中なら LoginThrottledException
+	 */
+	public void check(String email, String ip) {
+		check(email, ip, System.currentTimeMillis());
+	}
+
+	void check(String email, String ip, long now) {
+		long waitMs = Math.max(waitMs(accountKey(email), now), waitMs(ipKey(ip), now));
+		if (waitMs > 0) {
+			throw new LoginThrottledException(Math.max(1, (waitMs + 999) / 1000));
+		}
+	}
+
+	/** 失敗を記録する */
+	public void onFailure(String email, String ip) {
+		onFailure(email, ip, System.currentTimeMillis());
+	}
+
+	void onFailure(String email, String ip, long now) {
+		bump(accountKey(email), accountFreeAttempts, now);
+		bump(ipKey(ip), ipFreeAttempts, now);
+	}
+
+	/** 成功したアカウントの記録を消す */
+	public void onSuccess(String email) {
+		table.invalidate(accountKey(email));
+	}
+
+	private long waitMs(String key, long now) {
+		Attempts a = table.getIfPresent(key);
+		if (a == null) {
+			return 0;
+		}
+		synchronized (a) {
+			return Math.max(0, a.lockedUntil - now);
+		}
+	}
+
+	private void bump(String key, int freeAttempts, long now) {
+		// compute で書き込み時刻（ttl の起点）も更新する
+		table.asMap().compute(key, (k, a) -> {
+			Attempts cur = a != null ? a : new Attempts();
+			synchronized (cur) {
+				cur.failures++;
+				int over = cur.failures - freeAttempts;
+				if (over >= 0) {
+					long delayMs = Math.min(maxMs, baseMs << Math.min(over, 30));
+					cur.lockedUntil = Math.max(cur.lockedUntil, now + delayMs);
+				}
+			}
+			return cur;
+		});
+	}
+
+	private static String accountKey(String email) {
+		String norm = EmailNormalizer.normalize(email);
+		return "a:" + (norm != null ? norm : "");
+	}
+
+	private static String ipKey(String ip) {
+		return "ip:" + ip;
+	}
+}
@@ -0,0 +1,17 @@
+package com.example.ai_diary.backend.security;
+
+/**
+ * ログイン失敗が続いたため一時的に受け付けない場合の例外クラス（429 として扱う）
+ */
+public class LoginThrottledException extends RuntimeException {
+
+	/** 再試行できるまでの秒数 */
+	private final long retryAfterSeconds;
+
+	public LoginThrottledException(long retryAfterSeconds) {
+		super("Too many failed login attempts");
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
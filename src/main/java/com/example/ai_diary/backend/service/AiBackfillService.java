@@ -0,0 +1,371 @@
+package com.example.ai_diary.backend.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.example.ai_diary.backend.ai.AiStyle;
+import com.example.ai_diary.backend.ai.AiTransformService;
+import com.example.ai_diary.backend.ai.TokenEstimator;
+import com.example.ai_diary.backend.config.AiInputProperties;
+import com.example.ai_diary.backend.domain.AiBackfillRun;
+import com.example.ai_diary.backend.domain.AiBackfillStatus;
+import com.example.ai_diary.backend.exception.ErrorMessages;
+import com.example.ai_diary.backend.repository.AiBackfillRunRepository;
+import com.example.ai_diary.backend.util.TokenBucket;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * 既存日記の content_ai 一括再生成（管理者操作）
+ * - diaries を id のキーセットでチャンクごとに読み、生成結果はバッチ UPDATE で書き戻す
+ * - 読み込み・書き込みとも自動コミットの短い文のみで、OpenAI 呼び出し中にトランザクションを保持しない
+ * - 全ノード共通ではなく実行ノード単位の tokens/分 で流量を絞る（同時に実行できるのは1件のみ）
+ * - チャンクごとに ai_backfill_runs へチェックポイントし、停止・障害後は続きから再開する
+ */
+@Service
+public class AiBackfillService {
+
+	private static final Logger log = LoggerFactory.getLogger(AiBackfillService.class);
+
+	/** エラーメッセージの最大長（last_error列の長さ） */
+	private static final int MAX_ERROR_LENGTH = 512;
+
+	private static final String SELECT_CHUNK = """
+			SELECT id, user_id, content, content_ai, ai_status
+			FROM diaries
+			WHERE id > ? AND id <= ?
+			ORDER BY id
+			LIMIT ?
+			""";
+
+	private static final String COUNT_REMAINING = "SELECT COUNT(*) FROM diaries WHERE id > ? AND id <= ?";
+
+	/** 生成結果のマージ（ジョブ処理中の日記は状態を変えない） */
+	private static final String MERGE_AI = """
+			UPDATE diaries
+			SET content_ai = COALESCE(content_ai::jsonb, '{}'::jsonb) || CAST(? AS jsonb),
+			    ai_status = CASE WHEN ai_status IN ('PENDING', 'DEFERRED') THEN ai_status ELSE 'DONE' END
+			WHERE id = ?
+			""";
+
+	private record Row(long id, long userId, String content, String contentAi, String aiStatus) {
+	}
+
+	private final AiBackfillRunRepository runRepository;
+	private final JdbcTemplate jdbc;
+	private final AiTransformService aiTransformService;
+	private final AiInputProperties inputProperties;
+	private final ObjectMapper mapper;
+
+	private final int chunkSize;
+	private final long leaseMs;
+	private final long pauseMs;
+	private final int expectedCompletionTokens;
+	private final TokenBucket throttle;
+
+	/** チャンクを読み進めるスレッド（1件のみ） */
+	private final ExecutorService runner = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("ai-backfill-"));
+	/** 1チャンク内の日記を並行生成するスレッド */
+	private final ThreadPoolExecutor workers;
+
+	/** 実行中の run id（無ければ null） */
+	private final AtomicReference<Long> activeRunId = new AtomicReference<>();
+
+	// --- 進捗メトリクス ---
+	private final AtomicLong lastDiaryId = new AtomicLong();
+	private final AtomicLong remaining = new AtomicLong();
+	private final Counter succeededCounter;
+	private final Counter failedCounter;
+	private final Counter skippedCounter;
+
+	public AiBackfillService(AiBackfillRunRepository runRepository, JdbcTemplate jdbc,
+			AiTransformService aiTransformService, AiInputProperties inputProperties, ObjectMapper mapper,
+			MeterRegistry registry,
+			@Value("${ai.backfill.chunk-size:50}") int chunkSize,
+			@Value("${ai.backfill.concurrency:4}") int concurrency,
+			@Value("${ai.backfill.tokens-per-minute:60000}") long tokensPerMinute,
+			@Value("${ai.backfill.expected-completion-tokens:150}") int expectedCompletionTokens,
+			@Value("${ai.backfill.lease-ms:300000}") long leaseMs,
+			@Value("${ai.backfill.pause-ms:5000}") long pauseMs) {
+		this.runRepository = runRepository;
+		this.jdbc = jdbc;
+		this.aiTransformService = aiTransformService;
+		this.inputProperties = inputProperties;
+		this.mapper = mapper;
+		this.chunkSize = chunkSize;
+		this.leaseMs = leaseMs;
+		this.pauseMs = pauseMs;
+		this.expectedCompletionTokens = expectedCompletionTokens;
+		this.throttle = new TokenBucket(tokensPerMinute, tokensPerMinute);
+		this.workers = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(chunkSize), new CustomizableThreadFactory("ai-backfill-worker-"),
+				new ThreadPoolExecutor.CallerRunsPolicy());
+
+		Gauge.builder("ai.backfill.running", activeRunId, r -> r.get() == null ? 0 : 1).register(registry);
+		Gauge.builder("ai.backfill.last-diary-id", lastDiaryId, AtomicLong::get).register(registry);
+		Gauge.builder("ai.backfill.remaining", remaining, AtomicLong::get)
+				.description("Diaries left in the current backfill run").register(registry);
+		this.succeededCounter = Counter.builder("ai.backfill.diaries").tag("result", "succeeded").register(registry);
+		this.failedCounter = Counter.builder("ai.backfill.diaries").tag("result", "failed").register(registry);
+		this.skippedCounter = Counter.builder("ai.backfill.diaries").tag("result", "skipped").register(registry);
+	}
+
+	/**
+	 * 一括再生成を開始する
+	 * @param onlyMissing true: 指定スタイルが未生成の日記のみ / false: すべて再生成
+	 */
+	public AiBackfillRun start(List<String> styleKeys, boolean onlyMissing, String createdBy) {
+
+		if (!aiTransformService.isEnabled()) {
+			throw new IllegalArgumentException(ErrorMessages.AI_DISABLED);
+		}
+		List<AiStyle> styles = AiStyle.fromAll(styleKeys);
+		if (styles.isEmpty()) {
+			throw new IllegalArgumentException(ErrorMessages.AI_STYLE_INVALID + styleKeys);
+		}
+		if (runRepository.existsByStatus(AiBackfillStatus.RUNNING)) {
+			throw new IllegalArgumentException(ErrorMessages.AI_BACKFILL_ALREADY_RUNNING);
+		}
+
+		AiBackfillRun run = new AiBackfillRun();
+		run.setStyles(styles.stream().map(AiStyle::key).collect(Collectors.joining(",")));
+		run.setOnlyMissing(onlyMissing);
+		run.setMaxDiaryId(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM diaries", Long.class));
+		run.setCreatedBy(createdBy);
+		run = runRepository.save(run);
+
+		launch(run.getId());
+		return run;
+	}
+
+	/** 実行状態 */
+	public Optional<AiBackfillRun> find(Long id) {
+		return runRepository.findById(id);
+	}
+
+	/**
+	 * 取り消し（処理中のチャンクの完了後に停止する）
+	 */
+	public boolean cancel(Long id) {
+		return runRepository.finish(id, AiBackfillStatus.CANCELLED, null, Instant.now()) > 0;
+	}
+
+	/**
+	 * 中断された実行の引き継ぎ（起動時・定期）
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${ai.backfill.resume-check-ms:60000}", initialDelayString = "${ai.backfill.resume-check-ms:60000}")
+	public void resumeStale() {
+		if (activeRunId.get() != null) {
+			return;
+		}
+		try {
+			Instant now = Instant.now();
+			Instant staleBefore = now.minusMillis(leaseMs);
+			for (Long id : runRepository.findStale(staleBefore)) {
+				if (runRepository.takeOver(id, now, staleBefore) == 1) {
+					log.info("Resuming AI backfill run id={}", id);
+					launch(id);
+					return;
+				}
+			}
+		} catch (Exception e) {
+			log.warn("AI backfill resume check failed: {}", e.toString());
+		}
+	}
+
+	private void launch(Long id) {
+		if (!activeRunId.compareAndSet(null, id)) {
+			return;
+		}
+		runner.execute(() -> {
+			try {
+				run(id);
+			} finally {
+				activeRunId.set(null);
+			}
+		});
+	}
+
+	/**
+	 * チャンク単位の処理ループ
+	 */
+	void run(Long id) {
+		try {
+			AiBackfillRun r = runRepository.findById(id).orElseThrow();
+			List<AiStyle> styles = AiStyle.fromAll(List.of(r.getStyles().split(",")));
+			long last = r.getLastDiaryId();
+			long max = r.getMaxDiaryId();
+
+			// 残件数は開始（再開）時に1度だけ数え、以降はチャンクの件数を差し引く（途中の削除分は終了時に 0 に戻る）
+			lastDiaryId.set(last);
+			remaining.set(jdbc.queryForObject(COUNT_REMAINING, Long.class, last, max));
+
+			while (true) {
+				lastDiaryId.set(last);
+
+				// サーキット OPEN 中などは待機（heartbeat のみ更新）
+				if (!aiTransformService.isAvailable()) {
+					if (runRepository.checkpoint(id, last, 0, 0, 0, 0, Instant.now()) == 0) {
+						return;
+					}
+					TimeUnit.MILLISECONDS.sleep(pauseMs);
+					continue;
+				}
+
+				List<Row> rows = jdbc.query(SELECT_CHUNK, (rs, i) -> new Row(rs.getLong("id"), rs.getLong("user_id"),
+						rs.getString("content"), rs.getString("content_ai"), rs.getString("ai_status")),
+						last, max, chunkSize);
+
+				if (rows.isEmpty()) {
+					runRepository.finish(id, AiBackfillStatus.DONE, null, Instant.now());
+					remaining.set(0);
+					log.info("AI backfill run id={} finished", id);
+					return;
+				}
+
+				int[] counts = processChunk(rows, styles, r.isOnlyMissing());
+				last = rows.get(rows.size() - 1).id();
+				long done = rows.size();
+				remaining.updateAndGet(n -> Math.max(0, n - done));
+
+				// 取り消し済みなら 0件
+				if (runRepository.checkpoint(id, last, rows.size(), counts[0], counts[1], counts[2],
+						Instant.now()) == 0) {
+					log.info("AI backfill run id={} cancelled at diaryId={}", id, last);
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			// 停止時は RUNNING のまま残し、再起動後に続きから再開する
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.warn("AI backfill run id={} failed: {}", id, e.toString());
+			runRepository.finish(id, AiBackfillStatus.FAILED, truncate(e.toString()), Instant.now());
+		}
+	}
+
+	/**
+	 * 1チャンク分の生成と書き戻し
+	 * @return [成功, 失敗, スキップ]
+	 */
+	private int[] processChunk(List<Row> rows, List<AiStyle> styles, boolean onlyMissing)
+			throws InterruptedException {
+
+		int skipped = 0;
+		List<Long> ids = new ArrayList<>();
+		List<Future<String>> futures = new ArrayList<>();
+
+		for (Row row : rows) {
+			List<AiStyle> targets = targets(row, styles, onlyMissing);
+			if (targets.isEmpty()) {
+				skipped++;
+				continue;
+			}
+
+			throttle.acquire(estimateTokens(row.content(), targets));
+
+			List<String> keys = targets.stream().map(AiStyle::key).toList();
+			ids.add(row.id());
+			futures.add(workers.submit(() -> aiTransformService.transformToJson(row.userId(), row.content(), keys)));
+		}
+
+		int failed = 0;
+		List<Object[]> updates = new ArrayList<>();
+		for (int i = 0; i < futures.size(); i++) {
+			String json = null;
+			try {
+				json = aiTransformService.withoutNulls(futures.get(i).get());
+			} catch (ExecutionException e) {
+				log.debug("AI backfill failed diaryId={}: {}", ids.get(i), e.getCause().toString());
+			}
+			if (json == null) {
+				failed++;
+			} else {
+				updates.add(new Object[] { json, ids.get(i) });
+			}
+		}
+
+		if (!updates.isEmpty()) {
+			jdbc.batchUpdate(MERGE_AI, updates);
+		}
+
+		succeededCounter.increment(updates.size());
+		failedCounter.increment(failed);
+		skippedCounter.increment(skipped);
+		return new int[] { updates.size(), failed, skipped };
+	}
+
+	/**
+	 * 生成対象のスタイル
+	 * - ジョブ処理待ちの日記は対象外（ジョブ側で生成される）
+	 * - onlyMissing の場合、既に値があるスタイルは除く
+	 */
+	private List<AiStyle> targets(Row row, List<AiStyle> styles, boolean onlyMissing) {
+
+		if ("PENDING".equals(row.aiStatus()) || "DEFERRED".equals(row.aiStatus())) {
+			return List.of();
+		}
+		if (!onlyMissing || row.contentAi() == null) {
+			return styles;
+		}
+
+		try {
+			JsonNode existing = mapper.readTree(row.contentAi());
+			return styles.stream()
+					.filter(st -> !existing.path(st.key()).isTextual() || existing.path(st.key()).asText().isBlank())
+					.toList();
+		} catch (Exception e) {
+			return styles;
+		}
+	}
+
+	/** 1日記分の概算トークン数（入力 + 指示文 + 想定出力） */
+	private long estimateTokens(String content, List<AiStyle> styles) {
+		long total = 0;
+		int contentTokens = TokenEstimator.estimate(content);
+		for (AiStyle st : styles) {
+			int budget = inputProperties.budgetFor(st.key());
+			total += (budget > 0 ? Math.min(contentTokens, budget) : contentTokens)
+					+ TokenEstimator.estimate(st.prompt()) + expectedCompletionTokens;
+		}
+		return total;
+	}
+
+	private static String truncate(String s) {
+		return (s == null || s.length() <= MAX_ERROR_LENGTH) ? s : s.substring(0, MAX_ERROR_LENGTH);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		runner.shutdownNow();
+		workers.shutdownNow();
+	}
+}
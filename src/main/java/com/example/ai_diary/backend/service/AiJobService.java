@@ -0,0 +1,165 @@
+package com.example.ai_diary.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.ai_diary.backend.ai.AiStyle;
+import com.example.ai_diary.backend.domain.AiJob;
+import com.example.ai_diary.backend.domain.AiJobStatus;
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.repository.AiJobRepository;
+import com.example.ai_diary.backend.repository.DiaryRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * AI生成ジョブの登録・取得・完了処理
+ * - 各メソッドは短いトランザクションで完結し、OpenAI呼び出し中はDB接続を保持しない
+ */
+@Service
+public class AiJobService {
+
+	/** エラーメッセージの最大長（last_error列の長さ） */
+	private static final int MAX_ERROR_LENGTH = 512;
+
+	private final AiJobRepository aiJobRepository;
+	private final DiaryRepository diaryRepository;
+	private final int maxAttempts;
+	private final long leaseMs;
+	private final long backoffMs;
+	/** プレミアムのジョブを前に並べる時間 */
+	private final Duration premiumBoost;
+	private final MeterRegistry registry;
+	private final FeedHeadCache feedHeadCache;
+
+	public AiJobService(AiJobRepository aiJobRepository, DiaryRepository diaryRepository, MeterRegistry registry,
+			FeedHeadCache feedHeadCache,
+			@Value("${ai.jobs.max-attempts:5}") int maxAttempts,
+			@Value("${ai.jobs.lease-ms:120000}") long leaseMs,
+			@Value("${ai.jobs.backoff-ms:5000}") long backoffMs,
+			@Value("${ai.jobs.premium-boost-ms:60000}") long premiumBoostMs) {
+		this.aiJobRepository = aiJobRepository;
+		this.diaryRepository = diaryRepository;
+		this.registry = registry;
+		this.feedHeadCache = feedHeadCache;
+		this.maxAttempts = maxAttempts;
+		this.leaseMs = leaseMs;
+		this.backoffMs = backoffMs;
+		this.premiumBoost = Duration.ofMillis(premiumBoostMs);
+	}
+
+	/**
+	 * ジョブ登録（呼び出し元のトランザクションに参加する）
+	 * @param premium プレミアムユーザーのジョブか（優先レーン）
+	 * @param runAt 実行可能になる時刻（利用枠超過で延期する場合は未来の時刻）
+	 */
+	@Transactional
+	public AiJob enqueue(Long diaryId, List<AiStyle> styles, boolean premium, Instant runAt) {
+		AiJob job = new AiJob();
+		job.setDiaryId(diaryId);
+		job.setStyles(styles.stream().map(AiStyle::key).collect(Collectors.joining(",")));
+		job.setPremium(premium);
+		job.setNextRunAt(runAt);
+		job.setPriorityAt(priorityAt(job.getNextRunAt(), premium));
+		return aiJobRepository.save(job);
+	}
+
+	/**
+	 * 実行可能なジョブを最大 limit 件取得し、実行中に更新する
+	 * - プレミアムのジョブは premium-boost-ms 分だけ先に取得される（それ以上待った無料のジョブが優先）
+	 * - 実行可能になってから取得までの待ち時間をレーンごとに記録する（ai.jobs.queue.wait）
+	 */
+	@Transactional
+	public List<AiJob> claim(int limit) {
+		if (limit <= 0) {
+			return List.of();
+		}
+		Instant now = Instant.now();
+		List<Long> ids = aiJobRepository.lockClaimable(now, now.minusMillis(leaseMs), limit);
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+		aiJobRepository.markRunning(ids, AiJobStatus.RUNNING, now);
+		List<AiJob> jobs = aiJobRepository.findAllById(ids);
+		for (AiJob j : jobs) {
+			Timer.builder("ai.jobs.queue.wait")
+					.tag("lane", lane(j.isPremium()))
+					.register(registry)
+					.record(max(Duration.between(j.getNextRunAt(), now), Duration.ZERO));
+		}
+		return jobs;
+	}
+
+	/**
+	 * 生成結果を書き込み、ジョブを完了にする
+	 * - claim で取得した時のリースを保持している場合のみ（期限切れ後に他のワーカーが取り直していれば何もしない）
+	 * @return 完了にしたか
+	 */
+	@Transactional
+	public boolean complete(AiJob job, String aiJson) {
+		if (aiJobRepository.completeIfClaimed(job.getId(), job.getLockedAt(), AiJobStatus.RUNNING,
+				AiJobStatus.DONE, Instant.now()) == 0) {
+			return false;
+		}
+		diaryRepository.updateAi(job.getDiaryId(), aiJson, AiStatus.DONE);
+		feedHeadCache.onUpdated(job.getDiaryId());
+		return true;
+	}
+
+	/**
+	 * 失敗を記録する
+	 * - 上限未満なら指数バックオフで再実行待ちに戻す
+	 * - 上限に達したら日記・ジョブとも FAILED にする
+	 * - complete と同じく、取得時のリースを保持している場合のみ（他のワーカーが取り直していれば何もしない）
+	 * @return 記録したか
+	 */
+	@Transactional
+	public boolean fail(AiJob job, String error) {
+		Instant now = Instant.now();
+
+		if (job.getAttempts() >= maxAttempts) {
+			if (aiJobRepository.failIfClaimed(job.getId(), job.getLockedAt(), AiJobStatus.RUNNING,
+					AiJobStatus.FAILED, truncate(error), now) == 0) {
+				return false;
+			}
+			diaryRepository.updateAiStatus(job.getDiaryId(), AiStatus.FAILED);
+			feedHeadCache.onUpdated(job.getDiaryId());
+			return true;
+		}
+
+		Instant nextRunAt = now.plus(backoff(job.getAttempts()));
+		return aiJobRepository.retryIfClaimed(job.getId(), job.getLockedAt(), AiJobStatus.RUNNING,
+				AiJobStatus.PENDING, truncate(error), nextRunAt, priorityAt(nextRunAt, job.isPremium()), now) > 0;
+	}
+
+	/** 試行回数に応じた待ち時間（上限 1 時間） */
+	Duration backoff(int attempts) {
+		int shift = Math.min(Math.max(attempts - 1, 0), 10);
+		return Duration.ofMillis(Math.min(backoffMs << shift, Duration.ofHours(1).toMillis()));
+	}
+
+	/** 取得順の基準時刻 */
+	Instant priorityAt(Instant nextRunAt, boolean premium) {
+		return premium ? nextRunAt.minus(premiumBoost) : nextRunAt;
+	}
+
+	private static Duration max(Duration a, Duration b) {
+		return a.compareTo(b) >= 0 ? a : b;
+	}
+
+	/** メトリクスのレーン名 */
+	static String lane(boolean premium) {
+		return premium ? "premium" : "free";
+	}
+
+	private static String truncate(String s) {
+		return (s == null || s.length() <= MAX_ERROR_LENGTH) ? s : s.substring(0, MAX_ERROR_LENGTH);
+	}
+}
@@ -0,0 +1,126 @@
+package com.example.ai_diary.backend.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.ai_diary.backend.ai.AiTransformService;
+import com.example.ai_diary.backend.domain.AiJob;
+import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.repository.DiaryRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * AI生成ジョブのワーカー
+ * - 定期的に ai_jobs をポーリングし、空きワーカー数分だけジョブを取得する
+ * - OpenAI 呼び出しはトランザクション外で行う
+ */
+@Component
+public class AiJobWorker {
+
+	private static final Logger log = LoggerFactory.getLogger(AiJobWorker.class);
+
+	private final AiJobService aiJobService;
+	private final AiTransformService aiTransformService;
+	private final DiaryRepository diaryRepository;
+	private final int workers;
+	private final ThreadPoolExecutor executor;
+
+	/** 取得済みで未完了のジョブ数 */
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	public AiJobWorker(AiJobService aiJobService, AiTransformService aiTransformService,
+			DiaryRepository diaryRepository, @Value("${ai.jobs.workers:4}") int workers) {
+		this.aiJobService = aiJobService;
+		this.aiTransformService = aiTransformService;
+		this.diaryRepository = diaryRepository;
+		this.workers = workers;
+		this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(workers), new CustomizableThreadFactory("ai-job-"));
+	}
+
+	/**
+	 * ポーリング
+	 */
+	@Scheduled(fixedDelayString = "${ai.jobs.poll-interval-ms:1000}")
+	public void poll() {
+
+		// サーキット OPEN 中は取得しない（ジョブは PENDING のまま試行回数も消費しない）
+		if (!aiTransformService.isAvailable()) {
+			return;
+		}
+
+		int free = workers - inFlight.get();
+		if (free <= 0) {
+			return;
+		}
+
+		List<AiJob> jobs;
+		try {
+			jobs = aiJobService.claim(free);
+		} catch (Exception e) {
+			log.warn("AI job claim failed: {}", e.toString());
+			return;
+		}
+
+		for (AiJob job : jobs) {
+			inFlight.incrementAndGet();
+			executor.execute(() -> {
+				try {
+					process(job);
+				} finally {
+					inFlight.decrementAndGet();
+				}
+			});
+		}
+	}
+
+	/**
+	 * 1ジョブ分のAI生成
+	 */
+	void process(AiJob job) {
+		try {
+			Optional<Diary> diary = diaryRepository.findById(job.getDiaryId());
+			if (diary.isEmpty()) {
+				// 日記削除済み（ジョブはCASCADEで消える）
+				return;
+			}
+
+			List<String> styles = Arrays.asList(job.getStyles().split(","));
+			// 全スタイルが失敗・締め切り超過の場合も失敗として再試行する（生成できなかった値で既存の値を消さない）
+			String aiJson = aiTransformService.withoutNulls(
+					aiTransformService.transformToJson(diary.get().getUserId(), diary.get().getContent(), styles));
+
+			if (aiJson == null) {
+				aiJobService.fail(job, "AI_DISABLED_OR_ERROR");
+			} else if (!aiJobService.complete(job, aiJson)) {
+				log.info("AI job lease lost, result discarded id={} diaryId={}", job.getId(), job.getDiaryId());
+			}
+		} catch (Exception e) {
+			log.warn("AI job failed id={} diaryId={}: {}", job.getId(), job.getDiaryId(), e.toString());
+			try {
+				aiJobService.fail(job, e.toString());
+			} catch (Exception ignore) {
+				// 記録できなくてもリース期限切れで再取得される
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+	}
+}
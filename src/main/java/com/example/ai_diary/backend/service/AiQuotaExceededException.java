@@ -0,0 +1,17 @@
+package com.example.ai_diary.backend.service;
+
+/**
+ * ユーザーの AI 利用枠が足りない場合の例外クラス（429 として扱う）
+ */
+public class AiQuotaExceededException extends RuntimeException {
+
+	/** 再試行できるまでの秒数 */
+	private final long retryAfterSeconds;
+
+	public AiQuotaExceededException(long retryAfterSeconds) {
+		super("AI quota exceeded");
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() { return retryAfterSeconds; }
+}
@@ -0,0 +1,276 @@
+package com.example.ai_diary.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.repository.AiUserQuotaRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ユーザーごとの AI 利用枠（トークンバケット。1スタイル = 1トークン）
+ * - 容量・補充速度はプレミアムか否かで変える
+ * - メモリ上で取得時に経過時間分だけ補充し、変更分を定期的に ai_user_quota へ書き込む
+ * - 枠が足りない場合は前借りして、残量が戻る時刻まで実行を延期する（延期が max-defer-ms を超えるなら生成しない）
+ */
+@Service
+public class AiQuotaService {
+
+	private static final Logger log = LoggerFactory.getLogger(AiQuotaService.class);
+
+	/**
+	 * 予約結果
+	 * @param status PENDING（すぐ実行）/ DEFERRED（runAt まで延期）/ SKIPPED（生成しない）
+	 * @param runAt 実行可能になる時刻（SKIPPED は null）
+	 */
+	public record Reservation(AiStatus status, Instant runAt) {
+	}
+
+	/** プランごとの容量と1時間あたりの補充量 */
+	private record Plan(double capacity, double perMilli) {
+		Plan(long capacity, long perHour) {
+			this((double) capacity, perHour / (double) Duration.ofHours(1).toMillis());
+		}
+	}
+
+	/** 1ユーザー分の残量（this で排他） */
+	private static final class Bucket {
+		double tokens;
+		long refilledAt;
+		boolean dirty;
+		/** メモリから外された（以後は使わず読み直す） */
+		boolean evicted;
+
+		Bucket(double tokens, long refilledAt) {
+			this.tokens = tokens;
+			this.refilledAt = refilledAt;
+		}
+
+		void refill(Plan plan, long now) {
+			if (now > refilledAt) {
+				tokens = Math.min(plan.capacity, tokens + (now - refilledAt) * plan.perMilli);
+				refilledAt = now;
+			}
+		}
+	}
+
+	private final AiUserQuotaRepository repository;
+	private final MeterRegistry registry;
+	private final boolean enabled;
+	private final Plan free;
+	private final Plan premium;
+	private final long maxDeferMs;
+
+	private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+	public AiQuotaService(AiUserQuotaRepository repository, MeterRegistry registry,
+			@Value("${ai.quota.enabled:true}") boolean enabled,
+			@Value("${ai.quota.free.capacity:30}") long freeCapacity,
+			@Value("${ai.quota.free.per-hour:15}") long freePerHour,
+			@Value("${ai.quota.premium.capacity:150}") long premiumCapacity,
+			@Value("${ai.quota.premium.per-hour:150}") long premiumPerHour,
+			@Value("${ai.quota.max-defer-ms:3600000}") long maxDeferMs) {
+		this.repository = repository;
+		this.registry = registry;
+		this.enabled = enabled;
+		this.free = new Plan(freeCapacity, freePerHour);
+		this.premium = new Plan(premiumCapacity, premiumPerHour);
+		this.maxDeferMs = maxDeferMs;
+	}
+
+	/**
+	 * cost トークン分の利用を予約する
+	 * - 残量が足りれば消費してすぐ実行
+	 * - 足りなければ前借りし、残量が 0 に戻る時刻まで延期
+	 * - 延期が max-defer-ms を超える場合は消費せず SKIPPED
+	 */
+	public Reservation reserve(Long userId, boolean isPremium, int cost) {
+
+		Instant now = Instant.now();
+		if (!enabled || cost <= 0) {
+			return new Reservation(AiStatus.PENDING, now);
+		}
+
+		Plan plan = isPremium ? premium : free;
+		Reservation r = null;
+
+		while (r == null) {
+			Bucket b = bucket(userId, plan, now.toEpochMilli());
+			synchronized (b) {
+				if (b.evicted) {
+					continue;
+				}
+				b.refill(plan, now.toEpochMilli());
+				double after = b.tokens - cost;
+				long waitMs = after >= 0 ? 0 : (long) Math.ceil(-after / plan.perMilli);
+
+				if (waitMs > maxDeferMs) {
+					r = new Reservation(AiStatus.SKIPPED, null);
+				} else {
+					b.tokens = after;
+					b.dirty = true;
+					r = waitMs == 0 ? new Reservation(AiStatus.PENDING, now)
+							: new Reservation(AiStatus.DEFERRED, now.plusMillis(waitMs));
+				}
+			}
+		}
+
+		Counter.builder("ai.quota.reservations")
+				.tag("result", r.status().name().toLowerCase())
+				.tag("lane", AiJobService.lane(isPremium))
+				.register(registry).increment();
+		return r;
+	}
+
+	/**
+	 * 残量が足りる場合のみ cost トークンを消費する（前借り・延期はしない。その場で OpenAI を呼ぶ生成用）
+	 * @return 0 なら消費済み。足りなければ残量が戻るまでのミリ秒（消費しない）
+	 */
+	public long tryConsume(Long userId, boolean isPremium, int cost) {
+
+		if (!enabled || cost <= 0) {
+			return 0;
+		}
+
+		Plan plan = isPremium ? premium : free;
+		long now = System.currentTimeMillis();
+		long waitMs = -1;
+
+		while (waitMs < 0) {
+			Bucket b = bucket(userId, plan, now);
+			synchronized (b) {
+				if (b.evicted) {
+					continue;
+				}
+				b.refill(plan, now);
+				double after = b.tokens - cost;
+				if (after >= 0) {
+					b.tokens = after;
+					b.dirty = true;
+					waitMs = 0;
+				} else {
+					waitMs = (long) Math.ceil(-after / plan.perMilli);
+				}
+			}
+		}
+
+		Counter.builder("ai.quota.reservations")
+				.tag("result", waitMs == 0 ? "pending" : "rejected")
+				.tag("lane", AiJobService.lane(isPremium))
+				.register(registry).increment();
+		return waitMs;
+	}
+
+	/**
+	 * tryConsume で消費した分を戻す（実行できなかった場合。容量は超えない）
+	 */
+	public void release(Long userId, boolean isPremium, int cost) {
+
+		if (!enabled || cost <= 0) {
+			return;
+		}
+		Plan plan = isPremium ? premium : free;
+		Bucket b = buckets.get(userId);
+		if (b == null) {
+			return;
+		}
+		synchronized (b) {
+			if (!b.evicted) {
+				b.tokens = Math.min(plan.capacity, b.tokens + cost);
+				b.dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * 変更された残量を ai_user_quota へ書き込み、満杯に戻ったバケットはメモリから外す
+	 */
+	@Scheduled(fixedDelayString = "${ai.quota.flush-interval-ms:30000}")
+	public void flush() {
+
+		long now = System.currentTimeMillis();
+		for (Map.Entry<Long, Bucket> e : buckets.entrySet()) {
+			Bucket b = e.getValue();
+			double tokens;
+			long refilledAt;
+			boolean dirty;
+
+			synchronized (b) {
+				tokens = b.tokens;
+				refilledAt = b.refilledAt;
+				dirty = b.dirty;
+				b.dirty = false;
+			}
+
+			if (dirty) {
+				try {
+					repository.upsert(e.getKey(), tokens, Instant.ofEpochMilli(refilledAt));
+				} catch (Exception ex) {
+					log.warn("AI quota flush failed userId={}: {}", e.getKey(), ex.toString());
+					synchronized (b) {
+						b.dirty = true;
+					}
+					continue;
+				}
+			}
+
+			// 書き込み済みでしばらく使われていないものは外す（次回は DB から読み直す）
+			synchronized (b) {
+				if (!b.dirty && now - b.refilledAt > idleEvictMs()) {
+					b.evicted = true;
+					buckets.remove(e.getKey(), b);
+				}
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flush();
+	}
+
+	/** メモリ上のバケット数 */
+	int size() {
+		return buckets.size();
+	}
+
+	/**
+	 * バケットを取得する（無ければ DB の残量から作る。DB にも無ければ満杯）
+	 */
+	private Bucket bucket(Long userId, Plan plan, long now) {
+
+		Bucket b = buckets.get(userId);
+		if (b != null) {
+			return b;
+		}
+
+		Bucket loaded;
+		try {
+			loaded = repository.findById(userId)
+					.map(q -> new Bucket(q.getTokens(), q.getRefilledAt().toEpochMilli()))
+					.orElseGet(() -> new Bucket(plan.capacity, now));
+		} catch (Exception e) {
+			log.warn("AI quota load failed userId={}: {}", userId, e.toString());
+			loaded = new Bucket(plan.capacity, now);
+		}
+
+		Bucket prev = buckets.putIfAbsent(userId, loaded);
+		return prev != null ? prev : loaded;
+	}
+
+	/** 最後の利用からメモリに残す時間（空から満杯に戻る時間。長い方のプランに合わせる） */
+	private long idleEvictMs() {
+		return (long) Math.max(free.capacity / free.perMilli, premium.capacity / premium.perMilli);
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.ai_diary.backend.service;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.ai_diary.backend.ai.AiResultCache;
+import com.example.ai_diary.backend.ai.AiStyle;
+import com.example.ai_diary.backend.ai.AiTransformService;
+import com.example.ai_diary.backend.ai.AiUsageMeter;
+import com.example.ai_diary.backend.ai.ChatResult;
+import com.example.ai_diary.backend.ai.OpenAiClient;
+import com.example.ai_diary.backend.ai.StreamClientGoneException;
+import com.example.ai_diary.backend.config.AiInputProperties;
+import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.exception.ErrorMessages;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * AI生成のストリーミング配信（SSE）
+ * - OpenAI の差分をそのままクライアントへ中継し、完了後に content_ai へ保存する
+ * - 同時ストリーム数は専用スレッドプールで制限する（超過時は 503）
+ * - キャッシュに無い（OpenAI を呼ぶ）場合は、開始前にユーザーの AI 利用枠を1消費する（足りなければ 429）
+ */
+@Service
+public class AiStreamService {
+
+	private static final Logger log = LoggerFactory.getLogger(AiStreamService.class);
+
+	/** SSE イベント名: 差分 */
+	public static final String EVENT_DELTA = "delta";
+	/** SSE イベント名: 完了（整形済みの全文） */
+	public static final String EVENT_DONE = "done";
+	/** SSE イベント名: 失敗 */
+	public static final String EVENT_ERROR = "error";
+
+	private final OpenAiClient client;
+	private final AiTransformService aiTransformService;
+	private final AiResultCache cache;
+	private final AiUsageMeter usageMeter;
+	private final AiInputProperties inputProperties;
+	private final DiaryService diaryService;
+	private final AiQuotaService aiQuotaService;
+	private final long timeoutMs;
+	private final ThreadPoolExecutor executor;
+
+	public AiStreamService(OpenAiClient client, AiTransformService aiTransformService, AiResultCache cache,
+			AiUsageMeter usageMeter, AiInputProperties inputProperties, DiaryService diaryService,
+			AiQuotaService aiQuotaService,
+			@Value("${ai.stream.max-concurrent:16}") int maxConcurrent,
+			@Value("${ai.stream.timeout-ms:120000}") long timeoutMs) {
+		this.client = client;
+		this.aiTransformService = aiTransformService;
+		this.cache = cache;
+		this.usageMeter = usageMeter;
+		this.inputProperties = inputProperties;
+		this.diaryService = diaryService;
+		this.aiQuotaService = aiQuotaService;
+		this.timeoutMs = timeoutMs;
+		this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxConcurrent), new CustomizableThreadFactory("ai-stream-"));
+	}
+
+	/**
+	 * 指定日記・スタイルの生成をストリーミング配信する（本人のみ）
+	 * @param premium プレミアムユーザーか（利用枠のプラン）
+	 */
+	public SseEmitter stream(Long diaryId, Long userId, boolean premium, String styleKey) {
+
+		if (!aiTransformService.isEnabled()) {
+			throw new IllegalArgumentException(ErrorMessages.AI_DISABLED);
+		}
+		AiStyle style = AiStyle.from(styleKey);
+		if (style == null) {
+			throw new IllegalArgumentException(ErrorMessages.AI_STYLE_INVALID + styleKey);
+		}
+
+		Diary diary = diaryService.getOneWithVisibilityCheck(diaryId, userId);
+		if (!diary.getUserId().equals(userId)) {
+			throw new AccessDeniedException(ErrorMessages.FORBIDDEN);
+		}
+
+		SseEmitter emitter = new SseEmitter(timeoutMs);
+		String content = diary.getContent();
+
+		// OpenAI を呼ぶ場合のみ利用枠を消費する（応答開始後は 429 を返せないためここで判定）
+		String cached = cache.get(style, content);
+		if (cached == null) {
+			long waitMs = aiQuotaService.tryConsume(userId, premium, 1);
+			if (waitMs > 0) {
+				throw new AiQuotaExceededException(TimeUnit.MILLISECONDS.toSeconds(waitMs + 999));
+			}
+		}
+
+		// 満杯時は RejectedExecutionException（503。消費した枠は戻す）
+		try {
+			executor.execute(() -> relay(emitter, diary.getId(), userId, premium, style, content, cached));
+		} catch (RejectedExecutionException e) {
+			if (cached == null) {
+				aiQuotaService.release(userId, premium, 1);
+			}
+			throw e;
+		}
+
+		return emitter;
+	}
+
+	/**
+	 * 生成結果の中継と保存
+	 * - OpenAI 側の失敗で生成できなかった場合は、消費した利用枠を戻す（クライアント切断時は戻さない）
+	 */
+	void relay(SseEmitter emitter, Long diaryId, Long userId, boolean premium, AiStyle style, String content,
+			String cached) {
+		boolean refund = (cached == null);
+		try {
+			String out = cached;
+
+			if (out != null) {
+				send(emitter, EVENT_DELTA, out);
+			} else {
+				ChatResult raw = client.chatStream(style.prompt(),
+						AiTransformService.input(content, inputProperties.budgetFor(style.key())),
+						delta -> send(emitter, EVENT_DELTA, delta));
+				refund = false;
+				usageMeter.record(userId, style.key(), raw);
+				out = style.postProcess(raw.content());
+				cache.put(style, content, out);
+			}
+
+			diaryService.saveAiResult(diaryId, style, out);
+			send(emitter, EVENT_DONE, out);
+			emitter.complete();
+
+		} catch (StreamClientGoneException disconnected) {
+			// クライアント切断（OpenAI との接続も閉じられる）
+			log.debug("AI stream aborted by client diaryId={}", diaryId);
+			emitter.completeWithError(disconnected.getCause());
+		} catch (Exception e) {
+			log.warn("AI stream failed diaryId={} style={}: {}", diaryId, style.key(), e.toString());
+			if (refund) {
+				aiQuotaService.release(userId, premium, 1);
+			}
+			try {
+				send(emitter, EVENT_ERROR, "AI_ERROR");
+				emitter.complete();
+			} catch (StreamClientGoneException ignore) {
+				emitter.completeWithError(e);
+			}
+		}
+	}
+
+	/**
+	 * 1イベント送信する
+	 * - 切断・タイムアウト・完了済みで送れない場合は StreamClientGoneException（OpenAI の失敗として数えない）
+	 */
+	static void send(SseEmitter emitter, String event, String data) {
+		try {
+			emitter.send(SseEmitter.event().name(event).data(data));
+		} catch (IOException | IllegalStateException e) {
+			throw new StreamClientGoneException(e);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+}
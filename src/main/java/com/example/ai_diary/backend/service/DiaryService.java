@@ -3,19 +3,26 @@ package com.example.ai_diary.backend.service;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.ai_diary.backend.ai.AiStyle;
 import com.example.ai_diary.backend.ai.AiTransformService;
 import com.example.ai_diary.backend.config.PagingProperties;
+import com.example.ai_diary.backend.domain.AiStatus;
 import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.domain.User;
 import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
 import com.example.ai_diary.backend.exception.ErrorMessages;
 import com.example.ai_diary.backend.repository.DiaryRepository;
 import com.example.ai_diary.backend.repository.UserRepository;
+import com.example.ai_diary.backend.util.FeedCursor;
 
 /**
  * 日記サービス
@@ -23,21 +30,40 @@ import com.example.ai_diary.backend.repository.UserRepository;
 @Service
 public class DiaryService {
 
+	/**
+	 * カーソル方式のフィードの1ページ分
+	 * @param items 日記（新しい順）
+	 * @param next 続きのカーソル（最後のページなら null）
+	 */
+	public record FeedSlice(List<FeedItem> items, String next) {
+	}
+
 	private final DiaryRepository diaryRepository;
 	private final UserRepository userRepository;
 	private final AiTransformService aiTransformService;
+	private final AiJobService aiJobService;
+	private final AiQuotaService aiQuotaService;
 	private final PagingProperties paging;
+	private final FeedHeadCache feedHeadCache;
+	/** 一覧で返す本文の文字数 */
+	private final int previewChars;
 
 	public DiaryService(DiaryRepository diaryRepository, UserRepository userRepository,
-			AiTransformService aiTransformService, PagingProperties paging) {
+			AiTransformService aiTransformService, AiJobService aiJobService, AiQuotaService aiQuotaService,
+			PagingProperties paging, FeedHeadCache feedHeadCache,
+			@Value("${feed.preview-chars:120}") int previewChars) {
 		this.diaryRepository = diaryRepository;
 		this.userRepository = userRepository;
 		this.aiTransformService = aiTransformService;
+		this.aiJobService = aiJobService;
+		this.aiQuotaService = aiQuotaService;
 		this.paging = paging;
+		this.feedHeadCache = feedHeadCache;
+		this.previewChars = previewChars;
 	}
 
 	/**
-	 * 日記作成処理
+	 * 日記作成処理（ユーザーIDのみ分かっている場合。ユーザーを読み込んでプレミアム判定する）
 	 */
 	@Transactional
 	public Diary create(Long userId, String content, Visibility visibility, List<String> styles) {
@@ -51,33 +77,56 @@ public class DiaryService {
 			throw new IllegalArgumentException(ErrorMessages.USER_ID_REQUIRED);
 		}
 
-		userRepository.findById(userId)
+		User user = userRepository.findById(userId)
 				.orElseThrow(() -> new NoSuchElementException(ErrorMessages.USER_NOT_FOUND));
+		return create(userId, user.isPremiumFlag(), normalized, visibility, styles);
+	}
+
+	/**
+	 * 日記作成処理（認証済みユーザー用。ユーザーの存在とプレミアム判定は呼び出し側で済んでいる）
+	 * - AI生成はジョブ登録のみ行い、OpenAIの応答は待たない（AiJobWorkerが非同期に生成）
+	 * - ユーザーの AI 利用枠を超える場合は生成を延期（DEFERRED）、延期の上限も超える場合は生成しない（SKIPPED）
+	 * - 公開日記はコミット後にフィード先頭のキャッシュへ加える
+	 */
+	@Transactional
+	public Diary create(long userId, boolean premium, String content, Visibility visibility, List<String> styles) {
+
+		String normalized = (content == null) ? null : content.strip();
+
+		if (normalized == null || normalized.isEmpty()) {
+			throw new IllegalArgumentException(ErrorMessages.DIARY_CONTENT_EMPTY);
+		}
 
 		Diary d = new Diary();
 		d.setUserId(userId);
 		d.setContent(normalized);
 		d.setVisibility(visibility != null ? visibility : Visibility.PRIVATE);
 
-		// AI生成
-		try {
-			String aiJson = aiTransformService.transformToJson(normalized, styles);
-			d.setContentAi(aiJson);
-		} catch (Exception ignore) {
-			d.setContentAi(null);
+		// AI生成対象のスタイル（無効時は対象外）
+		List<AiStyle> aiStyles = aiTransformService.isEnabled() ? AiStyle.fromAll(styles) : List.of();
+		AiQuotaService.Reservation quota = aiStyles.isEmpty() ? null
+				: aiQuotaService.reserve(userId, premium, aiStyles.size());
+		d.setAiStatus(quota == null ? AiStatus.NONE : quota.status());
+
+		Diary saved = diaryRepository.save(d);
+
+		// 同一トランザクションでジョブ登録（コミットされた日記には必ずジョブが残る）
+		if (quota != null && quota.runAt() != null) {
+			aiJobService.enqueue(saved.getId(), aiStyles, premium, quota.runAt());
 		}
+		feedHeadCache.onCreated(saved);
 
-		return diaryRepository.save(d);
+		return saved;
 	}
 
 	/**
 	 * 公開フィード取得処理
 	 * 公開設定された日記 (Visibility.PUBLIC) を
 	 * 作成日時の新しい順 (CreatedAt の降順) で
-	 * ページング付きで取得する
+	 * ページング付きで取得する（一覧用の射影。本文は先頭 feed.preview-chars 文字）
 	 */
 	@Transactional(readOnly = true)
-	public Page<Diary> publicFeed(int page, int size) {
+	public Page<FeedItem> publicFeed(int page, int size) {
 		if (page < 0)
 			page = 0;
 		
@@ -88,7 +137,35 @@ public class DiaryService {
 		
 		PageRequest pr = PageRequest.of(page, size);
 		
-		return diaryRepository.findByVisibilityOrderByCreatedAtDesc(Visibility.PUBLIC, pr);
+		return diaryRepository.findFeedItems(Visibility.PUBLIC, previewChars, pr);
+	}
+
+	/**
+	 * 公開フィード取得処理（カーソル方式）
+	 * - (作成日時, ID) の降順で、カーソルの行より後ろを size 件返す
+	 * - OFFSET と総件数の集計を行わないため、深い位置でも先頭と同じ速さで返る
+	 * - 続きの有無は size + 1 件読んで判定する
+	 */
+	@Transactional(readOnly = true)
+	public FeedSlice publicFeedByCursor(String cursor, int size) {
+
+		size = (size <= 0) ? paging.getDefaultSize() : Math.min(size, paging.getMaxSize());
+
+		List<FeedItem> rows;
+		if (cursor == null || cursor.isBlank()) {
+			rows = diaryRepository.findFeedItemsHead(Visibility.PUBLIC, previewChars, Limit.of(size + 1));
+		} else {
+			FeedCursor after = FeedCursor.decode(cursor);
+			rows = diaryRepository.findFeedItemsAfter(Visibility.PUBLIC, after.createdAt(), after.id(), previewChars,
+					Limit.of(size + 1));
+		}
+
+		if (rows.size() <= size) {
+			return new FeedSlice(rows, null);
+		}
+		List<FeedItem> items = rows.subList(0, size);
+		FeedItem last = items.get(size - 1);
+		return new FeedSlice(items, new FeedCursor(last.createdAt(), last.id()).encode());
 	}
 
 	/**
@@ -126,6 +203,15 @@ public class DiaryService {
 		}
 	}
 
+	/**
+	 * 1スタイル分のAI生成結果を保存する（content_ai の該当キーのみ更新）
+	 */
+	@Transactional
+	public void saveAiResult(Long diaryId, AiStyle style, String output) {
+		diaryRepository.mergeAiValue(diaryId, style.key(), output);
+		feedHeadCache.onUpdated(diaryId);
+	}
+
 	/**
 	 * 日記を削除する
 	 */
@@ -137,5 +223,8 @@ public class DiaryService {
 			throw new AccessDeniedException(ErrorMessages.FORBIDDEN);
 		}
 		diaryRepository.delete(d);
+		if (d.getVisibility() == Visibility.PUBLIC) {
+			feedHeadCache.onDeleted(diaryId);
+		}
 	}
 }
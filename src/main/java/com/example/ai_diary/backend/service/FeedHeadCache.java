@@ -0,0 +1,324 @@
+package com.example.ai_diary.backend.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.ai_diary.backend.config.PagingProperties;
+import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
+import com.example.ai_diary.backend.repository.DiaryRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 公開フィード先頭のキャッシュ
+ * - 最新 size 件の公開日記を、組み立て済みの一覧用 DTO（FeedItem）として (作成日時, ID) の降順で保持する
+ * - 範囲内のページは DB に問い合わせず（総件数の集計もせず）に返す。ETag は内容から計算するのでインスタンス間で一致する
+ * - このインスタンスでの作成・削除・AI生成結果は、コミット後にその場で反映する
+ * - 他インスタンスでの変更は refresh-ms ごとの再読込で反映する
+ *   - 最後の再読込から max-stale-ms を過ぎている間（DB 障害など）は使わない（古さの上限）
+ * - 読み取りはロックなし（不変のスナップショットを差し替える。件数が小さいので書き込みごとに配列を複製する）
+ */
+@Component
+public class FeedHeadCache {
+
+	private static final Logger log = LoggerFactory.getLogger(FeedHeadCache.class);
+
+	private static final Comparator<FeedItem> NEWEST_FIRST = Comparator
+			.comparing(FeedItem::createdAt, Comparator.reverseOrder())
+			.thenComparing(FeedItem::id, Comparator.reverseOrder());
+
+	/**
+	 * キャッシュから返す1ページ分
+	 * @param hasNext 続きがあるか（カーソル方式用）
+	 * @param total 公開日記の総件数（最大 refresh-ms 遅れ）
+	 */
+	public record Head(List<FeedItem> items, int page, int size, long total, boolean hasNext, String etag) {
+	}
+
+	/**
+	 * 保持内容（不変）
+	 * @param items 新しい順
+	 * @param hashes items と同じ順の内容ハッシュ（ETag 用）
+	 * @param complete 公開日記をすべて保持しているか
+	 */
+	record Snapshot(FeedItem[] items, long[] hashes, long total, boolean complete, long loadedAtMillis) {
+	}
+
+	private final DiaryRepository diaryRepository;
+	private final PagingProperties paging;
+	private final boolean enabled;
+	private final int capacity;
+	private final long maxStaleMs;
+	private final int previewChars;
+	private final Counter hits;
+	private final Counter misses;
+
+	private volatile Snapshot snapshot;
+
+	/** 再読込中に行った変更（読込結果に再適用する。再読込中でなければ null） */
+	private List<UnaryOperator<Snapshot>> replay;
+	private final Object lock = new Object();
+
+	public FeedHeadCache(DiaryRepository diaryRepository, PagingProperties paging, MeterRegistry registry,
+			@Value("${feed.head-cache.enabled:true}") boolean enabled,
+			@Value("${feed.head-cache.size:200}") int capacity,
+			@Value("${feed.head-cache.max-stale-ms:10000}") long maxStaleMs,
+			@Value("${feed.preview-chars:120}") int previewChars) {
+		this.diaryRepository = diaryRepository;
+		this.paging = paging;
+		this.enabled = enabled;
+		this.capacity = Math.max(1, capacity);
+		this.maxStaleMs = maxStaleMs;
+		this.previewChars = previewChars;
+		this.hits = Counter.builder("feed.head.cache").tag("result", "hit").register(registry);
+		this.misses = Counter.builder("feed.head.cache").tag("result", "miss").register(registry);
+	}
+
+	/**
+	 * ページをキャッシュから返す（範囲外・未読込・古すぎる場合は null。呼び出し側で DB から取得する）
+	 * - page / size の補正は DiaryService.publicFeed と同じ
+	 */
+	public Head page(int page, int size) {
+		return page(page, size, System.currentTimeMillis());
+	}
+
+	Head page(int page, int size, long nowMillis) {
+
+		if (page < 0) {
+			page = 0;
+		}
+		size = (size <= 0) ? paging.getDefaultSize() : Math.min(size, paging.getMaxSize());
+
+		Snapshot s = snapshot;
+		long from = (long) page * size;
+		if (s == null || nowMillis - s.loadedAtMillis() > maxStaleMs
+				|| (!s.complete() && from + size > s.items().length)) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+
+		int start = (int) Math.min(from, s.items().length);
+		int end = Math.min(start + size, s.items().length);
+		boolean hasNext = end < s.items().length || !s.complete();
+
+		long h = 31 * s.total() + size;
+		for (int i = start; i < end; i++) {
+			h = 31 * h + s.hashes()[i];
+		}
+		String etag = "W/\"" + Long.toHexString(h) + "\"";
+		return new Head(List.of(Arrays.copyOfRange(s.items(), start, end)), page, size, s.total(), hasNext, etag);
+	}
+
+	/**
+	 * 作成された公開日記を先頭側に加える（コミット後）
+	 */
+	public void onCreated(Diary d) {
+		if (!enabled || d.getVisibility() != Visibility.PUBLIC) {
+			return;
+		}
+		FeedItem dto = toItem(d);
+		afterCommit(() -> apply(s -> upsert(s, dto, true)));
+	}
+
+	/**
+	 * 削除された日記を取り除く（コミット後）
+	 */
+	public void onDeleted(long diaryId) {
+		if (!enabled) {
+			return;
+		}
+		afterCommit(() -> apply(s -> remove(s, diaryId)));
+	}
+
+	/**
+	 * AI生成結果などが更新された日記を読み直す（コミット後。保持していなければ何もしない）
+	 */
+	public void onUpdated(long diaryId) {
+		if (!enabled) {
+			return;
+		}
+		afterCommit(() -> {
+			Snapshot s = snapshot;
+			if (s == null || indexOf(s, diaryId) < 0) {
+				return;
+			}
+			diaryRepository.findById(diaryId).ifPresentOrElse(
+					d -> {
+						FeedItem dto = toItem(d);
+						apply(cur -> d.getVisibility() == Visibility.PUBLIC ? upsert(cur, dto, false) : remove(cur, diaryId));
+					},
+					() -> apply(cur -> remove(cur, diaryId)));
+		});
+	}
+
+	/**
+	 * 先頭 size 件と総件数を読み直す（他インスタンスでの変更の反映）
+	 */
+	@Scheduled(fixedDelayString = "${feed.head-cache.refresh-ms:2000}")
+	public void refresh() {
+
+		if (!enabled) {
+			return;
+		}
+		synchronized (lock) {
+			replay = new ArrayList<>();
+		}
+		try {
+			long loadedAt = System.currentTimeMillis();
+			List<FeedItem> rows = diaryRepository.findFeedItemsHead(Visibility.PUBLIC, previewChars,
+					Limit.of(capacity));
+			long total = diaryRepository.countByVisibility(Visibility.PUBLIC);
+
+			FeedItem[] items = rows.toArray(FeedItem[]::new);
+			long[] hashes = new long[items.length];
+			for (int i = 0; i < items.length; i++) {
+				hashes[i] = hash(items[i]);
+			}
+			Snapshot loaded = new Snapshot(items, hashes, Math.max(total, items.length), items.length < capacity,
+					loadedAt);
+
+			synchronized (lock) {
+				// 読込中に反映した変更は読込結果に含まれていない場合があるため、もう一度適用する（いずれも冪等）
+				for (UnaryOperator<Snapshot> op : replay) {
+					loaded = op.apply(loaded);
+				}
+				snapshot = loaded;
+			}
+		} catch (RuntimeException e) {
+			// 古いスナップショットは max-stale-ms を過ぎると使われなくなる
+			log.warn("feed head cache refresh failed: {}", e.toString());
+		} finally {
+			synchronized (lock) {
+				replay = null;
+			}
+		}
+	}
+
+	private void apply(UnaryOperator<Snapshot> op) {
+		synchronized (lock) {
+			Snapshot s = snapshot;
+			if (s != null) {
+				snapshot = op.apply(s);
+			}
+			if (replay != null) {
+				replay.add(op);
+			}
+		}
+	}
+
+	/**
+	 * 並び順の位置に挿入する（同じ ID があれば置き換える）
+	 * @param created 新規作成か（総件数を増やす）
+	 */
+	private Snapshot upsert(Snapshot s, FeedItem dto, boolean created) {
+
+		List<FeedItem> items = new ArrayList<>(Arrays.asList(s.items()));
+		int existing = indexOf(s, dto.id());
+		long total = s.total();
+		if (existing >= 0) {
+			items.remove(existing);
+		} else if (created) {
+			total++;
+		} else {
+			return s;
+		}
+
+		int pos = 0;
+		while (pos < items.size() && NEWEST_FIRST.compare(items.get(pos), dto) < 0) {
+			pos++;
+		}
+		if (pos == items.size() && !s.complete() && items.size() >= capacity) {
+			// 保持範囲より古い
+			return new Snapshot(s.items(), s.hashes(), total, false, s.loadedAtMillis());
+		}
+		items.add(pos, dto);
+
+		boolean complete = s.complete();
+		if (items.size() > capacity) {
+			items.remove(items.size() - 1);
+			complete = false;
+		}
+		return build(items, total, complete, s.loadedAtMillis());
+	}
+
+	private Snapshot remove(Snapshot s, long diaryId) {
+		int i = indexOf(s, diaryId);
+		if (i < 0) {
+			return s;
+		}
+		List<FeedItem> items = new ArrayList<>(Arrays.asList(s.items()));
+		items.remove(i);
+		return build(items, Math.max(0, s.total() - 1), s.complete(), s.loadedAtMillis());
+	}
+
+	private static Snapshot build(List<FeedItem> items, long total, boolean complete, long loadedAtMillis) {
+		FeedItem[] arr = items.toArray(FeedItem[]::new);
+		long[] hashes = new long[arr.length];
+		for (int i = 0; i < arr.length; i++) {
+			hashes[i] = hash(arr[i]);
+		}
+		return new Snapshot(arr, hashes, total, complete, loadedAtMillis);
+	}
+
+	private static int indexOf(Snapshot s, long diaryId) {
+		FeedItem[] items = s.items();
+		for (int i = 0; i < items.length; i++) {
+			if (items[i].id() == diaryId) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 保持する項目を作る
+	 * - 作成日時は DB の精度（マイクロ秒）に揃える（再読込後と ETag が一致するように）
+	 */
+	private FeedItem toItem(Diary d) {
+		FeedItem item = FeedItem.from(d, previewChars);
+		Instant createdAt = item.createdAt() == null ? null : item.createdAt().truncatedTo(ChronoUnit.MICROS);
+		return new FeedItem(item.id(), item.userId(), item.preview(), item.truncated(), item.aiStatus(),
+				item.visibility(), createdAt);
+	}
+
+	/** 応答に含まれる項目のハッシュ（JVM 間で同じ値になる） */
+	private static long hash(FeedItem r) {
+		return Objects.hash(r.id(), r.userId(), r.preview(), r.truncated(),
+				r.aiStatus() == null ? null : r.aiStatus().name(),
+				r.visibility() == null ? null : r.visibility().name(),
+				r.createdAt());
+	}
+
+	/** トランザクション中ならコミット後に、そうでなければすぐに実行する */
+	private static void afterCommit(Runnable task) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			task.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				task.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,34 @@
+package com.example.ai_diary.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import com.example.ai_diary.backend.exception.ErrorMessages;
+
+/**
+ * フィードの続きを指すカーソル（最後に返した行の作成日時と ID）
+ * - クライアントには中身を意識させないよう Base64URL で符号化する
+ * - 不正な文字列は IllegalArgumentException（400）
+ */
+public record FeedCursor(Instant createdAt, long id) {
+
+	public String encode() {
+		String raw = createdAt.getEpochSecond() + "." + createdAt.getNano() + "." + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	public static FeedCursor decode(String cursor) {
+		try {
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split("\\.");
+			if (parts.length != 3) {
+				throw new IllegalArgumentException(ErrorMessages.FEED_CURSOR_INVALID);
+			}
+			return new FeedCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+					Long.parseLong(parts[2]));
+		} catch (RuntimeException e) {
+			// Base64・数値・日時の範囲エラーはまとめて 400
+			throw new IllegalArgumentException(ErrorMessages.FEED_CURSOR_INVALID, e);
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package com.example.ai_diary.backend.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * キーごとのレート制限（GCRA: Generic Cell Rate Algorithm）
+ * - 状態はキーごとに TAT（次の理論到着時刻）1つだけで、CAS で更新する（ロックなし）
+ * - 平均 ratePerSecond 件/秒、瞬間的には burst 件まで許可する（固定窓のような境界での2倍通過は起きない）
+ * - TAT が現在時刻を過ぎたキーは満杯のバケットと同じ状態なので、削除しても挙動は変わらない
+ *   - maxKeys に達したら期限切れのキーを掃除する。それでも空きが無ければ新しいキーは記録せずに許可する
+ */
+public final class GcraRateLimiter {
+
+	/** 許可する間隔（ナノ秒） */
+	private final long emissionNanos;
+	/** 前倒しで許可できる幅（ナノ秒） */
+	private final long toleranceNanos;
+	private final int burst;
+	private final int maxKeys;
+
+	private final Map<String, AtomicLong> tats = new ConcurrentHashMap<>();
+	private final AtomicBoolean sweeping = new AtomicBoolean();
+
+	/**
+	 * @param ratePerSecond 1秒あたりの平均許可数
+	 * @param burst 連続して許可する最大数（1 以上）
+	 * @param maxKeys 保持するキーの上限
+	 */
+	public GcraRateLimiter(double ratePerSecond, int burst, int maxKeys) {
+		this.emissionNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond));
+		this.burst = Math.max(1, burst);
+		this.toleranceNanos = emissionNanos * (this.burst - 1);
+		this.maxKeys = maxKeys;
+	}
+
+	/**
+	 * 許可されれば 0、拒否なら次に許可されるまでの時間（ナノ秒）を返す
+	 */
+	public long tryAcquire(String key) {
+		return tryAcquire(key, System.nanoTime());
+	}
+
+	long tryAcquire(String key, long now) {
+
+		AtomicLong tat = tats.get(key);
+		if (tat == null) {
+			tat = track(key, now);
+			if (tat == null) {
+				// キー表が満杯（記録できないキーは制限しない）
+				return 0;
+			}
+		}
+
+		while (true) {
+			long cur = tat.get();
+			long base = Math.max(cur, now);
+			long allowAt = base - toleranceNanos;
+			if (now < allowAt) {
+				return allowAt - now;
+			}
+			if (tat.compareAndSet(cur, base + emissionNanos)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * 他で消費された分を差し引く（他ノードでの許可数など）
+	 * - 先送りは最大でも max まで
+	 */
+	public void debit(String key, long count, long maxNanos) {
+		debit(key, count, maxNanos, System.nanoTime());
+	}
+
+	void debit(String key, long count, long maxNanos, long now) {
+
+		if (count <= 0) {
+			return;
+		}
+		AtomicLong tat = tats.get(key);
+		if (tat == null) {
+			tat = track(key, now);
+			if (tat == null) {
+				return;
+			}
+		}
+
+		long maxAdd = toleranceNanos + maxNanos;
+		long add = count >= maxAdd / emissionNanos ? maxAdd : count * emissionNanos;
+		long limit = now + maxAdd;
+		while (true) {
+			long cur = tat.get();
+			long next = Math.min(limit, Math.max(cur, now) + add);
+			if (next <= cur || tat.compareAndSet(cur, next)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 満杯（burst 件）に戻るまでの時間（ナノ秒）
+	 */
+	public long backlogNanos(String key) {
+		return backlogNanos(key, System.nanoTime());
+	}
+
+	long backlogNanos(String key, long now) {
+		AtomicLong tat = tats.get(key);
+		return tat == null ? 0 : Math.max(0, tat.get() - now);
+	}
+
+	/**
+	 * backlogNanos の時点で許可できる件数
+	 */
+	public int remaining(long backlogNanos) {
+		return (int) Math.max(0, (toleranceNanos + emissionNanos - backlogNanos) / emissionNanos);
+	}
+
+	/** 連続して許可する最大数 */
+	public int burst() {
+		return burst;
+	}
+
+	/**
+	 * 期限切れ（TAT が過去）のキーを削除する
+	 * @return 削除した件数
+	 */
+	public int evictIdle() {
+		return evictIdle(System.nanoTime());
+	}
+
+	int evictIdle(long now) {
+		int removed = 0;
+		for (Map.Entry<String, AtomicLong> e : tats.entrySet()) {
+			AtomicLong tat = e.getValue();
+			if (tat.get() - now <= 0 && tats.remove(e.getKey(), tat)) {
+				removed++;
+			}
+		}
+		return removed;
+	}
+
+	/** 保持しているキー数 */
+	public int size() {
+		return tats.size();
+	}
+
+	private AtomicLong track(String key, long now) {
+
+		if (tats.size() >= maxKeys) {
+			// 同時に1スレッドだけ掃除する
+			if (sweeping.compareAndSet(false, true)) {
+				try {
+					evictIdle(now);
+				} finally {
+					sweeping.set(false);
+				}
+			}
+			if (tats.size() >= maxKeys) {
+				return tats.get(key);
+			}
+		}
+		return tats.computeIfAbsent(key, k -> new AtomicLong(now));
+	}
+}
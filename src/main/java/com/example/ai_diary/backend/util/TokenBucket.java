@@ -0,0 +1,63 @@
+package com.example.ai_diary.backend.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * トークンバケット（取得時に経過時間分だけ補充する）
+ * - 容量を超える要求は、満杯になった時点で許可する（残量はマイナスになり、その分後続が待つ）
+ */
+public final class TokenBucket {
+
+	private final double capacity;
+	private final double refillPerNano;
+
+	// --- 以下は this で排他 ---
+	private double available;
+	private long refilledAt;
+
+	/**
+	 * @param capacity 最大保持量
+	 * @param perMinute 1分あたりの補充量
+	 */
+	public TokenBucket(long capacity, long perMinute) {
+		this.capacity = capacity;
+		this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+		this.available = capacity;
+		this.refilledAt = System.nanoTime();
+	}
+
+	/**
+	 * 取得できれば消費して 0、できなければ待つべき時間（ナノ秒）を返す
+	 */
+	public synchronized long tryAcquire(long amount) {
+		refill();
+		double need = Math.min(amount, capacity);
+		if (available >= need) {
+			available -= amount;
+			return 0;
+		}
+		return (long) Math.ceil((need - available) / refillPerNano);
+	}
+
+	/**
+	 * 取得できるまで待って消費する
+	 */
+	public void acquire(long amount) throws InterruptedException {
+		long waitNanos;
+		while ((waitNanos = tryAcquire(amount)) > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	/** 現在の残量 */
+	public synchronized double available() {
+		refill();
+		return available;
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		available = Math.min(capacity, available + (now - refilledAt) * refillPerNano);
+		refilledAt = now;
+	}
+}
@@ -0,0 +1,32 @@
+-- === DIARIES: AI生成状態 ===================================================
+ALTER TABLE diaries
+  ADD COLUMN IF NOT EXISTS ai_status VARCHAR(16) NOT NULL DEFAULT 'NONE';
+ALTER TABLE diaries
+  ADD CONSTRAINT chk_diaries_ai_status
+    CHECK (ai_status IN ('NONE','PENDING','DONE','FAILED'));
+
+-- 既存の生成済みデータは DONE 扱い
+UPDATE diaries SET ai_status = 'DONE' WHERE content_ai IS NOT NULL;
+
+-- === AI_JOBS ==============================================================
+-- 日記保存と同一トランザクションで登録し、ワーカーが非同期に content_ai を埋める
+CREATE TABLE IF NOT EXISTS ai_jobs (
+  id           BIGSERIAL PRIMARY KEY,
+  diary_id     BIGINT NOT NULL REFERENCES diaries(id) ON DELETE CASCADE,
+  styles       VARCHAR(64) NOT NULL,
+  status       VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+  attempts     INT NOT NULL DEFAULT 0,
+  next_run_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  locked_at    TIMESTAMPTZ,
+  last_error   VARCHAR(512),
+  created_at   TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  updated_at   TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  CONSTRAINT chk_ai_jobs_status
+    CHECK (status IN ('PENDING','RUNNING','DONE','FAILED'))
+);
+
+-- ワーカーの取得（未完了ジョブのみ）で効く部分索引
+CREATE INDEX IF NOT EXISTS idx_ai_jobs_claimable
+  ON ai_jobs (next_run_at, id) WHERE status IN ('PENDING','RUNNING');
+CREATE INDEX IF NOT EXISTS idx_ai_jobs_diary
+  ON ai_jobs (diary_id);
@@ -0,0 +1,16 @@
+-- === AI_CACHE =============================================================
+-- AI生成結果の永続キャッシュ（キー = SHA-256(model + prompt + 正規化本文)）
+-- fingerprint = SHA-256(model + prompt)。プロンプト/モデル変更時の一括無効化に使う
+CREATE TABLE IF NOT EXISTS ai_cache (
+  cache_key    CHAR(64) PRIMARY KEY,
+  style        VARCHAR(16) NOT NULL,
+  fingerprint  CHAR(64) NOT NULL,
+  output       TEXT NOT NULL,
+  created_at   TIMESTAMPTZ NOT NULL DEFAULT NOW()
+);
+
+-- 無効化（style + fingerprint 不一致の削除）と期限切れ削除で効く索引
+CREATE INDEX IF NOT EXISTS idx_ai_cache_style_fingerprint
+  ON ai_cache (style, fingerprint);
+CREATE INDEX IF NOT EXISTS idx_ai_cache_created_at
+  ON ai_cache (created_at);
@@ -0,0 +1,14 @@
+-- === AI_USAGE =============================================================
+-- OpenAI のトークン使用量（ユーザー × 日 × スタイル）
+-- アプリ側でバッファし、定期的に加算 UPSERT する
+-- style: summary / haiku / quote、まとめて生成した場合は combined
+CREATE TABLE IF NOT EXISTS ai_usage (
+  user_id            BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+  usage_date         DATE NOT NULL,
+  style              VARCHAR(16) NOT NULL,
+  requests           BIGINT NOT NULL DEFAULT 0,
+  prompt_tokens      BIGINT NOT NULL DEFAULT 0,
+  completion_tokens  BIGINT NOT NULL DEFAULT 0,
+  updated_at         TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  PRIMARY KEY (user_id, usage_date, style)
+);
@@ -0,0 +1,27 @@
+-- === AI_BACKFILL_RUNS =====================================================
+-- 既存日記の content_ai 一括再生成（管理者操作）の実行状態とチェックポイント
+-- - last_diary_id まで処理済み（id のキーセットで再開する）
+-- - max_diary_id は開始時点の最大 id（開始後の新規日記は通常のジョブで生成される）
+-- - RUNNING で heartbeat_at が古いものは、他ノード・再起動後に引き継がれる
+CREATE TABLE IF NOT EXISTS ai_backfill_runs (
+  id             BIGSERIAL PRIMARY KEY,
+  styles         VARCHAR(64) NOT NULL,
+  only_missing   BOOLEAN NOT NULL DEFAULT TRUE,
+  status         VARCHAR(16) NOT NULL DEFAULT 'RUNNING',
+  last_diary_id  BIGINT NOT NULL DEFAULT 0,
+  max_diary_id   BIGINT NOT NULL,
+  processed      BIGINT NOT NULL DEFAULT 0,
+  succeeded      BIGINT NOT NULL DEFAULT 0,
+  failed         BIGINT NOT NULL DEFAULT 0,
+  skipped        BIGINT NOT NULL DEFAULT 0,
+  last_error     VARCHAR(512),
+  created_by     VARCHAR(255),
+  created_at     TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  heartbeat_at   TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  finished_at    TIMESTAMPTZ,
+  CONSTRAINT chk_ai_backfill_runs_status
+    CHECK (status IN ('RUNNING','DONE','CANCELLED','FAILED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_ai_backfill_runs_running
+  ON ai_backfill_runs (heartbeat_at) WHERE status = 'RUNNING';
@@ -0,0 +1,13 @@
+-- === AI_JOBS: 優先レーン ===================================================
+-- - premium: 登録時点のユーザーのプレミアム有無（レーン）
+-- - priority_at: 取得順の基準。next_run_at からプレミアムの優遇分を引いた時刻
+--   無料ユーザーのジョブも時間が経てば後から来たプレミアムより先に取得される（飢餓しない）
+ALTER TABLE ai_jobs
+  ADD COLUMN IF NOT EXISTS premium BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE ai_jobs
+  ADD COLUMN IF NOT EXISTS priority_at TIMESTAMPTZ NOT NULL DEFAULT NOW();
+
+UPDATE ai_jobs SET priority_at = next_run_at;
+
+CREATE INDEX IF NOT EXISTS idx_ai_jobs_priority
+  ON ai_jobs (priority_at, id) WHERE status IN ('PENDING','RUNNING');
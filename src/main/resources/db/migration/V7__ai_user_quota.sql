@@ -0,0 +1,16 @@
+-- === DIARIES: AI生成状態の追加 ==============================================
+-- DEFERRED: 利用枠超過のため、枠が補充される時刻までジョブの実行を遅らせた
+-- SKIPPED : 利用枠超過（延期の上限も超過）のため AI生成を行わなかった
+ALTER TABLE diaries DROP CONSTRAINT IF EXISTS chk_diaries_ai_status;
+ALTER TABLE diaries
+  ADD CONSTRAINT chk_diaries_ai_status
+    CHECK (ai_status IN ('NONE','PENDING','DEFERRED','DONE','FAILED','SKIPPED'));
+
+-- === AI_USER_QUOTA ========================================================
+-- ユーザーごとの AI 利用枠（トークンバケット）の残量
+-- アプリ側のメモリで管理し、定期的に UPSERT する（refilled_at 時点の残量。負値は前借り分）
+CREATE TABLE IF NOT EXISTS ai_user_quota (
+  user_id      BIGINT PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+  tokens       DOUBLE PRECISION NOT NULL,
+  refilled_at  TIMESTAMPTZ NOT NULL
+);
@@ -0,0 +1,13 @@
+-- === RATE_LIMIT_USAGE =====================================================
+-- インスタンス（node_id）ごと・キーごとの許可数の累計（ratelimit.backend=postgres の時のみ使用）
+-- 各インスタンスはメモリ上で集計した差分を定期的に加算し、他インスタンスの累計の増分を自分の制限に反映する
+CREATE TABLE IF NOT EXISTS rate_limit_usage (
+  node_id     VARCHAR(100) NOT NULL,
+  rl_key      VARCHAR(255) NOT NULL,
+  total       BIGINT NOT NULL,
+  created_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  updated_at  TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+  PRIMARY KEY (node_id, rl_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_usage_updated ON rate_limit_usage (updated_at);
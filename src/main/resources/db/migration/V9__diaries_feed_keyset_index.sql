@@ -0,0 +1,9 @@
+-- === DIARIES: フィードのカーソル方式ページング用の索引 =======================
+-- (visibility, created_at DESC) に id を加え、(created_at, id) の行比較による範囲走査と
+-- ORDER BY created_at DESC, id DESC を索引だけで満たす（同時刻の行も追加のソートなしで順序が決まる）
+-- 先頭2列が同じなので従来の索引は置き換える（新しい索引ができてから削除する）
+-- 書き込みを止めないよう CONCURRENTLY で作成・削除する（トランザクション外で実行。V9__….sql.conf を参照）
+-- 作成が途中で失敗した場合は INVALID な索引が残るため、それを削除してから再実行する
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_diaries_visibility_created_at_id
+  ON diaries (visibility, created_at DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS idx_diaries_visibility_created_at;
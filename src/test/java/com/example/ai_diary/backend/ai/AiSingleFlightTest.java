@@ -0,0 +1,56 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AiSingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AiSingleFlight flight = new AiSingleFlight(registry);
+
+    @Test
+    void identicalCalls_shareOneUpstream() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> a = flight.execute("k", () -> { calls.incrementAndGet(); return upstream; });
+        CompletableFuture<String> b = flight.execute("k", () -> { calls.incrementAndGet(); return upstream; });
+        upstream.complete("結果");
+
+        assertEquals("結果", a.join());
+        assertEquals("結果", b.join());
+        assertEquals(1, calls.get());
+        assertEquals(1.0, registry.get("ai.singleflight.saved").counter().count());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void upstreamCancelled_onlyWhenAllWaitersCancel() {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> a = flight.execute("k", () -> upstream);
+        CompletableFuture<String> b = flight.execute("k", () -> upstream);
+
+        a.cancel(true);
+        assertFalse(upstream.isCancelled());
+
+        b.cancel(true);
+        assertTrue(upstream.isCancelled());
+        assertEquals(0, flight.size());
+    }
+
+    @Test
+    void afterAllCancelled_nextCallStartsFresh() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        flight.execute("k", () -> first).cancel(true);
+
+        CompletableFuture<String> second = CompletableFuture.completedFuture("新");
+        assertEquals("新", flight.execute("k", () -> second).join());
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.ai_diary.backend.config.AiInputProperties;
+import com.example.ai_diary.backend.config.AiProviderProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class AiTransformServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private OpenAiClient client;
+    private AiResultCache cache;
+    private OpenAiCircuitBreaker breaker;
+    private AiUsageMeter usageMeter;
+    private AiTransformService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(OpenAiClient.class);
+        cache = mock(AiResultCache.class);
+        breaker = mock(OpenAiCircuitBreaker.class);
+        when(breaker.isCallPermitted()).thenReturn(true);
+        usageMeter = mock(AiUsageMeter.class);
+        service = newService(false);
+    }
+
+    private AiTransformService newService(boolean combined) {
+        return newService(combined, new AiInputProperties(), new AiProviderProperties());
+    }
+
+    private AiTransformService newService(boolean combined, AiInputProperties input, AiProviderProperties provider) {
+        return new AiTransformService(client, cache, breaker, new AiSingleFlight(new SimpleMeterRegistry()), usageMeter,
+                input, List.of(new LocalAiProvider(provider)), provider, mapper, true, 1000, combined);
+    }
+
+    private static CompletableFuture<ChatResult> done(String content) {
+        return CompletableFuture.completedFuture(ChatResult.of(content));
+    }
+
+    @Test
+    void transform_sendsAllStylesConcurrently_andPostProcessesHaiku() throws Exception {
+        when(client.chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString()))
+                .thenReturn(done("要約"));
+        when(client.chatAsync(eq(AiStyle.HAIKU.prompt()), anyString()))
+                .thenReturn(done("古池や\n蛙飛び込む\n水の音"));
+
+        JsonNode json = mapper.readTree(service.transformToJson(1L, "本文", List.of("summary", "HAIKU")));
+
+        assertEquals("要約", json.get("summary").asText());
+        assertEquals("古池や / 蛙飛び込む / 水の音", json.get("haiku").asText());
+        // 同期版は使わない
+        verify(client, never()).chat(anyString(), anyString());
+    }
+
+    @Test
+    void transform_keepsFinishedStyles_whenDeadlinePasses() throws Exception {
+        CompletableFuture<ChatResult> slow = new CompletableFuture<>();
+        when(client.chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString()))
+                .thenReturn(done("要約"));
+        when(client.chatAsync(eq(AiStyle.QUOTE.prompt()), anyString())).thenReturn(slow);
+
+        JsonNode json = mapper.readTree(service.transformToJson(1L, "本文", List.of("SUMMARY", "QUOTE")));
+
+        assertEquals("要約", json.get("summary").asText());
+        assertTrue(json.get("quote").isNull(), "締め切り超過分は null");
+        assertTrue(slow.isCancelled(), "締め切り超過分は中断される");
+    }
+
+    @Test
+    void transform_individualFailure_isNull_othersKept() throws Exception {
+        when(client.chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("500")));
+        when(client.chatAsync(eq(AiStyle.HAIKU.prompt()), anyString()))
+                .thenReturn(done("句"));
+
+        JsonNode json = mapper.readTree(service.transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU")));
+
+        assertTrue(json.get("summary").isNull());
+        assertEquals("句", json.get("haiku").asText());
+    }
+
+    @Test
+    void withoutNulls_allStylesFailed_isNull_soTheJobIsRetried() {
+        when(client.chatAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("500")));
+
+        String json = service.transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU"));
+
+        assertNotNull(json, "OpenAI は利用可能なので null ではない");
+        assertNull(service.withoutNulls(json));
+        assertEquals("{\"haiku\":\"句\"}", service.withoutNulls("{\"summary\":null,\"haiku\":\"句\"}"));
+    }
+
+    @Test
+    void transform_quotaExceeded_returnsNull() {
+        when(client.chatAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new OpenAiQuotaExceededException("quota")));
+
+        assertNull(service.transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU")));
+    }
+
+    @Test
+    void transform_circuitOpenedDuringCall_returnsNull() {
+        // 呼び出し前の確認は通過し、送信時に OPEN になっていた場合
+        when(client.chatAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new OpenAiCircuitOpenException("open")));
+        when(client.chatAsync(anyString(), anyString(), eq(true)))
+                .thenReturn(CompletableFuture.failedFuture(new OpenAiCircuitOpenException("open")));
+
+        assertNull(service.transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU")));
+        assertNull(newService(true).transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU")));
+    }
+
+    @Test
+    void transform_invalidStylesOnly_returnsNull() {
+        assertNull(service.transformToJson(1L, "本文", List.of("unknown")));
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void combined_singleCall_parsesJsonPerStyle() throws Exception {
+        AiTransformService combined = newService(true);
+        when(client.chatAsync(anyString(), anyString(), eq(true)))
+                .thenReturn(done("{\"summary\":\"要約\",\"haiku\":\"一\\n二\"}"));
+
+        JsonNode json = mapper.readTree(combined.transformToJson(1L, "本文", List.of("SUMMARY", "HAIKU")));
+
+        assertEquals("要約", json.get("summary").asText());
+        assertEquals("一 / 二", json.get("haiku").asText());
+        verify(client, never()).chatAsync(anyString(), anyString());
+    }
+
+    @Test
+    void combined_invalidReply_fallsBackToPerStyle_forMissingStyles() throws Exception {
+        AiTransformService combined = newService(true);
+        when(client.chatAsync(anyString(), anyString(), eq(true)))
+                .thenReturn(done("{\"summary\":\"要約\",\"quote\":\"\"}"));
+        when(client.chatAsync(eq(AiStyle.QUOTE.prompt()), anyString()))
+                .thenReturn(done("名言"));
+
+        JsonNode json = mapper.readTree(combined.transformToJson(1L, "本文", List.of("SUMMARY", "QUOTE")));
+
+        assertEquals("要約", json.get("summary").asText());
+        assertEquals("名言", json.get("quote").asText(), "空の値は個別生成で補う");
+        verify(client, never()).chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString());
+    }
+
+    @Test
+    void combined_unparsableReply_fallsBackToPerStyle() throws Exception {
+        AiTransformService combined = newService(true);
+        when(client.chatAsync(anyString(), anyString(), eq(true)))
+                .thenReturn(done("not json"));
+        when(client.chatAsync(anyString(), anyString()))
+                .thenReturn(done("個別"));
+
+        JsonNode json = mapper.readTree(combined.transformToJson(1L, "本文", List.of("SUMMARY", "QUOTE")));
+
+        assertEquals("個別", json.get("summary").asText());
+        assertEquals("個別", json.get("quote").asText());
+    }
+
+    @Test
+    void transform_cachedStyles_skipOpenAi_andNewResultsAreStored() throws Exception {
+        when(cache.get(AiStyle.SUMMARY, "本文")).thenReturn("キャッシュ要約");
+        when(client.chatAsync(eq(AiStyle.QUOTE.prompt()), anyString()))
+                .thenReturn(done("名言"));
+
+        JsonNode json = mapper.readTree(service.transformToJson(1L, "本文", List.of("SUMMARY", "QUOTE")));
+
+        assertEquals("キャッシュ要約", json.get("summary").asText());
+        assertEquals("名言", json.get("quote").asText());
+        verify(client, never()).chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString());
+        verify(cache).put(AiStyle.QUOTE, "本文", "名言");
+    }
+
+    @Test
+    void transform_circuitOpen_skipsOpenAi() {
+        when(breaker.isCallPermitted()).thenReturn(false);
+
+        assertNull(service.transformToJson(1L, "本文", List.of("summary")));
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void transform_recordsUsage_andTrimsInputToBudget() {
+        AiInputProperties input = new AiInputProperties();
+        input.getMaxTokens().put("summary", 10);
+        AiTransformService svc = newService(false, input, new AiProviderProperties());
+        ChatResult result = new ChatResult("要約", 12, 5);
+        when(client.chatAsync(eq(AiStyle.SUMMARY.prompt()), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(result));
+
+        svc.transformToJson(7L, "あ".repeat(100), List.of("summary"));
+
+        verify(client).chatAsync(eq(AiStyle.SUMMARY.prompt()),
+                argThat(s -> TokenEstimator.estimate(s.substring("本文:\n".length())) <= 10));
+        verify(usageMeter).record(7L, "summary", result);
+    }
+
+    @Test
+    void transform_quotaExceeded_fallsBackToLocalForConfiguredStyles() throws Exception {
+        AiProviderProperties provider = new AiProviderProperties();
+        provider.getMode().put("summary", AiProviderProperties.Mode.FALLBACK);
+        AiTransformService svc = newService(false, new AiInputProperties(), provider);
+        when(client.chatAsync(anyString(), anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new OpenAiQuotaExceededException("quota")));
+
+        JsonNode json = mapper.readTree(svc.transformToJson(1L, "雨だった。午後は晴れた。", List.of("SUMMARY", "HAIKU")));
+
+        assertEquals("雨だった。午後は晴れた。", json.get("summary").asText());
+        assertTrue(json.get("haiku").isNull());
+        verify(cache, never()).put(eq(AiStyle.SUMMARY), anyString(), anyString());
+    }
+
+    @Test
+    void transform_primaryLocalStyle_skipsOpenAi() throws Exception {
+        AiProviderProperties provider = new AiProviderProperties();
+        provider.getMode().put("quote", AiProviderProperties.Mode.PRIMARY);
+        AiTransformService svc = newService(false, new AiInputProperties(), provider);
+
+        JsonNode json = mapper.readTree(svc.transformToJson(1L, "今日は楽しかった。", List.of("quote")));
+
+        assertEquals("今日は楽しかった。", json.get("quote").asText());
+        verifyNoInteractions(client);
+    }
+}
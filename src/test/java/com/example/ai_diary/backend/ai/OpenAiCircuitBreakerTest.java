@@ -0,0 +1,46 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OpenAiCircuitBreakerTest {
+
+    private static OpenAiCircuitBreaker breaker(long openMs) {
+        // window 4 / minimum 4 / 失敗率50% / 遅延 10s / 遅延率100% / half-open 2件
+        return new OpenAiCircuitBreaker(new SimpleMeterRegistry(), 4, 4, 50, 10_000, 100, openMs, 2);
+    }
+
+    @Test
+    void opensWhenFailureRateExceeded() {
+        OpenAiCircuitBreaker b = breaker(60_000);
+        b.onSuccess(0);
+        b.onSuccess(0);
+        b.onFailure(0);
+        assertEquals(OpenAiCircuitBreaker.State.CLOSED, b.state());
+
+        b.onFailure(0);
+        assertEquals(OpenAiCircuitBreaker.State.OPEN, b.state());
+        assertFalse(b.tryAcquire());
+    }
+
+    @Test
+    void halfOpen_closesAfterTrialSuccesses() throws Exception {
+        OpenAiCircuitBreaker b = breaker(1);
+        for (int i = 0; i < 4; i++) {
+            b.onFailure(0);
+        }
+        Thread.sleep(5);
+
+        assertEquals(OpenAiCircuitBreaker.State.HALF_OPEN, b.state());
+        assertTrue(b.tryAcquire());
+        assertTrue(b.tryAcquire());
+        assertFalse(b.tryAcquire());
+
+        b.onSuccess(0);
+        b.onSuccess(0);
+        assertEquals(OpenAiCircuitBreaker.State.CLOSED, b.state());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ai_diary.backend.ai;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * OpenAiClient のリクエスト作成・応答解析のマイクロベンチマーク（旧実装との比較）
+ * - 既定のテスト実行には含まれない。実行方法:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.example.ai_diary.backend.ai.OpenAiClientBenchmark
+ * - gc.alloc.rate.norm（B/op）が1回あたりの割り当て量
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiClientBenchmark {
+
+    private static final String SYSTEM = "次の日記を3行で要約してください。";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private OpenAiClient client;
+    private String content;
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        client = new OpenAiClient("key", "http://127.0.0.1/v1/chat/completions", "gpt-4o-mini", 10_000, 2, 500,
+                20_000, 0.2,
+                new OpenAiCircuitBreaker(new SimpleMeterRegistry(), 20, 10, 50, 10_000, 80, 30_000, 3),
+                new OpenAiConcurrencyLimiter(new SimpleMeterRegistry(), 20, 2, 200, 0.9, 10_000, 100),
+                new OpenAiStats(200, 300_000), mapper);
+
+        content = AiTransformService.input(
+                "今日は朝から雨だったが、午後には晴れて近所の公園まで散歩した。\"桜\"がもう咲き始めていた。\n".repeat(20), 1200);
+
+        String reply = "雨のち晴れの一日。\\n午後は公園まで散歩した。\\n桜が咲き始めていた。".repeat(4);
+        response = ("""
+                {"id":"chatcmpl-abc","object":"chat.completion","created":1700000000,"model":"gpt-4o-mini",
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"%s","refusal":null},
+                   "logprobs":null,"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":512,"completion_tokens":96,"total_tokens":608,
+                   "prompt_tokens_details":{"cached_tokens":0,"audio_tokens":0},
+                   "completion_tokens_details":{"reasoning_tokens":0,"audio_tokens":0}},
+                 "system_fingerprint":"fp_0123456789"}
+                """.formatted(reply)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** 旧実装: テキストブロック + writeValueAsString、BodyPublishers.ofString でのエンコード相当 */
+    @Benchmark
+    public byte[] payload_legacy() throws IOException {
+        String payload = """
+                {
+                          "model": "%s",
+                          "temperature": 0.7,%s%s
+                          "messages": [
+                            {"role":"system","content": %s},
+                            {"role":"user","content": %s}
+                          ]
+                }
+                """.formatted("gpt-4o-mini", "", "", mapper.writeValueAsString(SYSTEM),
+                mapper.writeValueAsString(content));
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] payload_streaming() throws IOException {
+        return client.payload(SYSTEM, content, false, false);
+    }
+
+    /** 旧実装: BodyHandlers.ofString でのデコード相当 + readTree */
+    @Benchmark
+    public ChatResult parse_legacy() throws IOException {
+        JsonNode root = mapper.readTree(new String(response, StandardCharsets.UTF_8));
+        JsonNode usage = root.path("usage");
+        return new ChatResult(root.path("choices").get(0).path("message").path("content").asText(),
+                usage.path("prompt_tokens").asInt(0), usage.path("completion_tokens").asInt(0));
+    }
+
+    @Benchmark
+    public ChatResult parse_streaming() {
+        return client.parseResult(response);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(OpenAiClientBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
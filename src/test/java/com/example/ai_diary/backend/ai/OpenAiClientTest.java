@@ -0,0 +1,160 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 疑似 OpenAI サーバに対する OpenAiClient の結合テスト
+ */
+class OpenAiClientTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private FakeOpenAiServer fake;
+    private OpenAiCircuitBreaker breaker;
+    private OpenAiConcurrencyLimiter limiter;
+    private OpenAiStats stats;
+    private OpenAiClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fake = FakeOpenAiServer.start(0, mapper, new FakeOpenAiServer.Settings()
+                .setLatencyMedianMs(5).setLatencySigma(0).setRetryAfterMs(50).setStreamChunkDelayMs(0));
+        breaker = new OpenAiCircuitBreaker(new SimpleMeterRegistry(), 20, 10, 50, 10_000, 80, 30_000, 3);
+        limiter = new OpenAiConcurrencyLimiter(new SimpleMeterRegistry(), 4, 1, 16, 0.5, 10_000, 8);
+        stats = new OpenAiStats(100, 60_000);
+        client = new OpenAiClient("test-key", fake.url(), "gpt-4o-mini", 5_000, 2, 10, 1_000, 0.2, breaker,
+                limiter, stats, mapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fake.close();
+    }
+
+    @Test
+    void chatAsync_returnsContentAndUsage() {
+        ChatResult r = client.chatAsync("要約して", "本文:\n今日は晴れ").join();
+
+        assertEquals("（fake）今日は晴れ", r.content());
+        assertTrue(r.promptTokens() > 0);
+        assertTrue(r.completionTokens() > 0);
+    }
+
+    @Test
+    void chatAsync_retriesRateLimitAndServerError() {
+        fake.failNext(429, 1);
+        fake.failNext(503, 1);
+
+        ChatResult r = client.chatAsync("要約して", "本文:\nA").join();
+
+        assertEquals("（fake）A", r.content());
+        assertEquals(3, fake.requestCount());
+    }
+
+    @Test
+    void chatAsync_rateLimitedBeyondRetries_isQuotaExceeded() {
+        fake.failNext(429, 3);
+
+        Exception e = assertThrows(Exception.class, () -> client.chatAsync("要約して", "本文:\nA").join());
+
+        assertInstanceOf(OpenAiQuotaExceededException.class, e.getCause());
+        assertEquals(3, fake.requestCount());
+        assertTrue(limiter.limit() < 4);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void clientErrors_areNotRetried_andDoNotOpenCircuit() {
+        // 最小呼び出し数（10）を超える 400 が続いても OPEN にならない
+        fake.failNext(400, 12);
+        for (int i = 0; i < 12; i++) {
+            Exception e = assertThrows(Exception.class, () -> client.chatAsync("要約して", "本文:\nA").join());
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        fake.failNext(401, 1);
+        assertThrows(IllegalStateException.class, () -> client.chatStream("要約して", "本文:\nA", d -> { }));
+
+        assertEquals(13, fake.requestCount());
+        assertEquals(OpenAiCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void chatAsync_jsonMode_returnsRequestedKeys() throws Exception {
+        ChatResult r = client.chatAsync("出力:\n- \"summary\": 要約\n- \"haiku\": 俳句\n", "本文:\nB", true).join();
+
+        assertTrue(mapper.readTree(r.content()).has("summary"));
+        assertTrue(mapper.readTree(r.content()).has("haiku"));
+    }
+
+    @Test
+    void chatStream_relaysDeltas_andReadsFinalUsage() throws Exception {
+        List<String> deltas = new ArrayList<>();
+
+        ChatResult r = client.chatStream("要約して", "本文:\n春の朝に散歩した", deltas::add);
+
+        assertTrue(deltas.size() > 1);
+        assertEquals(r.content(), String.join("", deltas));
+        assertTrue(r.promptTokens() > 0);
+        assertTrue(r.completionTokens() > 0);
+    }
+
+    @Test
+    void chatStream_clientGone_isNotCountedAsFailure_butReadErrorIs() {
+        assertThrows(StreamClientGoneException.class, () -> client.chatStream("要約して", "本文:\nA", d -> {
+            throw new StreamClientGoneException(new IOException("broken pipe"));
+        }));
+        assertEquals(0, stats.snapshot().samples());
+        assertEquals(0, limiter.inFlight());
+
+        // 受信中の入出力エラー（OpenAI 側の切断など）は失敗として数える
+        assertThrows(UncheckedIOException.class, () -> client.chatStream("要約して", "本文:\nA", d -> {
+            throw new UncheckedIOException(new IOException("connection reset"));
+        }));
+        assertEquals(1, stats.snapshot().samples());
+        assertEquals(0.0, stats.snapshot().successRate());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void parseResult_readsContentAndUsage_inAnyOrder() {
+        byte[] body = """
+                {"usage":{"prompt_tokens":12,"completion_tokens":3,"details":{"x":[1,2]}},
+                 "choices":[{"index":0,"message":{"role":"assistant","content":"晴れ\\n"}},{"index":1}],
+                 "id":"x"}
+                """.getBytes(StandardCharsets.UTF_8);
+
+        ChatResult r = client.parseResult(body);
+
+        assertEquals("晴れ\n", r.content());
+        assertEquals(12, r.promptTokens());
+        assertEquals(3, r.completionTokens());
+        assertThrows(IllegalStateException.class,
+                () -> client.parseResult("{\"choices\":[]}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void payload_isValidJson() throws Exception {
+        JsonNode root = mapper.readTree(client.payload("指示\"", "本文:\n改行", true, true));
+
+        assertEquals("gpt-4o-mini", root.path("model").asText());
+        assertEquals("json_object", root.path("response_format").path("type").asText());
+        assertTrue(root.path("stream_options").path("include_usage").asBoolean());
+        assertEquals("指示\"", root.path("messages").get(0).path("content").asText());
+        assertEquals("本文:\n改行", root.path("messages").get(1).path("content").asText());
+    }
+}
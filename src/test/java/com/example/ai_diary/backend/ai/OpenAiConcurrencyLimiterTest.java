@@ -0,0 +1,70 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OpenAiConcurrencyLimiterTest {
+
+    private static OpenAiConcurrencyLimiter limiter(int initial, int maxQueue) {
+        // min 1 / max 10 / 減少率 0.5 / 遅延閾値 1s
+        return new OpenAiConcurrencyLimiter(new SimpleMeterRegistry(), initial, 1, 10, 0.5, 1_000, maxQueue);
+    }
+
+    @Test
+    void queuesBeyondLimit_andRejectsWhenQueueFull() {
+        OpenAiConcurrencyLimiter l = limiter(1, 1);
+        OpenAiConcurrencyLimiter.Permit first = l.acquire().join();
+
+        CompletableFuture<OpenAiConcurrencyLimiter.Permit> queued = l.acquire();
+        assertFalse(queued.isDone());
+        assertEquals(1, l.queueDepth());
+
+        CompletionException e = assertThrows(CompletionException.class, () -> l.acquire().join());
+        assertInstanceOf(OpenAiLimitExceededException.class, e.getCause());
+
+        first.release();
+        assertTrue(queued.isDone());
+        assertEquals(1, l.inFlight());
+        assertEquals(0, l.queueDepth());
+    }
+
+    @Test
+    void increasesOnSuccess_andBacksOffOnDropOrSlowCall() {
+        OpenAiConcurrencyLimiter l = limiter(2, 10);
+
+        for (int i = 0; i < 6; i++) {
+            OpenAiConcurrencyLimiter.Permit a = l.acquire().join();
+            OpenAiConcurrencyLimiter.Permit b = l.acquire().join();
+            a.onSuccess(1_000_000);
+            b.onSuccess(1_000_000);
+        }
+        assertEquals(4, l.limit());
+
+        l.acquire().join().onDropped();
+        assertEquals(2, l.limit());
+
+        l.acquire().join().onSuccess(2_000_000_000L);
+        assertEquals(1, l.limit());
+        assertEquals(0, l.inFlight());
+    }
+
+    @Test
+    void cancelledWaiter_leavesQueue() {
+        OpenAiConcurrencyLimiter l = limiter(1, 4);
+        OpenAiConcurrencyLimiter.Permit first = l.acquire().join();
+
+        CompletableFuture<OpenAiConcurrencyLimiter.Permit> queued = l.acquire();
+        queued.cancel(true);
+        assertEquals(0, l.queueDepth());
+
+        first.release();
+        first.release();
+        assertEquals(0, l.inFlight());
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class OpenAiStatsTest {
+
+    @Test
+    void snapshot_computesSuccessRateAndPercentiles() {
+        OpenAiStats stats = new OpenAiStats(100, 60_000);
+        for (int i = 1; i <= 100; i++) {
+            stats.record(i % 10 != 0, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        OpenAiStats.Snapshot s = stats.snapshot();
+
+        assertEquals(100, s.samples());
+        assertEquals(0.9, s.successRate(), 1e-9);
+        assertEquals(50, s.p50Ms());
+        assertEquals(95, s.p95Ms());
+        assertEquals(99, s.p99Ms());
+        assertNull(s.lastRateLimitedAt());
+    }
+
+    @Test
+    void snapshot_keepsOnlyLatestWindow() {
+        OpenAiStats stats = new OpenAiStats(3, 60_000);
+        stats.record(false, 0);
+        stats.record(true, 0);
+        stats.record(true, 0);
+        stats.record(true, 0);
+
+        assertEquals(1.0, stats.snapshot().successRate(), 1e-9);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.ai_diary.backend.config.RateLimitProperties.KeyType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PostgresRateLimitBackendTest {
+
+    // 平均 1件/秒・バースト5（テスト中の補充は無視できる）
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy("p", 1, 5, KeyType.IP);
+
+    private JdbcTemplate jdbc;
+    private PostgresRateLimitBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForObject(anyString(), eq(Timestamp.class))).thenReturn(new Timestamp(System.currentTimeMillis()));
+        backend = new PostgresRateLimitBackend(jdbc, new SimpleMeterRegistry(), 100, "a", 600_000);
+    }
+
+    @Test
+    void remoteUsage_isDebitedFromLocalAllowance() {
+        // ポリシーのバケットは最初の判定で作られる
+        assertTrue(backend.tryAcquire(POLICY, "ip0").allowed());
+
+        // 新しい行は累計がそのまま増分
+        backend.applyRemote(List.of(new PostgresRateLimitBackend.Usage("b", shared("ip1"), 3, true)));
+        assertEquals(2, allowed("ip1", 5));
+
+        // 初めて見る古い行は基準点のみ。以後は前回との差分だけ差し引く
+        backend.applyRemote(List.of(new PostgresRateLimitBackend.Usage("b", shared("ip2"), 100, false)));
+        backend.applyRemote(List.of(new PostgresRateLimitBackend.Usage("b", shared("ip2"), 104, false)));
+        assertEquals(1, allowed("ip2", 5));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void dbDown_limitsLocally_andSendsCountsAfterRecovery() {
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doReturn(new int[0])
+                .when(jdbc).batchUpdate(anyString(), anyList());
+
+        assertEquals(5, allowed("ip1", 7));
+        backend.sync();
+        assertTrue(backend.isDegraded());
+        assertEquals(0, allowed("ip1", 1), "インスタンス内の制限は続く");
+
+        backend.sync();
+        assertFalse(backend.isDegraded());
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbc, times(2)).batchUpdate(anyString(), batch.capture());
+        assertArrayEquals(new Object[] { "a", shared("ip1"), 5L }, batch.getValue().get(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void hash_isSha256Prefix_onEveryThread() throws Exception {
+        // SHA-256("abc") の先頭 128bit
+        assertEquals("ba7816bf8f01cfea414140de5dae2223", PostgresRateLimitBackend.hash("abc"));
+        String[] other = new String[1];
+        Thread t = new Thread(() -> other[0] = PostgresRateLimitBackend.hash("abc"));
+        t.start();
+        t.join();
+        assertEquals(PostgresRateLimitBackend.hash("abc"), other[0]);
+    }
+
+    @Test
+    void longKey_isStoredWithinColumn_andStillDebitedFromRemote() {
+        // rl_key は VARCHAR(255)
+        String longKey = "u:" + "x".repeat(300) + "@example.com";
+        assertEquals(5, allowed(longKey, 5));
+        backend.sync();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbc).batchUpdate(anyString(), batch.capture());
+        String stored = (String) batch.getValue().get(0)[1];
+        assertTrue(stored.length() <= 255);
+
+        // 他インスタンスが同じキーで送った分も差し引かれる
+        backend.applyRemote(List.of(new PostgresRateLimitBackend.Usage("b", stored, 3, true)));
+        assertEquals(0, allowed(longKey, 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void rejectedRow_isDropped_andDoesNotBlockLaterSyncs() {
+        String bad = shared("ip1");
+        doThrow(new DataIntegrityViolationException("value too long")).when(jdbc).batchUpdate(anyString(), anyList());
+        when(jdbc.update(anyString(), (Object[]) any())).thenAnswer(inv -> {
+            if (bad.equals(inv.getArgument(2))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return 1;
+        });
+
+        allowed("ip1", 1);
+        allowed("ip2", 1);
+        backend.sync();
+        assertFalse(backend.isDegraded(), "書けない行があっても同期は続く");
+        verify(jdbc).update(anyString(), eq("a"), eq(shared("ip2")), eq(1L));
+
+        // 書けなかった行は持ち越さない
+        reset(jdbc);
+        when(jdbc.queryForObject(anyString(), eq(Timestamp.class))).thenReturn(new Timestamp(System.currentTimeMillis()));
+        backend.sync();
+        verify(jdbc, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static String shared(String key) {
+        return "p|" + PostgresRateLimitBackend.hash(key);
+    }
+
+    private int allowed(String key, int attempts) {
+        int n = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (backend.tryAcquire(POLICY, key).allowed()) {
+                n++;
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.ai_diary.backend.config.RateLimitProperties;
+import com.example.ai_diary.backend.config.RateLimitProperties.KeyType;
+import com.example.ai_diary.backend.security.AuthUser;
+
+class RateLimitPoliciesTest {
+
+    @AfterEach
+    void clear() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolve_exactBeforePatterns_methodSpecificBeforeAny() {
+        RateLimitPolicies policies = new RateLimitPolicies(props(
+                policy("api", "/api/**", null, KeyType.IP),
+                policy("create", "/api/diary", "post", KeyType.USER),
+                policy("diary", "/api/diary", null, KeyType.IP),
+                policy("detail", "/api/diary/{id}", "GET", KeyType.USER)), 10, 10);
+
+        assertEquals("create", policies.resolve("POST", "/api/diary").name());
+        assertEquals("diary", policies.resolve("GET", "/api/diary").name());
+        // パターン同士は宣言順
+        assertEquals("api", policies.resolve("GET", "/api/diary/3").name());
+        assertEquals("default", policies.resolve("GET", "/actuator/health").name());
+        assertEquals(10, policies.resolve("GET", "/other").burst());
+    }
+
+    @Test
+    void key_usesUserWhenAuthenticated_elseIp() {
+        RateLimitPolicies policies = new RateLimitPolicies(props(
+                policy("create", "/api/diary", "POST", KeyType.USER)), 10, 10);
+        RateLimitPolicy create = policies.resolve("POST", "/api/diary");
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/diary");
+        req.setRemoteAddr("10.0.0.1");
+
+        assertEquals("ip:10.0.0.1", policies.key(create, req));
+
+        // AuthUser 以外の主体は IP で数える
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("a@example.com", null, List.of()));
+        assertEquals("ip:10.0.0.1", policies.key(create, req));
+
+        AuthUser user = new AuthUser(42L, "a@example.com", false, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+        assertEquals("u:42", policies.key(create, req));
+        assertEquals("ip:10.0.0.1", policies.key(policies.resolve("GET", "/api/feed"), req));
+    }
+
+    private static RateLimitProperties props(RateLimitProperties.Policy... policies) {
+        RateLimitProperties p = new RateLimitProperties();
+        p.setPolicies(List.of(policies));
+        return p;
+    }
+
+    private static RateLimitProperties.Policy policy(String name, String path, String method, KeyType key) {
+        RateLimitProperties.Policy p = new RateLimitProperties.Policy();
+        p.setName(name);
+        p.setPath(path);
+        p.setMethod(method);
+        p.setKey(key);
+        p.setPerSecond(1);
+        return p;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class RetryAfterTest {
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> map = new java.util.HashMap<>();
+        values.forEach((k, v) -> map.put(k, List.of(v)));
+        return HttpHeaders.of(map, (k, v) -> true);
+    }
+
+    @Test
+    void from_prefersRetryAfterMs() {
+        Optional<Duration> d = RetryAfter.from(headers(Map.of("retry-after-ms", "1500", "retry-after", "9")));
+        assertEquals(Duration.ofMillis(1500), d.orElseThrow());
+    }
+
+    @Test
+    void from_retryAfterSeconds() {
+        assertEquals(Duration.ofSeconds(2), RetryAfter.from(headers(Map.of("retry-after", "2"))).orElseThrow());
+    }
+
+    @Test
+    void from_usesExhaustedResetHeader() {
+        Optional<Duration> d = RetryAfter.from(headers(Map.of(
+                "x-ratelimit-reset-requests", "20ms",
+                "x-ratelimit-reset-tokens", "6m0s",
+                "x-ratelimit-remaining-tokens", "0")));
+        assertEquals(Duration.ofMinutes(6), d.orElseThrow());
+    }
+
+    @Test
+    void parseDuration_rejectsGarbage() {
+        assertEquals(Duration.ofMillis(1500), RetryAfter.parseDuration("1.5s").orElseThrow());
+        assertTrue(RetryAfter.parseDuration("abc").isEmpty());
+    }
+}
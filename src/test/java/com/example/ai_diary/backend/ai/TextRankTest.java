@@ -0,0 +1,49 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TextRankTest {
+
+    @Test
+    void sentences_splitOnTerminatorsAndNewlines_keepingClosingBrackets() {
+        List<String> s = TextRank.sentences("「おはよう。」と言った。\n雨だった！  晴れた？\n\n最後");
+
+        assertEquals(List.of("「おはよう。」", "と言った。", "雨だった！", "晴れた？", "最後"), s);
+    }
+
+    @Test
+    void summarize_picksCentralSentences_inOriginalOrder() {
+        String text = """
+                朝から公園へ散歩に行った。
+                猫が昼寝をしていた。
+                公園の桜が満開で、散歩する人が多かった。
+                夕飯はカレーだった。
+                散歩の途中で公園のベンチに座って桜を眺めた。
+                """;
+
+        String summary = TextRank.summarize(text, 2);
+
+        // 話題（公園・散歩・桜）から外れた文は選ばれない
+        assertEquals(2, TextRank.sentences(summary).size());
+        assertFalse(summary.contains("猫"));
+        assertFalse(summary.contains("カレー"));
+        assertTrue(summary.startsWith("朝から公園へ散歩に行った。"));
+        assertEquals("短い。", TextRank.summarize("短い", 3));
+        assertNull(TextRank.summarize(" \n ", 3));
+    }
+
+    @Test
+    void quote_prefersPositiveClause_andFitsMaxChars() {
+        String text = "朝は雨で気分が沈んでいたが、友達と話せて嬉しかった。夜は早めに寝た。";
+
+        assertEquals("友達と話せて嬉しかった。", TextRank.quote(text, 20));
+
+        String q = TextRank.quote("とてもとてもとてもとてもとても長い一文がここにあります", 10);
+        assertEquals(10, q.codePointCount(0, q.length()));
+        assertTrue(q.endsWith("…"));
+    }
+}
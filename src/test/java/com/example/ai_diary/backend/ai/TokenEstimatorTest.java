@@ -0,0 +1,37 @@
+package com.example.ai_diary.backend.ai;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TokenEstimatorTest {
+
+    @Test
+    void estimate_countsJapanesePerCharAndAsciiPerFourChars() {
+        assertEquals(3, TokenEstimator.estimate("今日は"));
+        assertEquals(2, TokenEstimator.estimate("abcdefgh"));
+        assertEquals(0, TokenEstimator.estimate(null));
+    }
+
+    @Test
+    void fit_withinBudget_returnsAsIs() {
+        assertSame("短い日記", TokenEstimator.fit("短い日記", 100));
+    }
+
+    @Test
+    void fit_condensesBlankLinesBeforeCutting() {
+        assertEquals("朝\n夜", TokenEstimator.fit("朝" + "\n \n".repeat(10) + "夜", 4));
+    }
+
+    @Test
+    void fit_keepsHeadAndTail_withinBudget() {
+        String text = "始".repeat(200) + "中".repeat(1000) + "終".repeat(200);
+
+        String out = TokenEstimator.fit(text, 300);
+
+        assertTrue(TokenEstimator.estimate(out) <= 300);
+        assertTrue(out.startsWith("始"));
+        assertTrue(out.endsWith("終"));
+        assertTrue(out.contains(TokenEstimator.ELLIPSIS));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ai_diary.backend.controller;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.ai_diary.backend.domain.User;
+import com.example.ai_diary.backend.security.JwtUtil;
+import com.example.ai_diary.backend.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 認証済みリクエスト1件あたりの SQL 文の数
+ * - 認証情報はキャッシュ済み・AuthUser から ID を得るため、users への問い合わせは発生しない
+ * - MockMvc はテストのスレッドで実行されるので、そのスレッドの SQL だけを数える（スケジューラの SQL は除外）
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "ai.enabled=false")
+@AutoConfigureMockMvc
+class DiaryControllerSqlCountTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    static final AtomicInteger statements = new AtomicInteger();
+    static volatile Thread counted;
+
+    @TestConfiguration
+    static class SqlCounterConfig {
+        @Bean
+        HibernatePropertiesCustomizer sqlCounter() {
+            StatementInspector inspector = sql -> {
+                if (Thread.currentThread() == counted) {
+                    statements.incrementAndGet();
+                }
+                return sql;
+            };
+            return props -> props.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    JwtUtil jwtUtil;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String email = "sql" + System.nanoTime() + "@test.local";
+        User user = userService.signup(email, "password123", "sql");
+        token = "Bearer " + jwtUtil.generateToken(user.getEmail(), user.getId());
+        // 認証情報をキャッシュに載せる
+        create();
+        counted = Thread.currentThread();
+    }
+
+    @Test
+    void create_issuesOnlyTheInsert() throws Exception {
+        statements.set(0);
+        create();
+        assertThat(statements.get()).as("POST /api/diary").isEqualTo(1);
+    }
+
+    @Test
+    void getOne_issuesOnlyTheDiarySelect() throws Exception {
+        long id = create();
+        statements.set(0);
+        mvc.perform(get("/api/diary/" + id).header("Authorization", token))
+                .andExpect(status().isOk());
+        assertThat(statements.get()).as("GET /api/diary/{id}").isEqualTo(1);
+    }
+
+    private long create() throws Exception {
+        String res = mvc.perform(post("/api/diary").header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"本文\",\"visibility\":\"PRIVATE\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(res).path("id").asLong();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.ai_diary.backend.controller;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.example.ai_diary.backend.ai.FakeOpenAiServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * POST /api/diary のスループット・レイテンシ試験（疑似 OpenAI サーバ使用）
+ * - 既定のテスト実行からは除外（mvn -P loadtest test で実行）
+ * - 規模・疑似サーバの挙動はシステムプロパティで変更できる
+ *   例: -Dload.requests=2000 -Dload.concurrency=64 -Dload.fake.latency-ms=800 -Dload.fake.rate-limit-rate=0.05
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DiaryCreateLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 500);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final long P95_MAX_MS = Long.getLong("load.p95-max-ms", 500);
+    private static final long DRAIN_TIMEOUT_MS = Long.getLong("load.drain-timeout-ms", 120_000);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withDatabaseName("testdb")
+            .withUsername("test")
+            .withPassword("test");
+
+    static FakeOpenAiServer fake;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) throws Exception {
+        fake = FakeOpenAiServer.start(0, new ObjectMapper(), new FakeOpenAiServer.Settings()
+                .setLatencyMedianMs(Long.getLong("load.fake.latency-ms", 300))
+                .setLatencySigma(Double.parseDouble(System.getProperty("load.fake.latency-sigma", "0.5")))
+                .setRateLimitRate(Double.parseDouble(System.getProperty("load.fake.rate-limit-rate", "0.02")))
+                .setServerErrorRate(Double.parseDouble(System.getProperty("load.fake.server-error-rate", "0.01")))
+                .setRetryAfterMs(200));
+
+        registry.add("openai.api.url", fake::url);
+        registry.add("openai.api.key", () -> "fake");
+        registry.add("ai.enabled", () -> "true");
+        registry.add("ratelimit.per-second", () -> Integer.MAX_VALUE);
+        // ポリシーの一覧はまとめて置き換わる
+        registry.add("ratelimit.policies[0].name", () -> "load");
+        registry.add("ratelimit.policies[0].path", () -> "/api/**");
+        registry.add("ratelimit.policies[0].per-second", () -> Integer.MAX_VALUE);
+        registry.add("ai.quota.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopFake() {
+        if (fake != null) {
+            fake.close();
+        }
+    }
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    @Test
+    void createDiary_underConcurrentLoad() throws Exception {
+        String token = signup();
+        String body = """
+                {"content":"今日は朝から雨だったが、午後には晴れて近所の公園まで散歩した。桜がもう咲き始めていた。",
+                 "visibility":"PRIVATE","styles":["SUMMARY","HAIKU","QUOTE"]}
+                """;
+
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<long[]>> results = new ArrayList<>(REQUESTS);
+        long started = System.nanoTime();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(pool.submit(() -> {
+                long t0 = System.nanoTime();
+                HttpResponse<String> res = http.send(post("/api/diary", body, token),
+                        HttpResponse.BodyHandlers.ofString());
+                return new long[] { System.nanoTime() - t0, res.statusCode() };
+            }));
+        }
+
+        long[] latencies = new long[REQUESTS];
+        int errors = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            long[] r = results.get(i).get(60, TimeUnit.SECONDS);
+            latencies[i] = r[0];
+            if (r[1] != 200) {
+                errors++;
+            }
+        }
+        double elapsedSec = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+
+        Arrays.sort(latencies);
+        long p50 = ms(latencies, 0.50);
+        long p95 = ms(latencies, 0.95);
+        long p99 = ms(latencies, 0.99);
+
+        // AI生成ジョブが捌けるまでの時間
+        long drainStart = System.nanoTime();
+        long deadline = drainStart + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+        Integer pending;
+        do {
+            Thread.sleep(200);
+            pending = jdbc.queryForObject("SELECT COUNT(*) FROM diaries WHERE ai_status = 'PENDING'", Integer.class);
+        } while (pending != null && pending > 0 && System.nanoTime() < deadline);
+        double drainSec = (System.nanoTime() - drainStart) / 1e9;
+        Integer failed = jdbc.queryForObject("SELECT COUNT(*) FROM diaries WHERE ai_status = 'FAILED'", Integer.class);
+
+        System.out.printf("""
+                [load] POST /api/diary requests=%d concurrency=%d errors=%d
+                [load] throughput=%.1f req/s p50=%d ms p95=%d ms p99=%d ms
+                [load] ai drain=%.1f s pending=%d failed=%d upstream requests=%d 429=%d 5xx=%d%n""",
+                REQUESTS, CONCURRENCY, errors, REQUESTS / elapsedSec, p50, p95, p99,
+                drainSec, pending, failed, fake.requestCount(), fake.rateLimitedCount(), fake.serverErrorCount());
+
+        assertThat(errors).as("non-200 responses").isZero();
+        assertThat(p95).as("p95 latency (ms)").isLessThanOrEqualTo(P95_MAX_MS);
+        assertThat(pending).as("AI jobs still pending after drain timeout").isZero();
+        assertThat(failed).as("AI jobs failed").isZero();
+    }
+
+    private String signup() throws Exception {
+        String body = """
+                {"email":"load@test.local","password":"password123","displayName":"load"}
+                """;
+        HttpResponse<String> res = http.send(post("/api/auth/signup", body, null),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(res.statusCode()).isEqualTo(200);
+        return mapper.readTree(res.body()).path("token").asText();
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8));
+        if (token != null) {
+            b.header("Authorization", "Bearer " + token);
+        }
+        return b.build();
+    }
+
+    private static long ms(long[] sorted, double p) {
+        int idx = Math.max(0, (int) Math.ceil(p * sorted.length) - 1);
+        return TimeUnit.NANOSECONDS.toMillis(sorted[idx]);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.ai_diary.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
+import com.example.ai_diary.backend.dto.DiaryDtos.Response;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * フィード1ページ（20件）の組み立てコストの比較（エンティティ全列 + Response と、射影 FeedItem）
+ * - DB から届いた列の値（UTF-8）を String に復元し、DTO を作って JSON にするまでを計測する（DB 通信は含まない）
+ * - contentChars は本文の文字数（上限は 4000）。preview は 120 文字、content_ai は要約・俳句・名言の3つ
+ * - 1ページ分の JSON のバイト数は開始時に表示する
+ * - 実行方法は OpenAiClientBenchmark と同じ（クラス名のみ変更）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FeedPayloadBenchmark {
+
+    private static final int PAGE = 20;
+    private static final int PREVIEW_CHARS = 120;
+
+    @Param({ "400", "4000" })
+    public int contentChars;
+
+    private ObjectMapper mapper;
+    /** DB から届く列の値（UTF-8） */
+    private byte[] content;
+    private byte[] contentAi;
+    private byte[] preview;
+    private Instant createdAt;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        String text = "今日は朝から雨だったが、午後には晴れて近所の公園まで散歩した。".repeat(contentChars / 31 + 1)
+                .substring(0, contentChars);
+        content = text.getBytes(StandardCharsets.UTF_8);
+        preview = text.substring(0, PREVIEW_CHARS).getBytes(StandardCharsets.UTF_8);
+        contentAi = mapper.writeValueAsBytes(Map.of(
+                "summary", text.substring(0, Math.min(text.length(), 150)),
+                "haiku", "雨上がり　公園の道　桜咲く",
+                "quote", "午後には晴れて近所の公園まで散歩した。"));
+        createdAt = Instant.parse("2025-04-01T00:00:00Z");
+
+        System.out.printf("%n[feed payload] contentChars=%d bytes/page: entity+Response=%d FeedItem=%d%n",
+                contentChars, entityPage().length, projectionPage().length);
+    }
+
+    /** 変更前: エンティティに全列を読み込み、Response に写して返す */
+    @Benchmark
+    public byte[] entityPage() throws Exception {
+        List<Response> page = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            Diary d = new Diary();
+            d.setId((long) i);
+            d.setUserId(1L);
+            d.setContent(new String(content, StandardCharsets.UTF_8));
+            d.setContentAi(new String(contentAi, StandardCharsets.UTF_8));
+            d.setAiStatus(AiStatus.DONE);
+            d.setVisibility(Visibility.PUBLIC);
+            d.setCreatedAt(createdAt);
+            page.add(Response.from(d));
+        }
+        return mapper.writeValueAsBytes(page);
+    }
+
+    /** 変更後: 一覧に必要な列と本文の先頭だけを FeedItem に詰めて返す */
+    @Benchmark
+    public byte[] projectionPage() throws Exception {
+        List<FeedItem> page = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            page.add(new FeedItem((long) i, 1L, new String(preview, StandardCharsets.UTF_8), true, AiStatus.DONE,
+                    Visibility.PUBLIC, createdAt));
+        }
+        return mapper.writeValueAsBytes(page);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(FeedPayloadBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
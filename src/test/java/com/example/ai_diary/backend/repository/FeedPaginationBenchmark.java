@@ -0,0 +1,183 @@
+package com.example.ai_diary.backend.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * 公開フィードの取得コストの比較（OFFSET + count(*) と、(created_at, id) のカーソル方式）
+ * - depth 件目から size 件を取得する。発行する SQL は Hibernate が生成するものと同じ形
+ * - 既定では Testcontainers の PostgreSQL に bench.rows 件（既定 300万、うち 2/3 が PUBLIC）を投入する
+ *   -Dbench.jdbc-url=jdbc:postgresql://... -Dbench.user=... -Dbench.password=... で既存の DB を使う（件数が足りなければ投入）
+ * - 実行方法は OpenAiClientBenchmark と同じ（クラス名のみ変更。Docker が必要）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedPaginationBenchmark {
+
+    private static final int SIZE = 20;
+
+    private static final String OFFSET_PAGE = """
+            SELECT * FROM diaries WHERE visibility = 'PUBLIC'
+            ORDER BY created_at DESC OFFSET ? LIMIT ?
+            """;
+    private static final String COUNT = "SELECT count(*) FROM diaries WHERE visibility = 'PUBLIC'";
+    private static final String KEYSET_PAGE = """
+            SELECT * FROM diaries WHERE visibility = 'PUBLIC' AND (created_at, id) < (?, ?)
+            ORDER BY created_at DESC, id DESC LIMIT ?
+            """;
+
+    @Param({ "0", "10000", "1000000" })
+    int depth;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection conn;
+    private PreparedStatement offsetPage;
+    private PreparedStatement count;
+    private PreparedStatement keysetPage;
+    /** depth 件目の直前の行（カーソル） */
+    private Timestamp cursorCreatedAt;
+    private long cursorId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("bench.jdbc-url");
+        String user = System.getProperty("bench.user", "test");
+        String password = System.getProperty("bench.password", "test");
+        if (url == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+            url = postgres.getJdbcUrl();
+            user = postgres.getUsername();
+            password = postgres.getPassword();
+        }
+        Flyway.configure().dataSource(url, user, password).locations("classpath:db/migration").load().migrate();
+
+        conn = DriverManager.getConnection(url, user, password);
+        seed(Long.getLong("bench.rows", 3_000_000));
+
+        // カーソル方式は前のページの最後の行を持っている前提（計測外で求める）
+        if (depth > 0) {
+            try (PreparedStatement ps = conn.prepareStatement("""
+                    SELECT created_at, id FROM diaries WHERE visibility = 'PUBLIC'
+                    ORDER BY created_at DESC, id DESC OFFSET ? LIMIT 1
+                    """)) {
+                ps.setInt(1, depth - 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    cursorCreatedAt = rs.getTimestamp(1);
+                    cursorId = rs.getLong(2);
+                }
+            }
+        }
+
+        offsetPage = conn.prepareStatement(OFFSET_PAGE);
+        count = conn.prepareStatement(COUNT);
+        keysetPage = conn.prepareStatement(KEYSET_PAGE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        conn.close();
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    /** 従来の GET /api/feed（Page: 本文の取得 + 総件数） */
+    @Benchmark
+    public void offsetWithCount(Blackhole bh) throws SQLException {
+        offsetPage.setInt(1, depth);
+        offsetPage.setInt(2, SIZE);
+        consume(offsetPage, bh);
+        consume(count, bh);
+    }
+
+    /** GET /api/feed/cursor（先頭はカーソルなし、それ以降は行比較で範囲走査。size + 1 件読む） */
+    @Benchmark
+    public void keyset(Blackhole bh) throws SQLException {
+        if (depth == 0) {
+            offsetPage.setInt(1, 0);
+            offsetPage.setInt(2, SIZE + 1);
+            consume(offsetPage, bh);
+            return;
+        }
+        keysetPage.setTimestamp(1, cursorCreatedAt);
+        keysetPage.setLong(2, cursorId);
+        keysetPage.setInt(3, SIZE + 1);
+        consume(keysetPage, bh);
+    }
+
+    private static void consume(PreparedStatement ps, Blackhole bh) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getObject(1));
+            }
+        }
+    }
+
+    private void seed(long rows) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT count(*) FROM diaries")) {
+                rs.next();
+                if (rs.getLong(1) >= rows) {
+                    return;
+                }
+            }
+            st.execute("""
+                    INSERT INTO users (email, password_hash, display_name)
+                    VALUES ('bench@test.local', 'x', 'bench') ON CONFLICT (email) DO NOTHING
+                    """);
+            // 1秒に数件ずつ、同時刻の行も混ぜる
+            st.execute("""
+                    INSERT INTO diaries (user_id, visibility, content, created_at)
+                    SELECT (SELECT id FROM users WHERE email = 'bench@test.local'),
+                           CASE WHEN g % 3 = 0 THEN 'PRIVATE' ELSE 'PUBLIC' END,
+                           repeat('今日は散歩した。', 20),
+                           TIMESTAMPTZ '2025-01-01' + ((g / 3) * INTERVAL '1 second')
+                    FROM generate_series(1, %d) g
+                    """.formatted(rows));
+            st.execute("VACUUM ANALYZE diaries");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        OptionsBuilder opts = new OptionsBuilder();
+        opts.include(FeedPaginationBenchmark.class.getSimpleName());
+        // フォーク先にも DB の指定を渡す
+        for (String key : new String[] { "bench.rows", "bench.jdbc-url", "bench.user", "bench.password" }) {
+            if (System.getProperty(key) != null) {
+                opts.jvmArgsAppend("-D" + key + "=" + System.getProperty(key));
+            }
+        }
+        new Runner(opts.build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ai_diary.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence raw) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(raw);
+            }
+        };
+
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1)) {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            while (encoder.pending() < 2) {
+                Thread.sleep(5);
+            }
+
+            assertThrows(RejectedExecutionException.class, () -> encoder.encode("c"));
+
+            release.countDown();
+            String a = running.get(5, TimeUnit.SECONDS);
+            String b = queued.get(5, TimeUnit.SECONDS);
+            assertTrue(encoder.matches("a", a));
+            assertTrue(encoder.matches("b", b));
+        }
+    }
+
+    @Test
+    void upgradeEncoding_whenStoredCostIsLower() {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(6, 1, 4)) {
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("pw")));
+            assertFalse(encoder.upgradeEncoding(encoder.encode("pw")));
+        }
+    }
+}
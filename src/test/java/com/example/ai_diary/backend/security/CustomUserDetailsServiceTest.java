@@ -0,0 +1,68 @@
+package com.example.ai_diary.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.example.ai_diary.backend.domain.User;
+import com.example.ai_diary.backend.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CustomUserDetailsServiceTest {
+
+    @Test
+    void loadUserById_returnsCachedAuthUserUntilEvicted() {
+        UserRepository repo = mock(UserRepository.class);
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("admin@example.com");
+        user.setPasswordHash("hash");
+        when(repo.findById(7L)).thenReturn(Optional.of(user));
+        when(repo.findById(8L)).thenReturn(Optional.empty());
+
+        CustomUserDetailsService uds = new CustomUserDetailsService(repo, new SimpleMeterRegistry(),
+                List.of("Admin@Example.com"), 100, 60_000);
+
+        AuthUser first = uds.loadUserById(7L);
+        AuthUser second = uds.loadUserById(7L);
+        assertSame(first, second);
+        assertEquals(7L, first.id());
+        assertEquals("admin@example.com", first.getUsername());
+        assertEquals("", first.getPassword());
+        assertTrue(first.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals(CustomUserDetailsService.ROLE_ADMIN)));
+        verify(repo, times(1)).findById(7L);
+
+        uds.evict(7L);
+        uds.loadUserById(7L);
+        verify(repo, times(2)).findById(7L);
+
+        assertThrows(UsernameNotFoundException.class, () -> uds.loadUserById(8L));
+    }
+
+    @Test
+    void updatePassword_evictsCachedAuthUser() {
+        UserRepository repo = mock(UserRepository.class);
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("a@example.com");
+        user.setPasswordHash("old");
+        when(repo.findById(7L)).thenReturn(Optional.of(user));
+        when(repo.findByEmail("a@example.com")).thenReturn(Optional.of(user));
+
+        CustomUserDetailsService uds = new CustomUserDetailsService(repo, new SimpleMeterRegistry(),
+                List.of(), 100, 60_000);
+        uds.loadUserById(7L);
+
+        uds.updatePassword(uds.loadUserByUsername("a@example.com"), "new");
+
+        assertEquals("new", user.getPasswordHash());
+        uds.loadUserById(7L);
+        verify(repo, times(2)).findById(7L);
+    }
+}
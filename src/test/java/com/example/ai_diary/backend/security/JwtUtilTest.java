@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 
@@ -77,4 +78,19 @@ class JwtUtilTest {
 		assertFalse(jwt.validate(malformed));
 		assertThrows(JwtException.class, () -> jwt.extractSubject(malformed));
 	}
+
+	@Test
+	@DisplayName("uid 付きトークンは verify でユーザーIDとサブジェクトを1回で取り出せる")
+	void verify_returnsUserIdClaim() {
+		JwtUtil jwt = new JwtUtil(SECRET_64B, 60_000L);
+
+		Claims claims = jwt.verify(jwt.generateToken("erin@example.com", 42L));
+		assertNotNull(claims);
+		assertEquals("erin@example.com", claims.getSubject());
+		assertEquals(42L, JwtUtil.userId(claims));
+
+		// 旧形式（uid なし）
+		assertNull(JwtUtil.userId(jwt.verify(jwt.generateToken("erin@example.com"))));
+		assertNull(jwt.verify("not-a-jwt"));
+	}
 }
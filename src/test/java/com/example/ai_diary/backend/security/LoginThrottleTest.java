@@ -0,0 +1,44 @@
+package com.example.ai_diary.backend.security;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class LoginThrottleTest {
+
+    // アカウント: 無料3回 / IP: 無料5回 / 1秒から倍々、最大8秒
+    private final LoginThrottle throttle = new LoginThrottle(100, 3_600_000, 3, 5, 1_000, 8_000);
+
+    @Test
+    void accountBacksOffExponentially_andSuccessResets() {
+        long t = 1_000_000;
+        for (int i = 0; i < 2; i++) {
+            throttle.onFailure("A@example.com", "10.0.0.1", t);
+        }
+        throttle.check("a@example.com", "10.0.0.1", t);
+
+        // 3回目で1秒、4回目で2秒待ち（メールアドレスは正規化して数える）
+        throttle.onFailure("a@example.com", "10.0.0.1", t);
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> throttle.check("a@example.com", "10.0.0.2", t));
+        assertEquals(1, e.getRetryAfterSeconds());
+        throttle.onFailure("a@example.com", "10.0.0.1", t + 1_000);
+        e = assertThrows(LoginThrottledException.class, () -> throttle.check("a@example.com", "10.0.0.2", t + 1_000));
+        assertEquals(2, e.getRetryAfterSeconds());
+        throttle.check("a@example.com", "10.0.0.2", t + 3_000);
+
+        throttle.onSuccess("a@example.com");
+        throttle.onFailure("a@example.com", "10.0.0.3", t + 3_000);
+        throttle.check("a@example.com", "10.0.0.3", t + 3_000);
+    }
+
+    @Test
+    void ipIsThrottledAcrossAccounts() {
+        long t = 1_000_000;
+        for (int i = 0; i < 5; i++) {
+            throttle.onFailure("u" + i + "@example.com", "10.0.0.9", t);
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.check("new@example.com", "10.0.0.9", t));
+        throttle.check("new@example.com", "10.0.0.8", t);
+    }
+}
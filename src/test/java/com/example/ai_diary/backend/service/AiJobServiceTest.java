@@ -0,0 +1,118 @@
+package com.example.ai_diary.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.example.ai_diary.backend.ai.AiStyle;
+import com.example.ai_diary.backend.domain.AiJob;
+import com.example.ai_diary.backend.domain.AiJobStatus;
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.repository.AiJobRepository;
+import com.example.ai_diary.backend.repository.DiaryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AiJobServiceTest {
+
+    private AiJobRepository aiJobRepository;
+    private DiaryRepository diaryRepository;
+    private SimpleMeterRegistry registry;
+    private AiJobService service;
+
+    @BeforeEach
+    void setUp() {
+        aiJobRepository = mock(AiJobRepository.class);
+        when(aiJobRepository.save(any(AiJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        registry = new SimpleMeterRegistry();
+        // 試行5回 / リース 120s / バックオフ 5s / プレミアム優遇 60s
+        diaryRepository = mock(DiaryRepository.class);
+        service = new AiJobService(aiJobRepository, diaryRepository, registry,
+                mock(FeedHeadCache.class), 5, 120_000, 5_000, 60_000);
+    }
+
+    @Test
+    void enqueue_premiumJob_isOrderedAheadByBoost_andAgesAfterRetry() {
+        AiJob premium = service.enqueue(1L, List.of(AiStyle.SUMMARY), true, Instant.now());
+        AiJob free = service.enqueue(2L, List.of(AiStyle.SUMMARY), false, Instant.now());
+
+        assertEquals(premium.getNextRunAt().minus(Duration.ofMinutes(1)), premium.getPriorityAt());
+        assertEquals(free.getNextRunAt(), free.getPriorityAt());
+
+        // 再実行待ちに戻る時も優遇分は維持される
+        premium.setId(10L);
+        premium.setAttempts(1);
+        premium.setLockedAt(Instant.now());
+        when(aiJobRepository.retryIfClaimed(eq(10L), any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+        assertTrue(service.fail(premium, "err"));
+
+        ArgumentCaptor<Instant> nextRunAt = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> priorityAt = ArgumentCaptor.forClass(Instant.class);
+        verify(aiJobRepository).retryIfClaimed(eq(10L), eq(premium.getLockedAt()), eq(AiJobStatus.RUNNING),
+                eq(AiJobStatus.PENDING), eq("err"), nextRunAt.capture(), priorityAt.capture(), any());
+        assertEquals(nextRunAt.getValue().minus(Duration.ofMinutes(1)), priorityAt.getValue());
+    }
+
+    @Test
+    void claim_recordsQueueWaitPerLane() {
+        AiJob premium = new AiJob();
+        premium.setPremium(true);
+        premium.setNextRunAt(Instant.now().minusSeconds(2));
+        AiJob free = new AiJob();
+        free.setNextRunAt(Instant.now().minusSeconds(30));
+        when(aiJobRepository.lockClaimable(any(), any(), eq(2))).thenReturn(List.of(1L, 2L));
+        when(aiJobRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(premium, free));
+
+        assertEquals(2, service.claim(2).size());
+
+        assertTrue(registry.get("ai.jobs.queue.wait").tag("lane", "premium").timer().totalTime(
+                TimeUnit.SECONDS) < 10);
+        assertTrue(registry.get("ai.jobs.queue.wait").tag("lane", "free").timer().totalTime(
+                TimeUnit.SECONDS) >= 30);
+    }
+
+    @Test
+    void complete_writesDiaryOnlyWhileHoldingTheLease() {
+        AiJob job = new AiJob();
+        job.setId(7L);
+        job.setDiaryId(3L);
+        job.setLockedAt(Instant.parse("2025-04-01T00:00:00Z"));
+        when(aiJobRepository.completeIfClaimed(eq(7L), eq(job.getLockedAt()), eq(AiJobStatus.RUNNING),
+                eq(AiJobStatus.DONE), any())).thenReturn(1, 0);
+
+        assertTrue(service.complete(job, "{\"summary\":\"a\"}"));
+        verify(diaryRepository).updateAi(3L, "{\"summary\":\"a\"}", AiStatus.DONE);
+
+        // 他のワーカーが取り直した後の完了は書き込まない
+        assertFalse(service.complete(job, "{\"summary\":\"b\"}"));
+        verify(diaryRepository, never()).updateAi(eq(3L), eq("{\"summary\":\"b\"}"), any());
+    }
+
+    @Test
+    void fail_afterReclaim_isNoOp() {
+        AiJob job = new AiJob();
+        job.setId(7L);
+        job.setDiaryId(3L);
+        job.setAttempts(5);
+        job.setLockedAt(Instant.parse("2025-04-01T00:00:00Z"));
+        // リース期限切れ後に他のワーカーが取り直したため locked_at が一致しない
+        when(aiJobRepository.failIfClaimed(any(), any(), any(), any(), any(), any())).thenReturn(0);
+        when(aiJobRepository.retryIfClaimed(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        assertFalse(service.fail(job, "timeout"));
+        job.setAttempts(1);
+        assertFalse(service.fail(job, "timeout"));
+
+        verify(diaryRepository, never()).updateAiStatus(any(), any());
+        verify(aiJobRepository, never()).findById(any());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.ai_diary.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.ai_diary.backend.domain.AiStatus;
+import com.example.ai_diary.backend.repository.AiUserQuotaRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AiQuotaServiceTest {
+
+    private AiUserQuotaRepository repository;
+    private AiQuotaService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(AiUserQuotaRepository.class);
+        when(repository.findById(anyLong())).thenReturn(Optional.empty());
+        // 無料: 容量3・60/時（1分で1） / プレミアム: 容量10・600/時 / 延期上限 5分
+        service = new AiQuotaService(repository, new SimpleMeterRegistry(), true, 3, 60, 10, 600, 300_000);
+    }
+
+    @Test
+    void reserve_consumesThenDefers_thenSkipsBeyondMaxDefer() {
+        assertEquals(AiStatus.PENDING, service.reserve(1L, false, 3).status());
+
+        AiQuotaService.Reservation deferred = service.reserve(1L, false, 2);
+        assertEquals(AiStatus.DEFERRED, deferred.status());
+        Duration wait = Duration.between(Instant.now(), deferred.runAt());
+        assertTrue(wait.toSeconds() >= 110 && wait.toSeconds() <= 120, wait.toString());
+
+        // 前借り 2 + 4 は 6 分待ちで上限超過（消費しない）
+        assertEquals(AiStatus.SKIPPED, service.reserve(1L, false, 4).status());
+        assertNull(service.reserve(1L, false, 4).runAt());
+        assertEquals(AiStatus.DEFERRED, service.reserve(1L, false, 1).status());
+
+        // プレミアムは別枠
+        assertEquals(AiStatus.PENDING, service.reserve(2L, true, 3).status());
+    }
+
+    @Test
+    void tryConsume_rejectsWithoutBorrowing_andReleaseGivesBack() {
+        assertEquals(0, service.tryConsume(1L, false, 1));
+        assertEquals(0, service.tryConsume(1L, false, 1));
+        assertEquals(0, service.tryConsume(1L, false, 1));
+
+        // 足りなければ消費せず、1件分戻るまでの時間（約1分）を返す
+        long waitMs = service.tryConsume(1L, false, 1);
+        assertTrue(waitMs > 55_000 && waitMs <= 60_000, Long.toString(waitMs));
+        assertTrue(service.tryConsume(1L, false, 1) > 0);
+
+        service.release(1L, false, 1);
+        assertEquals(0, service.tryConsume(1L, false, 1));
+    }
+
+    @Test
+    void flush_writesChangedBucketsOnce() {
+        service.reserve(1L, false, 1);
+
+        service.flush();
+        service.flush();
+
+        verify(repository, times(1)).upsert(eq(1L), doubleThat(t -> t > 1.9 && t <= 2.1), any(Instant.class));
+        assertEquals(1, service.size());
+    }
+}
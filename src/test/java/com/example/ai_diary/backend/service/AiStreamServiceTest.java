@@ -0,0 +1,66 @@
+package com.example.ai_diary.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.ai_diary.backend.ai.AiResultCache;
+import com.example.ai_diary.backend.ai.AiStyle;
+import com.example.ai_diary.backend.ai.AiTransformService;
+import com.example.ai_diary.backend.ai.AiUsageMeter;
+import com.example.ai_diary.backend.ai.OpenAiClient;
+import com.example.ai_diary.backend.ai.StreamClientGoneException;
+import com.example.ai_diary.backend.config.AiInputProperties;
+
+class AiStreamServiceTest {
+
+    private OpenAiClient client;
+    private AiQuotaService aiQuotaService;
+    private AiStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(OpenAiClient.class);
+        aiQuotaService = mock(AiQuotaService.class);
+        service = new AiStreamService(client, mock(AiTransformService.class), mock(AiResultCache.class),
+                mock(AiUsageMeter.class), new AiInputProperties(), mock(DiaryService.class), aiQuotaService, 1,
+                60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void send_afterEmitterCompleted_isClientGone() {
+        // タイムアウト・完了後の送信は IllegalStateException になる
+        SseEmitter emitter = new SseEmitter();
+        emitter.complete();
+
+        StreamClientGoneException e = assertThrows(StreamClientGoneException.class,
+                () -> AiStreamService.send(emitter, AiStreamService.EVENT_DELTA, "差分"));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void relay_refundsQuota_onlyWhenOpenAiFails() throws Exception {
+        when(client.chatStream(anyString(), anyString(), any())).thenThrow(new IOException("connection reset"));
+        service.relay(new SseEmitter(), 1L, 5L, false, AiStyle.SUMMARY, "本文", null);
+        verify(aiQuotaService).release(5L, false, 1);
+
+        // クライアント切断は OpenAI を呼んだ分として枠を戻さない
+        reset(client, aiQuotaService);
+        when(client.chatStream(anyString(), anyString(), any()))
+                .thenThrow(new StreamClientGoneException(new IOException("broken pipe")));
+        service.relay(new SseEmitter(), 1L, 5L, false, AiStyle.SUMMARY, "本文", null);
+        verify(aiQuotaService, never()).release(anyLong(), anyBoolean(), anyInt());
+    }
+}
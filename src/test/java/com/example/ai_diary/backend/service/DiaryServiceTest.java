@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -11,21 +13,29 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import com.example.ai_diary.backend.ai.AiStyle;
 import com.example.ai_diary.backend.ai.AiTransformService;
 import com.example.ai_diary.backend.config.PagingProperties;
+import com.example.ai_diary.backend.domain.AiStatus;
 import com.example.ai_diary.backend.domain.Diary;
 import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
 import com.example.ai_diary.backend.repository.DiaryRepository;
 import com.example.ai_diary.backend.repository.UserRepository;
 
 class DiaryServiceTest {
 
+    private static final Instant NOW = Instant.parse("2025-04-01T00:00:00Z");
+
     private DiaryRepository diaryRepository;
     private UserRepository userRepository;
     private AiTransformService aiTransformService;
+    private AiJobService aiJobService;
+    private AiQuotaService aiQuotaService;
     private DiaryService diaryService;
     private PagingProperties paging;
 
@@ -34,14 +44,20 @@ class DiaryServiceTest {
         diaryRepository = mock(DiaryRepository.class);
         userRepository = mock(UserRepository.class);
         aiTransformService = mock(AiTransformService.class);
-        diaryService = new DiaryService(diaryRepository, userRepository, aiTransformService, paging);
+        aiJobService = mock(AiJobService.class);
+        paging = new PagingProperties();
+        aiQuotaService = mock(AiQuotaService.class);
+        when(aiQuotaService.reserve(any(), anyBoolean(), anyInt()))
+                .thenReturn(new AiQuotaService.Reservation(AiStatus.PENDING, NOW));
+        diaryService = new DiaryService(diaryRepository, userRepository, aiTransformService, aiJobService,
+                aiQuotaService, paging, mock(FeedHeadCache.class), 120);
     }
 
     @Test
-    void create_success_setsContentAi_andDoesNotOverwriteContent() {
+    void create_success_savesPending_andEnqueuesAiJob_andDoesNotOverwriteContent() {
         // arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(new com.example.ai_diary.backend.domain.User()));
-        when(aiTransformService.transformToJson(anyString(), anyList())).thenReturn("{\"summary\":\"要約\"}");
+        when(aiTransformService.isEnabled()).thenReturn(true);
         when(diaryRepository.save(any(Diary.class))).thenAnswer(inv -> {
             Diary d = inv.getArgument(0);
             d.setId(100L);
@@ -49,34 +65,66 @@ class DiaryServiceTest {
         });
 
         // act
-        Diary d = diaryService.create(1L, "  今日は散歩した  ", Visibility.PUBLIC, List.of("SUMMARY","HAIKU"));
+        Diary d = diaryService.create(1L, "  今日は散歩した  ", Visibility.PUBLIC, List.of("SUMMARY","HAIKU","summary"));
 
         // assert
         assertEquals(100L, d.getId());
         assertEquals("今日は散歩した", d.getContent(), "本文はtrimのみで上書きされない");
         assertEquals(Visibility.PUBLIC, d.getVisibility());
-        assertNotNull(d.getContentAi(), "AI生成結果が格納される");
-        assertTrue(d.getContentAi().contains("summary"));
+        assertEquals(AiStatus.PENDING, d.getAiStatus(), "AI生成は非同期（保存時は生成待ち）");
+        assertNull(d.getContentAi(), "保存時点ではAI生成結果は未設定");
+
+        // OpenAIは同期呼び出ししない
+        verify(aiTransformService, never()).transformToJson(any(), anyString(), anyList());
+
+        // ジョブは重複を除いたスタイルで登録される
+        verify(aiJobService).enqueue(100L, List.of(AiStyle.SUMMARY, AiStyle.HAIKU), false, NOW);
+        verify(aiQuotaService).reserve(1L, false, 2);
 
         // 保存時のエンティティを確認
         ArgumentCaptor<Diary> cap = ArgumentCaptor.forClass(Diary.class);
         verify(diaryRepository).save(cap.capture());
         Diary saved = cap.getValue();
         assertEquals("今日は散歩した", saved.getContent());
-        assertEquals(d.getContentAi(), saved.getContentAi());
     }
 
     @Test
-    void create_aiFailure_stillSaves_withContentAiNull() {
+    void create_aiDisabled_stillSaves_withoutJob() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(new com.example.ai_diary.backend.domain.User()));
-        when(aiTransformService.transformToJson(anyString(), anyList())).thenThrow(new RuntimeException("timeout"));
+        when(aiTransformService.isEnabled()).thenReturn(false);
         when(diaryRepository.save(any(Diary.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Diary d = diaryService.create(1L, "本文", Visibility.PRIVATE, List.of("SUMMARY"));
 
         assertEquals("本文", d.getContent());
-        assertNull(d.getContentAi(), "AI失敗時はnull");
+        assertNull(d.getContentAi(), "AI無効時はnull");
+        assertEquals(AiStatus.NONE, d.getAiStatus());
         verify(diaryRepository, times(1)).save(any(Diary.class));
+        verifyNoInteractions(aiJobService);
+    }
+
+    @Test
+    void create_overQuota_defersJob_orSkipsAi() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(new com.example.ai_diary.backend.domain.User()));
+        when(aiTransformService.isEnabled()).thenReturn(true);
+        when(diaryRepository.save(any(Diary.class))).thenAnswer(inv -> {
+            Diary d = inv.getArgument(0);
+            d.setId(100L);
+            return d;
+        });
+        Instant later = NOW.plusSeconds(600);
+        when(aiQuotaService.reserve(any(), anyBoolean(), anyInt()))
+                .thenReturn(new AiQuotaService.Reservation(AiStatus.DEFERRED, later))
+                .thenReturn(new AiQuotaService.Reservation(AiStatus.SKIPPED, null));
+
+        Diary deferred = diaryService.create(1L, "本文", Visibility.PRIVATE, List.of("SUMMARY"));
+        assertEquals(AiStatus.DEFERRED, deferred.getAiStatus());
+        verify(aiJobService).enqueue(100L, List.of(AiStyle.SUMMARY), false, later);
+
+        Diary skipped = diaryService.create(1L, "本文", Visibility.PRIVATE, List.of("SUMMARY"));
+        assertEquals(AiStatus.SKIPPED, skipped.getAiStatus(), "日記は保存され、AI生成のみ行わない");
+        verify(diaryRepository, times(2)).save(any(Diary.class));
+        verifyNoMoreInteractions(aiJobService);
     }
 
     @Test
@@ -103,20 +151,44 @@ class DiaryServiceTest {
     @Test
     void publicFeed_respectsMaxPageSize50_andUsesPublicVisibility() {
         // arrange
-        when(diaryRepository.findByVisibilityOrderByCreatedAtDesc(eq(Visibility.PUBLIC), any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(new Diary())));
+        when(diaryRepository.findFeedItems(eq(Visibility.PUBLIC), anyInt(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(FeedItem.from(new Diary(), 120))));
 
         // act
         diaryService.publicFeed(2, 100); // size=100 を要求 → 50 に丸める仕様
 
         // assert: 渡された Pageable を検証
         ArgumentCaptor<Pageable> cap = ArgumentCaptor.forClass(Pageable.class);
-        verify(diaryRepository).findByVisibilityOrderByCreatedAtDesc(eq(Visibility.PUBLIC), cap.capture());
+        verify(diaryRepository).findFeedItems(eq(Visibility.PUBLIC), eq(120), cap.capture());
         Pageable pg = cap.getValue();
         assertEquals(2, pg.getPageNumber());
         assertEquals(50, pg.getPageSize(), "サイズは上限50に丸められる");
     }
 
+    @Test
+    void publicFeedByCursor_returnsNextCursorFromLastItem_andSeeksWithIt() {
+        Instant t = Instant.parse("2025-01-01T00:00:00.123456Z");
+        List<FeedItem> rows = new ArrayList<>();
+        for (long id = 5; id >= 3; id--) {
+            rows.add(new FeedItem(id, 1L, "本文", false, AiStatus.NONE, Visibility.PUBLIC, t));
+        }
+        when(diaryRepository.findFeedItemsHead(eq(Visibility.PUBLIC), eq(120), any(Limit.class)))
+                .thenReturn(rows);
+
+        // size+1 件読めたので続きあり（最後に返す行 = id 4）
+        DiaryService.FeedSlice first = diaryService.publicFeedByCursor(null, 2);
+        assertEquals(List.of(5L, 4L), first.items().stream().map(FeedItem::id).toList());
+        assertNotNull(first.next());
+        verify(diaryRepository).findFeedItemsHead(Visibility.PUBLIC, 120, Limit.of(3));
+
+        when(diaryRepository.findFeedItemsAfter(Visibility.PUBLIC, t, 4L, 120, Limit.of(3))).thenReturn(rows.subList(2, 3));
+        DiaryService.FeedSlice second = diaryService.publicFeedByCursor(first.next(), 2);
+        assertEquals(1, second.items().size());
+        assertNull(second.next(), "最後のページ");
+
+        assertThrows(IllegalArgumentException.class, () -> diaryService.publicFeedByCursor("%%%", 2));
+    }
+
     @Test
     void getOneWithVisibilityCheck_public_anyoneOk() {
         Diary d = new Diary();
@@ -0,0 +1,113 @@
+package com.example.ai_diary.backend.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.ai_diary.backend.config.PagingProperties;
+import com.example.ai_diary.backend.domain.Diary;
+import com.example.ai_diary.backend.domain.Visibility;
+import com.example.ai_diary.backend.dto.DiaryDtos.FeedItem;
+import com.example.ai_diary.backend.repository.DiaryRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class FeedHeadCacheTest {
+
+    private static final Instant T0 = Instant.parse("2025-04-01T00:00:00Z");
+
+    private DiaryRepository diaryRepository;
+    private FeedHeadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        diaryRepository = mock(DiaryRepository.class);
+        // 先頭 4 件を保持（公開日記は全部で 10 件）
+        List<FeedItem> rows = new ArrayList<>();
+        for (long id = 10; id > 6; id--) {
+            rows.add(FeedItem.from(diary(id, T0.plusSeconds(id)), 120));
+        }
+        when(diaryRepository.findFeedItemsHead(eq(Visibility.PUBLIC), eq(120), any())).thenReturn(rows);
+        when(diaryRepository.countByVisibility(Visibility.PUBLIC)).thenReturn(10L);
+
+        PagingProperties paging = new PagingProperties();
+        cache = new FeedHeadCache(diaryRepository, paging, new SimpleMeterRegistry(), true, 4, 60_000, 120);
+        cache.refresh();
+    }
+
+    @Test
+    void page_servesHead_andCreateShiftsWindow_andChangesEtag() {
+        FeedHeadCache.Head first = cache.page(0, 2);
+        assertNotNull(first);
+        assertEquals(List.of(10L, 9L), ids(first.items()));
+        assertEquals(10L, first.total());
+        assertTrue(first.hasNext());
+        assertEquals(first.etag(), cache.page(0, 2).etag(), "内容が同じなら ETag も同じ");
+
+        // 保持範囲を超えるページは DB から
+        assertNull(cache.page(2, 2));
+
+        // トランザクション外なのですぐに反映される
+        cache.onCreated(diary(11L, T0.plusSeconds(11)));
+        FeedHeadCache.Head after = cache.page(0, 2);
+        assertEquals(List.of(11L, 10L), ids(after.items()));
+        assertEquals(11L, after.total());
+        assertNotEquals(first.etag(), after.etag());
+        assertEquals(List.of(9L, 8L), ids(cache.page(1, 2).items()), "最も古い 7 は押し出される");
+    }
+
+    @Test
+    void deleteShrinksWindow_andStaleSnapshotIsNotServed() {
+        cache.onDeleted(9L);
+        FeedHeadCache.Head head = cache.page(0, 2);
+        assertEquals(List.of(10L, 8L), ids(head.items()));
+        assertEquals(9L, head.total());
+        // 残り 3 件なので 2 ページ目は埋まらない
+        assertNull(cache.page(1, 2));
+
+        long now = System.currentTimeMillis();
+        assertNotNull(cache.page(0, 2, now));
+        assertNull(cache.page(0, 2, now + 120_000), "max-stale-ms を過ぎたら使わない");
+    }
+
+    @Test
+    void createdWithNanos_hasSameEtagAsAfterRefresh() {
+        // エンティティはナノ秒、DB（再読込）はマイクロ秒
+        Instant nanos = T0.plusSeconds(11).plusNanos(123_456_789);
+        cache.onCreated(diary(11L, nanos));
+        String before = cache.page(0, 2).etag();
+
+        List<FeedItem> rows = new ArrayList<>();
+        rows.add(FeedItem.from(diary(11L, nanos.truncatedTo(ChronoUnit.MICROS)), 120));
+        for (long id = 10; id > 7; id--) {
+            rows.add(FeedItem.from(diary(id, T0.plusSeconds(id)), 120));
+        }
+        when(diaryRepository.findFeedItemsHead(eq(Visibility.PUBLIC), eq(120), any())).thenReturn(rows);
+        when(diaryRepository.countByVisibility(Visibility.PUBLIC)).thenReturn(11L);
+        cache.refresh();
+
+        assertEquals(before, cache.page(0, 2).etag());
+    }
+
+    private static Diary diary(long id, Instant createdAt) {
+        Diary d = new Diary();
+        d.setId(id);
+        d.setUserId(1L);
+        d.setContent("日記" + id);
+        d.setVisibility(Visibility.PUBLIC);
+        d.setCreatedAt(createdAt);
+        return d;
+    }
+
+    private static List<Long> ids(List<FeedItem> items) {
+        return items.stream().map(FeedItem::id).toList();
+    }
+}
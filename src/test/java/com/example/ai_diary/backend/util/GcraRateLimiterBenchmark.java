@@ -0,0 +1,106 @@
+package com.example.ai_diary.backend.util;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * レート制限の判定コストの比較（旧 RateLimitFilter の固定窓 + synchronized と GCRA）
+ * - 8スレッドで keys 個の IP に分散してアクセスする（keys=1 が最も競合する）
+ * - 実行方法は OpenAiClientBenchmark と同じ（クラス名のみ変更）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class GcraRateLimiterBenchmark {
+
+    @Param({ "1", "64", "10000" })
+    public int keys;
+
+    private String[] ips;
+    private LegacyWindowLimiter legacy;
+    private GcraRateLimiter gcra;
+
+    @Setup
+    public void setUp() {
+        ips = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            ips[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+        // 判定コストのみを比べるため、ほぼ全件許可される上限にする
+        legacy = new LegacyWindowLimiter(Integer.MAX_VALUE);
+        gcra = new GcraRateLimiter(1e9, Integer.MAX_VALUE / 2, 1_000_000);
+    }
+
+    @Benchmark
+    public boolean legacyWindow() {
+        return legacy.allow(ips[ThreadLocalRandom.current().nextInt(keys)]);
+    }
+
+    @Benchmark
+    public boolean gcra() {
+        return gcra.tryAcquire(ips[ThreadLocalRandom.current().nextInt(keys)]) == 0;
+    }
+
+    /** 旧 RateLimitFilter の判定部分 */
+    static final class LegacyWindowLimiter {
+
+        private final int limitPerSec;
+        private final Map<String, Window> counters = new ConcurrentHashMap<>();
+
+        LegacyWindowLimiter(int limitPerSec) {
+            this.limitPerSec = limitPerSec;
+        }
+
+        boolean allow(String ip) {
+            long nowSec = Instant.now().getEpochSecond();
+            Window w = counters.computeIfAbsent(ip, k -> new Window(nowSec));
+            synchronized (w) {
+                if (w.second != nowSec) {
+                    w.second = nowSec;
+                    w.count.set(0);
+                }
+                return w.count.incrementAndGet() <= limitPerSec;
+            }
+        }
+
+        private static final class Window {
+            long second;
+            AtomicInteger count = new AtomicInteger(0);
+
+            Window(long s) {
+                this.second = s;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(GcraRateLimiterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
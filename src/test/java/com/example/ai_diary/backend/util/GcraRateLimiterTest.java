@@ -0,0 +1,57 @@
+package com.example.ai_diary.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class GcraRateLimiterTest {
+
+    private static final long SEC = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurst_thenSpacesAtRate_noDoubleAtWindowEdge() {
+        // 10件/秒・バースト10
+        GcraRateLimiter l = new GcraRateLimiter(10, 10, 100);
+        long t0 = 1_000 * SEC;
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(0, l.tryAcquire("a", t0 + SEC - 1));
+        }
+        long wait = l.tryAcquire("a", t0 + SEC - 1);
+        assertEquals(SEC / 10, wait, "次の許可は 100ms 後");
+
+        // 固定窓なら境界直後にさらに10件通るが、GCRA では補充分の1件のみ
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (l.tryAcquire("a", t0 + SEC + SEC / 10) == 0) {
+                allowed++;
+            }
+        }
+        assertEquals(1, allowed);
+
+        // 他のキーは独立
+        assertEquals(0, l.tryAcquire("b", t0 + SEC));
+    }
+
+    @Test
+    void idleKeysAreEvicted_andTableIsBounded() {
+        GcraRateLimiter l = new GcraRateLimiter(1, 1, 2);
+        long t0 = 1_000 * SEC;
+
+        assertEquals(0, l.tryAcquire("a", t0));
+        assertEquals(0, l.tryAcquire("b", t0));
+        // 満杯で期限切れも無い: 記録せず許可
+        assertEquals(0, l.tryAcquire("c", t0));
+        assertEquals(0, l.tryAcquire("c", t0));
+        assertEquals(2, l.size());
+
+        // 1秒後には a, b は期限切れ。新しいキーの登録時に掃除される
+        assertEquals(0, l.tryAcquire("d", t0 + 2 * SEC));
+        assertTrue(l.tryAcquire("d", t0 + 2 * SEC) > 0);
+        assertEquals(1, l.size());
+        assertEquals(1, l.evictIdle(t0 + 10 * SEC));
+        assertEquals(0, l.size());
+    }
+}
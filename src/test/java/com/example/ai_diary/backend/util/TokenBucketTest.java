@@ -0,0 +1,30 @@
+package com.example.ai_diary.backend.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    @Test
+    void tryAcquire_consumesUntilEmpty_thenReportsWait() {
+        TokenBucket bucket = new TokenBucket(100, 60);
+
+        assertEquals(0, bucket.tryAcquire(60));
+        assertEquals(0, bucket.tryAcquire(40));
+
+        long wait = bucket.tryAcquire(10);
+        // 60/分 = 1/秒 → 10 トークンは約10秒
+        assertTrue(wait > TimeUnit.SECONDS.toNanos(9) && wait <= TimeUnit.SECONDS.toNanos(10), "wait=" + wait);
+    }
+
+    @Test
+    void tryAcquire_largerThanCapacity_allowedWhenFull_andGoesNegative() {
+        TokenBucket bucket = new TokenBucket(100, 60);
+
+        assertEquals(0, bucket.tryAcquire(250));
+        assertTrue(bucket.available() < -149);
+    }
+}